@@ -0,0 +1,94 @@
+package de.viadee.roo.addon.richclient.benchmark;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.roo.model.JavaType;
+
+import de.viadee.roo.addon.richclient.ApplicationContextSession;
+import de.viadee.roo.addon.richclient.GenerationOptions;
+
+/**
+ * Throughput of the generator against synthetic projects with 10, 100 and 1000 entities.
+ * Every invocation regenerates all entities, the incremental generation is bypassed with
+ * the force option.
+ *
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratorBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int entityCount;
+
+	private SyntheticRooProject project;
+	private GenerationOptions options;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		project = new SyntheticRooProject(entityCount);
+		options = new GenerationOptions();
+		options.setForce(true);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		project.delete();
+	}
+
+	@Benchmark
+	public void generateComponentsForAllEntities() {
+		project.getRichclientOperations().generateComponentsForAllEntities(project.getControllerPackage(), options);
+	}
+
+	@Benchmark
+	public void createRooComponents() {
+		project.getRooSwingComponentOperations().createRooComponents(project.getEntityTypes(), Collections.<JavaType>emptySet());
+	}
+
+	/**
+	 * Registers the controller, event, listener and entity beans of every entity in the
+	 * applicationContext.xml and writes it back, as a generation run does. The events and
+	 * listeners get the entity bean as constructor argument like in EntityComponents.
+	 */
+	@Benchmark
+	public long installApplicationContext() {
+		String controllerPackage = project.getControllerPackage().getFullyQualifiedPackageName();
+		String topLevelPackage = controllerPackage.substring(0, controllerPackage.lastIndexOf('.'));
+
+		ApplicationContextSession session = new ApplicationContextSession(project.getFileManager(), project.getProjectOperations());
+		for (JavaType entity : project.getEntityTypes()) {
+			String entityName = entity.getSimpleTypeName();
+			session.installBean(new JavaType(controllerPackage + "." + entityName + "Controller"));
+			String[] operations = new String[] { "Delete", "Update", "Create", "Read" };
+			for (String operation : operations) {
+				session.installBean(new JavaType(topLevelPackage + ".events." + operation + entityName + "Event"), entity);
+			}
+			for (String operation : operations) {
+				session.installBean(new JavaType(topLevelPackage + ".listeners." + operation + entityName + "Listener"), entity);
+			}
+			session.installBean(entity);
+		}
+		return session.commit();
+	}
+}
@@ -0,0 +1,411 @@
+package de.viadee.roo.addon.richclient.benchmark;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.roo.classpath.PhysicalTypeCategory;
+import org.springframework.roo.classpath.PhysicalTypeIdentifier;
+import org.springframework.roo.classpath.PhysicalTypeMetadata;
+import org.springframework.roo.classpath.TypeLocationService;
+import org.springframework.roo.classpath.TypeManagementService;
+import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetails;
+import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetailsBuilder;
+import org.springframework.roo.classpath.details.MemberHoldingTypeDetails;
+import org.springframework.roo.classpath.details.MethodMetadata;
+import org.springframework.roo.classpath.details.MethodMetadataBuilder;
+import org.springframework.roo.classpath.details.annotations.AnnotatedJavaType;
+import org.springframework.roo.classpath.details.annotations.AnnotationMetadataBuilder;
+import org.springframework.roo.classpath.itd.InvocableMemberBodyBuilder;
+import org.springframework.roo.classpath.scanner.MemberDetails;
+import org.springframework.roo.classpath.scanner.MemberDetailsScanner;
+import org.springframework.roo.metadata.MetadataDependencyRegistry;
+import org.springframework.roo.metadata.MetadataService;
+import org.springframework.roo.model.DataType;
+import org.springframework.roo.model.JavaPackage;
+import org.springframework.roo.model.JavaSymbolName;
+import org.springframework.roo.model.JavaType;
+import org.springframework.roo.process.manager.FileManager;
+import org.springframework.roo.process.manager.MutableFile;
+import org.springframework.roo.project.Path;
+import org.springframework.roo.project.PathResolver;
+import org.springframework.roo.project.ProjectMetadata;
+import org.springframework.roo.project.ProjectOperations;
+
+import de.viadee.roo.addon.richclient.EntityDetailsCacheImpl;
+import de.viadee.roo.addon.richclient.GenerationProfilerImpl;
+import de.viadee.roo.addon.richclient.RichclientOperations;
+import de.viadee.roo.addon.richclient.RichclientOperationsImpl;
+import de.viadee.roo.addon.richclient.RooEntityIndexImpl;
+import de.viadee.roo.addon.richclient.RooSwingComponentOperations;
+import de.viadee.roo.addon.richclient.RooSwingComponentOperationsImpl;
+import de.viadee.roo.addon.richclient.SwingOperationsImpl;
+
+/**
+ * Synthetic Roo project in a temporary directory. Every entity gets a source file and a
+ * JavaBean ITD on disk, so the fingerprinting and the file based parts of the generator see
+ * real files, while the Roo services of the OSGi container are replaced by stand-ins which
+ * serve the type details of the synthetic entities from memory.
+ * <p>
+ * The add-on services are created and wired by type, the same way the Felix SCR would
+ * inject their {@code @Reference} fields. {@link TypeManagementService#generateClassFile} is a
+ * stand-in without output, so the benchmarks measure the generator and not Roo's Java source
+ * writer.
+ *
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+public class SyntheticRooProject {
+
+	private static final JavaPackage TOP_LEVEL_PACKAGE = new JavaPackage("com.example.synthetic");
+	private static final JavaType ROO_ENTITY = new JavaType("org.springframework.roo.addon.entity.RooEntity");
+	private static final JavaType[] PROPERTY_TYPES = {
+		JavaType.STRING_OBJECT, JavaType.INT_OBJECT, JavaType.LONG_OBJECT, JavaType.DOUBLE_OBJECT, JavaType.BOOLEAN_OBJECT, new JavaType("java.util.Date")
+	};
+
+	private final File root;
+	private final Map<String, ClassOrInterfaceTypeDetails> entities = new HashMap<String, ClassOrInterfaceTypeDetails>();
+	private final Set<JavaType> entityTypes = new LinkedHashSet<JavaType>();
+
+	private final List<Object> services = new ArrayList<Object>();
+	private final FileManager fileManager;
+	private final ProjectOperations projectOperations;
+	private final RichclientOperations richclientOperations;
+	private final RooSwingComponentOperations rooSwingComponentOperations;
+
+	/**
+	 * Creates the project with the specified number of entities. The entities have between 2
+	 * and 16 properties.
+	 *
+	 * @param int entityCount
+	 * @throws IOException
+	 */
+	public SyntheticRooProject(int entityCount) throws IOException {
+		root = File.createTempFile("richclient-benchmark", "");
+		if (!root.delete() || !root.mkdir()) {
+			throw new IOException("Could not create project directory " + root);
+		}
+
+		for (int i = 0; i < entityCount; i++) {
+			createEntity(new JavaType(TOP_LEVEL_PACKAGE.getFullyQualifiedPackageName() + ".domain.Entity" + i), 2 + i % 15);
+		}
+		writeFile(getIdentifier(Path.SPRING_CONFIG_ROOT, "applicationContext.xml"),
+				"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n"
+				+ "<beans xmlns=\"http://www.springframework.org/schema/beans\">\n"
+				+ "    <bean class=\"org.apache.commons.dbcp.BasicDataSource\" destroy-method=\"close\" id=\"dataSource\"/>\n"
+				+ "    <bean class=\"org.springframework.orm.jpa.JpaTransactionManager\" id=\"transactionManager\"/>\n"
+				+ "</beans>\n");
+
+		fileManager = createFileManager();
+		projectOperations = createProjectOperations();
+		services.add(fileManager);
+		services.add(projectOperations);
+		services.add(createTypeLocationService());
+		services.add(mock(TypeManagementService.class));
+		services.add(createMetadataService());
+		services.add(createMemberDetailsScanner());
+		services.add(mock(MetadataDependencyRegistry.class));
+
+		richclientOperations = createService(RichclientOperationsImpl.class);
+		rooSwingComponentOperations = createService(RooSwingComponentOperationsImpl.class);
+		createService(SwingOperationsImpl.class);
+		createService(RooEntityIndexImpl.class);
+		createService(EntityDetailsCacheImpl.class);
+		createService(GenerationProfilerImpl.class);
+		for (Object service : services) {
+			inject(service);
+		}
+	}
+
+	public JavaPackage getControllerPackage() {
+		return new JavaPackage(TOP_LEVEL_PACKAGE.getFullyQualifiedPackageName() + ".controller");
+	}
+
+	public Set<JavaType> getEntityTypes() {
+		return entityTypes;
+	}
+
+	public FileManager getFileManager() {
+		return fileManager;
+	}
+
+	public ProjectOperations getProjectOperations() {
+		return projectOperations;
+	}
+
+	public RichclientOperations getRichclientOperations() {
+		return richclientOperations;
+	}
+
+	public RooSwingComponentOperations getRooSwingComponentOperations() {
+		return rooSwingComponentOperations;
+	}
+
+	/**
+	 * Deletes the project directory.
+	 */
+	public void delete() {
+		delete(root);
+	}
+
+	private void createEntity(JavaType entity, int propertyCount) throws IOException {
+		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(entity, Path.SRC_MAIN_JAVA);
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, entity, PhysicalTypeCategory.CLASS);
+		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
+		annotations.add(new AnnotationMetadataBuilder(ROO_ENTITY));
+		typeDetailsBuilder.setAnnotations(annotations);
+
+		String simpleName = entity.getSimpleTypeName();
+		StringBuilder source = new StringBuilder();
+		source.append("package ").append(entity.getPackage().getFullyQualifiedPackageName()).append(";\n\n");
+		source.append("@RooJavaBean\n@RooEntity\npublic class ").append(simpleName).append(" {\n");
+		StringBuilder itd = new StringBuilder();
+		itd.append("privileged aspect ").append(simpleName).append("_Roo_JavaBean {\n");
+
+		addProperty(typeDetailsBuilder, declaredByMetadataId, "id", JavaType.LONG_OBJECT);
+		addProperty(typeDetailsBuilder, declaredByMetadataId, "version", JavaType.INT_OBJECT);
+		for (int i = 0; i < propertyCount; i++) {
+			JavaType propertyType = PROPERTY_TYPES[i % PROPERTY_TYPES.length];
+			String propertyName = "property" + i;
+			addProperty(typeDetailsBuilder, declaredByMetadataId, propertyName, propertyType);
+			source.append("    private ").append(propertyType.getSimpleTypeName()).append(' ').append(propertyName).append(";\n");
+			itd.append("    public ").append(propertyType.getSimpleTypeName()).append(' ').append(simpleName).append(".get").append("Property").append(i).append("() { return this.").append(propertyName).append("; }\n");
+			itd.append("    public void ").append(simpleName).append(".set").append("Property").append(i).append('(').append(propertyType.getSimpleTypeName()).append(' ').append(propertyName).append(") { this.").append(propertyName).append(" = ").append(propertyName).append("; }\n");
+		}
+		source.append("}\n");
+		itd.append("}\n");
+
+		JavaType list = new JavaType("java.util.List", 0, DataType.TYPE, null, Arrays.asList(entity));
+		typeDetailsBuilder.addMethod(getFinderMethod(declaredByMetadataId, "findAll" + simpleName + "s", list, new JavaType[0]));
+		typeDetailsBuilder.addMethod(getFinderMethod(declaredByMetadataId, "find" + simpleName + "Entries", list, new JavaType[] { JavaType.INT_PRIMITIVE, JavaType.INT_PRIMITIVE }));
+		typeDetailsBuilder.addMethod(getFinderMethod(declaredByMetadataId, "count" + simpleName + "s", JavaType.LONG_PRIMITIVE, new JavaType[0]));
+		typeDetailsBuilder.addMethod(getFinderMethod(declaredByMetadataId, "find" + simpleName, entity, new JavaType[] { JavaType.LONG_OBJECT }));
+
+		String sourcePath = getIdentifier(Path.SRC_MAIN_JAVA, entity.getFullyQualifiedTypeName().replace('.', File.separatorChar) + ".java");
+		writeFile(sourcePath, source.toString());
+		writeFile(sourcePath.substring(0, sourcePath.length() - ".java".length()) + "_Roo_JavaBean.aj", itd.toString());
+
+		entities.put(entity.getFullyQualifiedTypeName(), typeDetailsBuilder.build());
+		entityTypes.add(entity);
+	}
+
+	private void addProperty(ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder, String declaredByMetadataId, String propertyName, JavaType propertyType) {
+		String suffix = Character.toUpperCase(propertyName.charAt(0)) + propertyName.substring(1);
+
+		InvocableMemberBodyBuilder getterBody = new InvocableMemberBodyBuilder();
+		getterBody.appendFormalLine("return this." + propertyName + ";");
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, new JavaSymbolName("get" + suffix), propertyType, getterBody).build());
+
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(propertyType, null));
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName(propertyName));
+		InvocableMemberBodyBuilder setterBody = new InvocableMemberBodyBuilder();
+		setterBody.appendFormalLine("this." + propertyName + " = " + propertyName + ";");
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, new JavaSymbolName("set" + suffix), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, setterBody).build());
+	}
+
+	private MethodMetadata getFinderMethod(String declaredByMetadataId, String methodName, JavaType returnType, JavaType[] parameters) {
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		for (int i = 0; i < parameters.length; i++) {
+			parameterTypes.add(new AnnotatedJavaType(parameters[i], null));
+			parameterNames.add(new JavaSymbolName("arg" + i));
+		}
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return null;");
+		return new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC, new JavaSymbolName(methodName), returnType, parameterTypes, parameterNames, bodyBuilder).build();
+	}
+
+	private FileManager createFileManager() {
+		FileManager fileManager = mock(FileManager.class);
+		when(fileManager.exists(anyString())).thenAnswer(new Answer<Boolean>() {
+			public Boolean answer(InvocationOnMock invocation) {
+				return new File((String) invocation.getArguments()[0]).exists();
+			}
+		});
+		Answer<MutableFile> mutableFile = new Answer<MutableFile>() {
+			public MutableFile answer(InvocationOnMock invocation) throws IOException {
+				return createMutableFile((String) invocation.getArguments()[0]);
+			}
+		};
+		when(fileManager.createFile(anyString())).thenAnswer(mutableFile);
+		when(fileManager.updateFile(anyString())).thenAnswer(mutableFile);
+		return fileManager;
+	}
+
+	private MutableFile createMutableFile(final String canonicalPath) throws IOException {
+		final File file = new File(canonicalPath);
+		file.getParentFile().mkdirs();
+		MutableFile mutableFile = mock(MutableFile.class);
+		when(mutableFile.getCanonicalPath()).thenReturn(canonicalPath);
+		when(mutableFile.getInputStream()).thenAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) throws IOException {
+				return new FileInputStream(file);
+			}
+		});
+		when(mutableFile.getOutputStream()).thenAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) throws IOException {
+				return new FileOutputStream(file);
+			}
+		});
+		return mutableFile;
+	}
+
+	private ProjectOperations createProjectOperations() {
+		PathResolver pathResolver = mock(PathResolver.class);
+		when(pathResolver.getIdentifier(any(Path.class), anyString())).thenAnswer(new Answer<String>() {
+			public String answer(InvocationOnMock invocation) {
+				return getIdentifier((Path) invocation.getArguments()[0], (String) invocation.getArguments()[1]);
+			}
+		});
+		when(pathResolver.getPath(anyString())).thenReturn(Path.SRC_MAIN_JAVA);
+
+		ProjectMetadata projectMetadata = mock(ProjectMetadata.class);
+		when(projectMetadata.getTopLevelPackage()).thenReturn(TOP_LEVEL_PACKAGE);
+
+		ProjectOperations projectOperations = mock(ProjectOperations.class);
+		when(projectOperations.isProjectAvailable()).thenReturn(true);
+		when(projectOperations.getPathResolver()).thenReturn(pathResolver);
+		when(projectOperations.getProjectMetadata()).thenReturn(projectMetadata);
+		return projectOperations;
+	}
+
+	private TypeLocationService createTypeLocationService() {
+		TypeLocationService typeLocationService = mock(TypeLocationService.class);
+		when(typeLocationService.getPhysicalLocationCanonicalPath(any(JavaType.class), any(Path.class))).thenAnswer(new Answer<String>() {
+			public String answer(InvocationOnMock invocation) {
+				JavaType javaType = (JavaType) invocation.getArguments()[0];
+				return getIdentifier((Path) invocation.getArguments()[1], javaType.getFullyQualifiedTypeName().replace('.', File.separatorChar) + ".java");
+			}
+		});
+		when(typeLocationService.findClassesOrInterfaceDetailsWithAnnotation(anyVararg())).thenAnswer(new Answer<Set<ClassOrInterfaceTypeDetails>>() {
+			public Set<ClassOrInterfaceTypeDetails> answer(InvocationOnMock invocation) {
+				return new LinkedHashSet<ClassOrInterfaceTypeDetails>(entities.values());
+			}
+		});
+		return typeLocationService;
+	}
+
+	private MetadataService createMetadataService() {
+		MetadataService metadataService = mock(MetadataService.class);
+		when(metadataService.get(anyString())).thenAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) {
+				String metadataIdentificationString = (String) invocation.getArguments()[0];
+				if (!PhysicalTypeIdentifier.isValid(metadataIdentificationString)) {
+					return null;
+				}
+				ClassOrInterfaceTypeDetails cid = entities.get(PhysicalTypeIdentifier.getJavaType(metadataIdentificationString).getFullyQualifiedTypeName());
+				if (cid == null) {
+					return null;
+				}
+				PhysicalTypeMetadata physicalTypeMetadata = mock(PhysicalTypeMetadata.class);
+				when(physicalTypeMetadata.getMemberHoldingTypeDetails()).thenReturn(cid);
+				return physicalTypeMetadata;
+			}
+		});
+		return metadataService;
+	}
+
+	private MemberDetailsScanner createMemberDetailsScanner() {
+		MemberDetailsScanner memberDetailsScanner = mock(MemberDetailsScanner.class);
+		when(memberDetailsScanner.getMemberDetails(anyString(), any(ClassOrInterfaceTypeDetails.class))).thenAnswer(new Answer<MemberDetails>() {
+			public MemberDetails answer(InvocationOnMock invocation) {
+				List<MemberHoldingTypeDetails> details = new ArrayList<MemberHoldingTypeDetails>();
+				details.add((ClassOrInterfaceTypeDetails) invocation.getArguments()[1]);
+				MemberDetails memberDetails = mock(MemberDetails.class);
+				when(memberDetails.getDetails()).thenReturn(details);
+				return memberDetails;
+			}
+		});
+		return memberDetailsScanner;
+	}
+
+	private <T> T createService(Class<T> serviceClass) {
+		try {
+			T service = serviceClass.newInstance();
+			services.add(service);
+			return service;
+		} catch (Exception ex) {
+			throw new IllegalStateException("Could not create service " + serviceClass.getName(), ex);
+		}
+	}
+
+	/**
+	 * Assigns every non-static field of the service whose type is implemented by one of the
+	 * registered services.
+	 */
+	private void inject(Object service) {
+		for (Class<?> type = service.getClass(); type != null && type.getName().startsWith("de.viadee."); type = type.getSuperclass()) {
+			for (Field field : type.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+					continue;
+				}
+				for (Object candidate : services) {
+					if (candidate != service && field.getType().isInterface() && field.getType().isInstance(candidate)) {
+						try {
+							field.setAccessible(true);
+							field.set(service, candidate);
+						} catch (IllegalAccessException ex) {
+							throw new IllegalStateException(ex);
+						}
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	private String getIdentifier(Path path, String relativePath) {
+		String directory;
+		if (Path.SPRING_CONFIG_ROOT.equals(path)) {
+			directory = "src/main/resources/META-INF/spring";
+		} else if (Path.SRC_MAIN_RESOURCES.equals(path)) {
+			directory = "src/main/resources";
+		} else {
+			directory = "src/main/java";
+		}
+		return new File(new File(root, directory), relativePath).getAbsolutePath();
+	}
+
+	private void writeFile(String canonicalPath, String content) throws IOException {
+		File file = new File(canonicalPath);
+		file.getParentFile().mkdirs();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writer.write(content);
+		} finally {
+			writer.close();
+		}
+	}
+
+	private void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
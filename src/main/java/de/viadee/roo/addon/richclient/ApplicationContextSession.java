@@ -0,0 +1,722 @@
+package de.viadee.roo.addon.richclient;
+
+import java.beans.Introspector;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.springframework.roo.model.JavaPackage;
+import org.springframework.roo.model.JavaType;
+import org.springframework.roo.process.manager.FileManager;
+import org.springframework.roo.process.manager.MutableFile;
+import org.springframework.roo.project.Path;
+import org.springframework.roo.project.ProjectOperations;
+import org.springframework.roo.support.util.Assert;
+import org.springframework.roo.support.util.StringUtils;
+
+/**
+ * Editing session for the Spring applicationContext.xml. All bean and component-scan
+ * registrations of a generation run are collected by the session and merged into the file
+ * once on {@link #commit()}.
+ * <p>
+ * The file is never held in memory as a whole. Opening the session streams over the file
+ * once and indexes the top level beans by class and id, the commit streams the file again
+ * and copies every node unchanged except for the elements registered or removed during the
+ * session. Formatting and comments of the file are preserved.
+ *
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+public class ApplicationContextSession {
+
+	private static final String BEAN = "bean";
+	private static final String CONSTRUCTOR_ARG = "constructor-arg";
+	private static final String PROPERTY = "property";
+	private static final String COMPONENT_SCAN = "component-scan";
+	private static final String CONTEXT_NAMESPACE = "http://www.springframework.org/schema/context";
+
+	private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+	private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+	private MutableFile appContextMutableFile;
+
+	/**
+	 * Prefix of the Spring context namespace declared by the root element, null if it is not declared
+	 */
+	private String contextPrefix;
+
+	/**
+	 * Top level elements of the file with the changes of this session applied, keyed by
+	 * {@link ElementDefinition#getKey()}. The content of an element is described by its
+	 * signature (see {@link ElementDefinition#getSignature()}).
+	 */
+	private Map<String, String> signaturesByKey = new HashMap<String, String>();
+	private Map<String, String> idsByClass = new HashMap<String, String>();
+	private Map<String, String> classesById = new HashMap<String, String>();
+
+	/**
+	 * Base packages of the component-scans contained in the file when the session has been opened
+	 */
+	private Set<String> scannedPackages = new HashSet<String>();
+
+	/**
+	 * Changes of this session by element key
+	 */
+	private Map<String, ElementDefinition> installedElements = new LinkedHashMap<String, ElementDefinition>();
+	private Set<String> removedElements = new HashSet<String>();
+
+	/**
+	 * Opens the applicationContext.xml of the current project and indexes its beans.
+	 *
+	 * @param FileManager fileManager
+	 * @param ProjectOperations projectOperations
+	 */
+	public ApplicationContextSession(FileManager fileManager, ProjectOperations projectOperations) {
+		Assert.isTrue(projectOperations.isProjectAvailable(), "Project metadata required");
+
+		// Verify that the application context already exists
+		String appContextPath = projectOperations.getPathResolver().getIdentifier(Path.SPRING_CONFIG_ROOT, "applicationContext.xml");
+		Assert.isTrue(fileManager.exists(appContextPath), "Application context does not exist");
+
+		try {
+			appContextMutableFile = fileManager.updateFile(appContextPath);
+			indexBeans(appContextMutableFile.getInputStream());
+		} catch (Exception ex) {
+			throw new IllegalStateException("Could not aquire the Spring applicationContext.xml file", ex);
+		}
+	}
+
+	/**
+	 * Registers a bean for the specified JavaType. An existing bean of the same class is replaced.
+	 *
+	 * @param JavaType javaType
+	 */
+	public void installBean(JavaType javaType) {
+		putBean(new BeanDefinition(javaType.getFullyQualifiedTypeName(), javaType.getSimpleTypeName(), null, null));
+	}
+
+	/**
+	 * Registers a bean for the specified JavaType which gets the bean of the entity injected as
+	 * constructor argument. An existing bean of the same class is replaced.
+	 *
+	 * @param JavaType javaType
+	 * @param JavaType entity
+	 */
+	public void installBean(JavaType javaType, JavaType entity) {
+		String entityName = entity.getSimpleTypeName();
+		putBean(new BeanDefinition(javaType.getFullyQualifiedTypeName(), javaType.getSimpleTypeName(), entityName, uncapitalize(entityName)));
+	}
+
+	/**
+	 * Registers a prototype bean for the specified JavaType with the specified property values,
+	 * unless a bean of the same class is registered already. The bean holds settings the user may
+	 * tune in applicationContext.xml, so an existing bean is never replaced.
+	 *
+	 * @param JavaType javaType
+	 * @param Map<String, String> properties property values by property name
+	 */
+	public void installPrototypeBean(JavaType javaType, Map<String, String> properties) {
+		if (signaturesByKey.containsKey(javaType.getFullyQualifiedTypeName())) {
+			return;
+		}
+		BeanDefinition bean = new BeanDefinition(javaType.getFullyQualifiedTypeName(), javaType.getSimpleTypeName(), null, null);
+		bean.scope = "prototype";
+		bean.properties.putAll(properties);
+		putBean(bean);
+	}
+
+	/**
+	 * Removes the bean of the specified JavaType if it is registered.
+	 *
+	 * @param JavaType javaType
+	 */
+	public void removeBean(JavaType javaType) {
+		String beanClass = javaType.getFullyQualifiedTypeName();
+		if (removeElement(beanClass)) {
+			releaseId(beanClass);
+		}
+	}
+
+	/**
+	 * Registers a component-scan for the specified package. The package is scanned with the
+	 * default filters, so it picks up every @Component, @Controller and @Configuration class.
+	 *
+	 * @param JavaPackage javaPackage
+	 * @throws IllegalStateException if applicationContext.xml does not declare the Spring context
+	 * 		namespace or already contains a component-scan of the package with filters
+	 */
+	public void installComponentScan(JavaPackage javaPackage) {
+		if (contextPrefix == null) {
+			throw new IllegalStateException("applicationContext.xml does not declare the namespace " + CONTEXT_NAMESPACE);
+		}
+		ComponentScanDefinition componentScan = new ComponentScanDefinition(javaPackage.getFullyQualifiedPackageName());
+		if ("".equals(signaturesByKey.get(componentScan.getKey()))) {
+			throw new IllegalStateException("applicationContext.xml already contains a component-scan of " + componentScan.basePackage + " with custom settings");
+		}
+		putElement(componentScan);
+	}
+
+	/**
+	 * Checks whether the file contains a component-scan of a parent package, like the scan of
+	 * the top level package Roo registers. Such a scan already picks up the @Component and
+	 * @Configuration classes of the package, but Roo excludes @Controller classes from it.
+	 *
+	 * @param JavaPackage javaPackage
+	 * @return true if a parent package is scanned
+	 */
+	public boolean isScannedByParentPackage(JavaPackage javaPackage) {
+		String packageName = javaPackage.getFullyQualifiedPackageName();
+		for (String scannedPackage : scannedPackages) {
+			if (packageName.startsWith(scannedPackage + ".")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the component-scan of the specified package if it is registered without any
+	 * further settings. Component-scans with filters have not been registered by the session
+	 * and are kept.
+	 *
+	 * @param JavaPackage javaPackage
+	 */
+	public void removeComponentScan(JavaPackage javaPackage) {
+		ComponentScanDefinition componentScan = new ComponentScanDefinition(javaPackage.getFullyQualifiedPackageName());
+		if (componentScan.getSignature().equals(signaturesByKey.get(componentScan.getKey()))) {
+			removeElement(componentScan.getKey());
+		}
+	}
+
+	/**
+	 * Merges the elements registered or removed during this session into applicationContext.xml.
+	 *
+	 * @return the size of the written file in bytes, 0 if nothing has been written
+	 */
+	public long commit() {
+		if (installedElements.isEmpty() && removedElements.isEmpty()) {
+			return 0;
+		}
+
+		File mergedFile = null;
+		try {
+			// The mutable file can not be read and written at the same time
+			mergedFile = File.createTempFile("applicationContext", ".xml");
+			mergeElements(appContextMutableFile.getInputStream(), mergedFile);
+			copy(mergedFile, appContextMutableFile.getOutputStream());
+		} catch (Exception ex) {
+			throw new IllegalStateException("Could not update the Spring applicationContext.xml file", ex);
+		} finally {
+			if (mergedFile != null) {
+				mergedFile.delete();
+			}
+		}
+
+		installedElements.clear();
+		removedElements.clear();
+		return new File(appContextMutableFile.getCanonicalPath()).length();
+	}
+
+	/**
+	 * Replaces the bean of the same class or adds the bean if its class is not registered yet.
+	 * An existing bean equal to the new one is kept.
+	 *
+	 * @param BeanDefinition bean
+	 * @throws IllegalStateException if the id of the bean is already used by a bean of another class
+	 */
+	private void putBean(BeanDefinition bean) {
+		String sameId = classesById.get(bean.id);
+		if (sameId != null && !sameId.equals(bean.className)) {
+			throw new IllegalStateException("Bean id '" + bean.id + "' of " + bean.className + " is already used by " + sameId + " in applicationContext.xml");
+		}
+		if (putElement(bean)) {
+			releaseId(bean.className);
+			idsByClass.put(bean.className, bean.id);
+			classesById.put(bean.id, bean.className);
+		}
+	}
+
+	/**
+	 * Replaces the element with the same key or adds the element if its key is not registered
+	 * yet. An existing element equal to the new one is kept.
+	 *
+	 * @param ElementDefinition element
+	 * @return true if the file has to be changed
+	 */
+	private boolean putElement(ElementDefinition element) {
+		String key = element.getKey();
+		if (element.getSignature().equals(signaturesByKey.get(key))) {
+			return false;
+		}
+		signaturesByKey.put(key, element.getSignature());
+		installedElements.put(key, element);
+		removedElements.remove(key);
+		return true;
+	}
+
+	/**
+	 * @param String key
+	 * @return true if the file contained an element with the specified key
+	 */
+	private boolean removeElement(String key) {
+		if (!signaturesByKey.containsKey(key)) {
+			return false;
+		}
+		signaturesByKey.remove(key);
+		installedElements.remove(key);
+		removedElements.add(key);
+		return true;
+	}
+
+	private void releaseId(String beanClass) {
+		String id = idsByClass.remove(beanClass);
+		if (id != null && beanClass.equals(classesById.get(id))) {
+			classesById.remove(id);
+		}
+	}
+
+	/**
+	 * Reads the key and signature of every top level bean and component-scan, and the id of
+	 * every bean.
+	 */
+	private void indexBeans(InputStream inputStream) throws XMLStreamException, IOException {
+		XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(inputStream);
+		try {
+			int depth = 0;
+			BeanDefinition bean = null;
+			ComponentScanDefinition componentScan = null;
+			int children = 0;
+			boolean simple = true;
+
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					depth++;
+					if (depth == 1) {
+						for (int i = 0; i < reader.getNamespaceCount(); i++) {
+							if (CONTEXT_NAMESPACE.equals(reader.getNamespaceURI(i))) {
+								contextPrefix = reader.getNamespacePrefix(i) == null ? "" : reader.getNamespacePrefix(i);
+							}
+						}
+					} else if (depth == 2 && BEAN.equals(reader.getLocalName())) {
+						bean = new BeanDefinition(reader.getAttributeValue(null, "class"), reader.getAttributeValue(null, "id"), null, null);
+						children = 0;
+						simple = reader.getAttributeCount() == 2;
+					} else if (depth == 2 && isComponentScan(reader)) {
+						componentScan = new ComponentScanDefinition(reader.getAttributeValue(null, "base-package"));
+						if (componentScan.basePackage != null) {
+							scannedPackages.add(componentScan.basePackage);
+						}
+						children = 0;
+						simple = reader.getAttributeCount() == 1;
+					} else if (depth == 3 && componentScan != null) {
+						simple = false;
+					} else if (depth == 3 && bean != null) {
+						children++;
+						simple &= CONSTRUCTOR_ARG.equals(reader.getLocalName()) && reader.getAttributeCount() == 2;
+						bean.constructorArgRef = reader.getAttributeValue(null, "ref");
+						bean.constructorArgName = reader.getAttributeValue(null, "name");
+					} else if (depth > 3) {
+						simple = false;
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					if (depth == 2 && bean != null) {
+						addToIndex(bean, simple && children <= 1);
+						bean = null;
+					} else if (depth == 2 && componentScan != null) {
+						if (componentScan.basePackage != null && !signaturesByKey.containsKey(componentScan.getKey())) {
+							signaturesByKey.put(componentScan.getKey(), simple ? componentScan.getSignature() : "");
+						}
+						componentScan = null;
+					}
+					depth--;
+				}
+			}
+		} finally {
+			reader.close();
+			inputStream.close();
+		}
+	}
+
+	private void addToIndex(BeanDefinition bean, boolean simple) {
+		if (bean.className != null && !signaturesByKey.containsKey(bean.className)) {
+			// Elements with content the session does not generate never equal a generated element
+			signaturesByKey.put(bean.className, simple && bean.id != null ? bean.getSignature() : "");
+			idsByClass.put(bean.className, bean.id);
+		}
+		if (bean.id != null && !classesById.containsKey(bean.id)) {
+			classesById.put(bean.id, bean.className);
+		}
+	}
+
+	/**
+	 * Copies the file node by node. Changed top level elements are replaced at their position,
+	 * removed elements are dropped together with their indentation and new elements are
+	 * appended at the end of the root element, which is opened if it has been empty.
+	 */
+	private void mergeElements(InputStream inputStream, File mergedFile) throws XMLStreamException, IOException {
+		XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(inputStream);
+		OutputStream outputStream = new FileOutputStream(mergedFile);
+		XMLStreamWriter writer = null;
+		try {
+			String encoding = reader.getCharacterEncodingScheme() == null ? "UTF-8" : reader.getCharacterEncodingScheme();
+			String version = reader.getVersion() == null ? "1.0" : reader.getVersion();
+			String standalone = reader.standaloneSet() ? " standalone=\"" + (reader.isStandalone() ? "yes" : "no") + "\"" : "";
+			outputStream.write(("<?xml version=\"" + version + "\" encoding=\"" + encoding + "\"" + standalone + "?>\n").getBytes(encoding));
+			writer = OUTPUT_FACTORY.createXMLStreamWriter(outputStream, encoding);
+
+			Set<String> writtenElements = new HashSet<String>();
+			StringBuilder whitespace = new StringBuilder();
+			String indentation = "\n    ";
+			StartTag startTag = null;
+			String rootPrefix = null;
+			String rootNamespaceURI = null;
+			int depth = 0;
+
+			while (reader.hasNext()) {
+				int event = reader.next();
+
+				// Whitespace between top level elements is held back until the next element is known
+				if (depth == 1 && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.SPACE) && reader.isWhiteSpace()) {
+					whitespace.append(reader.getText());
+					continue;
+				}
+
+				// Elements are written once it is known whether they are empty, an empty root
+				// element is not closed at once if elements have to be appended to it
+				if (startTag != null) {
+					boolean empty = event == XMLStreamConstants.END_ELEMENT && (depth > 1 || writtenElements.containsAll(installedElements.keySet()));
+					startTag.write(writer, empty);
+					if (empty) {
+						startTag = null;
+						depth--;
+						continue;
+					}
+					startTag = null;
+				}
+
+				switch (event) {
+				case XMLStreamConstants.START_ELEMENT:
+					depth++;
+					if (depth == 1) {
+						rootPrefix = reader.getPrefix();
+						rootNamespaceURI = reader.getNamespaceURI();
+					} else if (depth == 2) {
+						String key = getKey(reader);
+						ElementDefinition installed = key == null ? null : installedElements.get(key);
+						if (installed != null || (key != null && removedElements.contains(key))) {
+							skipElement(reader);
+							depth--;
+							if (installed != null && writtenElements.add(key)) {
+								indentation = getIndentation(whitespace, indentation);
+								flush(writer, whitespace);
+								installed.write(writer, rootPrefix, rootNamespaceURI, contextPrefix);
+							} else {
+								whitespace.setLength(0);
+							}
+							continue;
+						}
+						indentation = getIndentation(whitespace, indentation);
+					}
+					flush(writer, whitespace);
+					startTag = new StartTag(reader);
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					if (depth == 1) {
+						boolean appended = false;
+						for (ElementDefinition installed : installedElements.values()) {
+							if (!writtenElements.contains(installed.getKey())) {
+								writer.writeCharacters(indentation);
+								installed.write(writer, rootPrefix, rootNamespaceURI, contextPrefix);
+								appended = true;
+							}
+						}
+						if (appended && whitespace.length() == 0) {
+							whitespace.append('\n');
+						}
+					}
+					flush(writer, whitespace);
+					writer.writeEndElement();
+					if (depth == 1) {
+						writer.writeCharacters("\n");
+					}
+					depth--;
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.SPACE:
+					flush(writer, whitespace);
+					writer.writeCharacters(reader.getText());
+					break;
+				case XMLStreamConstants.CDATA:
+					flush(writer, whitespace);
+					writer.writeCData(reader.getText());
+					break;
+				case XMLStreamConstants.COMMENT:
+					flush(writer, whitespace);
+					writer.writeComment(reader.getText());
+					if (depth == 0) {
+						writer.writeCharacters("\n");
+					}
+					break;
+				case XMLStreamConstants.PROCESSING_INSTRUCTION:
+					flush(writer, whitespace);
+					writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+					break;
+				case XMLStreamConstants.ENTITY_REFERENCE:
+					flush(writer, whitespace);
+					writer.writeEntityRef(reader.getLocalName());
+					break;
+				case XMLStreamConstants.DTD:
+					writer.writeDTD(reader.getText());
+					writer.writeCharacters("\n");
+					break;
+				default:
+					break;
+				}
+			}
+			writer.flush();
+		} finally {
+			if (writer != null) {
+				writer.close();
+			}
+			reader.close();
+			inputStream.close();
+			outputStream.close();
+		}
+	}
+
+	/**
+	 * @return the key of the top level element at the current position, null if the session does not manage such elements
+	 */
+	private String getKey(XMLStreamReader reader) {
+		if (BEAN.equals(reader.getLocalName())) {
+			return reader.getAttributeValue(null, "class");
+		}
+		if (isComponentScan(reader) && reader.getAttributeValue(null, "base-package") != null) {
+			return new ComponentScanDefinition(reader.getAttributeValue(null, "base-package")).getKey();
+		}
+		return null;
+	}
+
+	private boolean isComponentScan(XMLStreamReader reader) {
+		return COMPONENT_SCAN.equals(reader.getLocalName()) && CONTEXT_NAMESPACE.equals(reader.getNamespaceURI());
+	}
+
+	private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	private void flush(XMLStreamWriter writer, StringBuilder whitespace) throws XMLStreamException {
+		if (whitespace.length() > 0) {
+			writer.writeCharacters(whitespace.toString());
+			whitespace.setLength(0);
+		}
+	}
+
+	/**
+	 * @return the last line of the held back whitespace, which indents the next top level element
+	 */
+	private String getIndentation(StringBuilder whitespace, String defaultIndentation) {
+		int lineBreak = whitespace.lastIndexOf("\n");
+		return lineBreak == -1 ? defaultIndentation : whitespace.substring(lineBreak);
+	}
+
+	private void copy(File source, OutputStream outputStream) throws IOException {
+		InputStream inputStream = new FileInputStream(source);
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = inputStream.read(buffer)) != -1) {
+				outputStream.write(buffer, 0, read);
+			}
+		} finally {
+			inputStream.close();
+			outputStream.close();
+		}
+	}
+
+	private String uncapitalize(String term) {
+		// [ROO-1790] this is needed to adhere to the JavaBean naming conventions (see JavaBean spec section 8.8)
+		return Introspector.decapitalize(StringUtils.capitalize(term));
+	}
+
+	private static boolean hasText(String text) {
+		return text != null && text.length() > 0;
+	}
+
+	/**
+	 * A start tag read from the file, copied with its namespace declarations and attributes in
+	 * document order.
+	 */
+	private static class StartTag {
+
+		private String prefix;
+		private String localName;
+		private String namespaceURI;
+		private List<String[]> namespaces = new ArrayList<String[]>();
+		private List<String[]> attributes = new ArrayList<String[]>();
+
+		private StartTag(XMLStreamReader reader) {
+			prefix = reader.getPrefix();
+			localName = reader.getLocalName();
+			namespaceURI = reader.getNamespaceURI();
+			for (int i = 0; i < reader.getNamespaceCount(); i++) {
+				namespaces.add(new String[] { reader.getNamespacePrefix(i), reader.getNamespaceURI(i) });
+			}
+			for (int i = 0; i < reader.getAttributeCount(); i++) {
+				attributes.add(new String[] { reader.getAttributePrefix(i), reader.getAttributeNamespace(i), reader.getAttributeLocalName(i), reader.getAttributeValue(i) });
+			}
+		}
+
+		private void write(XMLStreamWriter writer, boolean empty) throws XMLStreamException {
+			String elementPrefix = prefix == null ? "" : prefix;
+			String elementNamespaceURI = namespaceURI == null ? "" : namespaceURI;
+			if (empty) {
+				writer.writeEmptyElement(elementPrefix, localName, elementNamespaceURI);
+			} else {
+				writer.writeStartElement(elementPrefix, localName, elementNamespaceURI);
+			}
+			for (String[] namespace : namespaces) {
+				if (hasText(namespace[0])) {
+					writer.writeNamespace(namespace[0], namespace[1]);
+				} else {
+					writer.writeDefaultNamespace(namespace[1]);
+				}
+			}
+			for (String[] attribute : attributes) {
+				if (hasText(attribute[0])) {
+					writer.writeAttribute(attribute[0], attribute[1], attribute[2], attribute[3]);
+				} else {
+					writer.writeAttribute(attribute[2], attribute[3]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A top level element as generated by the session.
+	 */
+	private static abstract class ElementDefinition {
+
+		/**
+		 * @return the key that identifies the element within the file
+		 */
+		protected abstract String getKey();
+
+		/**
+		 * @return a description of the element's content, equal for elements that are written equally
+		 */
+		protected abstract String getSignature();
+
+		protected abstract void write(XMLStreamWriter writer, String prefix, String namespaceURI, String contextPrefix) throws XMLStreamException;
+	}
+
+	/**
+	 * A bean element: class, id and an optional constructor-arg referencing another bean, or the
+	 * scope and property values of a settings bean.
+	 */
+	private static class BeanDefinition extends ElementDefinition {
+
+		private String className;
+		private String id;
+		private String constructorArgRef;
+		private String constructorArgName;
+		private String scope;
+		private Map<String, String> properties = new LinkedHashMap<String, String>();
+
+		private BeanDefinition(String className, String id, String constructorArgRef, String constructorArgName) {
+			this.className = className;
+			this.id = id;
+			this.constructorArgRef = constructorArgRef;
+			this.constructorArgName = constructorArgName;
+		}
+
+		protected String getKey() {
+			return className;
+		}
+
+		protected String getSignature() {
+			return id + "|" + (constructorArgRef == null ? "" : constructorArgRef + "|" + constructorArgName) + (scope == null ? "" : "|" + scope + "|" + properties);
+		}
+
+		protected void write(XMLStreamWriter writer, String prefix, String namespaceURI, String contextPrefix) throws XMLStreamException {
+			String elementPrefix = prefix == null ? "" : prefix;
+			String elementNamespaceURI = namespaceURI == null ? "" : namespaceURI;
+			boolean empty = constructorArgRef == null && properties.isEmpty();
+			if (empty) {
+				writer.writeEmptyElement(elementPrefix, BEAN, elementNamespaceURI);
+			} else {
+				writer.writeStartElement(elementPrefix, BEAN, elementNamespaceURI);
+			}
+			writer.writeAttribute("class", className);
+			writer.writeAttribute("id", id);
+			if (scope != null) {
+				writer.writeAttribute("scope", scope);
+			}
+			if (constructorArgRef != null) {
+				writer.writeEmptyElement(elementPrefix, CONSTRUCTOR_ARG, elementNamespaceURI);
+				writer.writeAttribute("name", constructorArgName);
+				writer.writeAttribute("ref", constructorArgRef);
+			}
+			for (Map.Entry<String, String> property : properties.entrySet()) {
+				writer.writeEmptyElement(elementPrefix, PROPERTY, elementNamespaceURI);
+				writer.writeAttribute("name", property.getKey());
+				writer.writeAttribute("value", property.getValue());
+			}
+			if (!empty) {
+				writer.writeEndElement();
+			}
+		}
+	}
+
+	/**
+	 * A context:component-scan element with the default filters.
+	 */
+	private static class ComponentScanDefinition extends ElementDefinition {
+
+		private String basePackage;
+
+		private ComponentScanDefinition(String basePackage) {
+			this.basePackage = basePackage;
+		}
+
+		protected String getKey() {
+			// Bean classes never contain a colon
+			return COMPONENT_SCAN + ":" + basePackage;
+		}
+
+		protected String getSignature() {
+			return basePackage;
+		}
+
+		protected void write(XMLStreamWriter writer, String prefix, String namespaceURI, String contextPrefix) throws XMLStreamException {
+			writer.writeEmptyElement(contextPrefix, COMPONENT_SCAN, CONTEXT_NAMESPACE);
+			writer.writeAttribute("base-package", basePackage);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package de.viadee.roo.addon.richclient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetails;
+import org.springframework.roo.model.JavaType;
+
+/**
+ * All components built for a single entity that still have to be written: the type details
+ * of the generated classes and the beans to register with the Spring Application Context.
+ * Building these components does not touch any files, so the components of several entities
+ * can be built concurrently and written afterwards in a fixed order.
+ * 
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+public class EntityComponents {
+	
+	private JavaType entity;
+	private List<ClassOrInterfaceTypeDetails> types = new ArrayList<ClassOrInterfaceTypeDetails>();
+	private List<JavaType> beans = new ArrayList<JavaType>();
+	private List<JavaType> constructorArgs = new ArrayList<JavaType>();
+	
+	public EntityComponents(JavaType entity) {
+		this.entity = entity;
+	}
+	
+	public JavaType getEntity() {
+		return entity;
+	}
+	
+	/**
+	 * Adds the type details of a class that has to be generated.
+	 * 
+	 * @param ClassOrInterfaceTypeDetails typeDetails
+	 */
+	public void addType(ClassOrInterfaceTypeDetails typeDetails) {
+		types.add(typeDetails);
+	}
+	
+	public List<ClassOrInterfaceTypeDetails> getTypes() {
+		return types;
+	}
+	
+	/**
+	 * Adds a bean without constructor arguments.
+	 * 
+	 * @param JavaType bean
+	 */
+	public void addBean(JavaType bean) {
+		addBean(bean, null);
+	}
+	
+	/**
+	 * Adds a bean that gets the bean of the specified entity injected as constructor argument.
+	 * 
+	 * @param JavaType bean
+	 * @param JavaType constructorArg the entity, may be null
+	 */
+	public void addBean(JavaType bean, JavaType constructorArg) {
+		beans.add(bean);
+		constructorArgs.add(constructorArg);
+	}
+	
+	public List<JavaType> getBeans() {
+		return beans;
+	}
+	
+	/**
+	 * @return the constructor argument of every bean at the same index, null entries for beans without one
+	 */
+	public List<JavaType> getConstructorArgs() {
+		return constructorArgs;
+	}
+}
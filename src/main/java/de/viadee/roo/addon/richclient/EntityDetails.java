@@ -0,0 +1,121 @@
+package de.viadee.roo.addon.richclient;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.roo.classpath.details.MethodMetadata;
+import org.springframework.roo.classpath.scanner.MemberDetails;
+import org.springframework.roo.model.JavaType;
+
+/**
+ * Scanned member details of an entity together with the accessors and finder methods the
+ * generators are interested in. Instances are created by the {@link EntityDetailsCache}.
+ * 
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+public class EntityDetails {
+	
+	/**
+	 * Types of the properties the database can sort, filter and index by
+	 */
+	private static final Set<String> QUERYABLE_TYPES = new HashSet<String>(Arrays.asList("java.lang.String", "java.lang.Long", "java.lang.Integer", "java.lang.Short", "java.lang.Byte",
+		"java.lang.Double", "java.lang.Float", "java.lang.Boolean", "java.lang.Character", "java.math.BigDecimal", "java.math.BigInteger", "java.util.Date", "java.util.Calendar",
+		"java.sql.Date", "java.sql.Time", "java.sql.Timestamp"));
+	
+	private JavaType entity;
+	private String fingerprint;
+	private MemberDetails memberDetails;
+	private List<MethodMetadata> setterMethods;
+	private Map<String, JavaType> propertyTypes;
+	private Map<String, String> getterNames;
+	private String findAllMethodName;
+	private String findEntriesMethodName;
+	private String countMethodName;
+	
+	public EntityDetails(JavaType entity, String fingerprint, MemberDetails memberDetails, List<MethodMetadata> setterMethods, Map<String, JavaType> propertyTypes, Map<String, String> getterNames, String findAllMethodName, String findEntriesMethodName, String countMethodName) {
+		this.entity = entity;
+		this.fingerprint = fingerprint;
+		this.memberDetails = memberDetails;
+		this.setterMethods = Collections.unmodifiableList(setterMethods);
+		this.propertyTypes = Collections.unmodifiableMap(propertyTypes);
+		this.getterNames = Collections.unmodifiableMap(getterNames);
+		this.findAllMethodName = findAllMethodName;
+		this.findEntriesMethodName = findEntriesMethodName;
+		this.countMethodName = countMethodName;
+	}
+	
+	public JavaType getEntity() {
+		return entity;
+	}
+	
+	/**
+	 * @return fingerprint of the entity's source file and its ITDs at the time of the scan
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+	
+	public MemberDetails getMemberDetails() {
+		return memberDetails;
+	}
+	
+	/**
+	 * @return all setter methods of the entity except setId and setVersion
+	 */
+	public List<MethodMetadata> getSetterMethods() {
+		return setterMethods;
+	}
+	
+	/**
+	 * @return property types by property name in declaration order, except id and version
+	 */
+	public Map<String, JavaType> getPropertyTypes() {
+		return propertyTypes;
+	}
+	
+	/**
+	 * @param String propertyName
+	 * @return name of the accessor of the property, e.g. getName or isActive
+	 */
+	public String getGetterName(String propertyName) {
+		return getterNames.get(propertyName);
+	}
+	
+	/**
+	 * @param String propertyName
+	 * @return true if the property holds a basic value the database can sort, filter and index by
+	 */
+	public boolean isQueryable(String propertyName) {
+		JavaType type = propertyTypes.get(propertyName);
+		if (type == null || type.isArray()) {
+			return false;
+		}
+		return type.isPrimitive() || QUERYABLE_TYPES.contains(type.getFullyQualifiedTypeName());
+	}
+	
+	/**
+	 * @return name of the findAll method, e.g. findAllPeople, or null if there is none
+	 */
+	public String getFindAllMethodName() {
+		return findAllMethodName;
+	}
+	
+	/**
+	 * @return name of the paging finder, e.g. findPersonEntries, or null if there is none
+	 */
+	public String getFindEntriesMethodName() {
+		return findEntriesMethodName;
+	}
+	
+	/**
+	 * @return name of the count method, e.g. countPeople, or null if there is none
+	 */
+	public String getCountMethodName() {
+		return countMethodName;
+	}
+}
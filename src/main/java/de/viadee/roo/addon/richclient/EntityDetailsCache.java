@@ -0,0 +1,22 @@
+package de.viadee.roo.addon.richclient;
+
+import org.springframework.roo.model.JavaType;
+
+/**
+ * Interface of the cache for scanned member details of entities.
+ * 
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+public interface EntityDetailsCache {
+	
+	/**
+	 * Returns the details of the specified entity. The entity is only scanned again if its
+	 * source file or one of its ITDs changed since the last call.
+	 * 
+	 * @param JavaType entity
+	 * @return EntityDetails
+	 */
+	EntityDetails getEntityDetails(JavaType entity);
+
+}
@@ -0,0 +1,214 @@
+package de.viadee.roo.addon.richclient;
+
+import java.beans.Introspector;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.Service;
+import org.springframework.roo.classpath.PhysicalTypeIdentifier;
+import org.springframework.roo.classpath.PhysicalTypeMetadata;
+import org.springframework.roo.classpath.TypeLocationService;
+import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetails;
+import org.springframework.roo.classpath.details.MemberFindingUtils;
+import org.springframework.roo.classpath.details.MethodMetadata;
+import org.springframework.roo.classpath.scanner.MemberDetails;
+import org.springframework.roo.classpath.scanner.MemberDetailsScanner;
+import org.springframework.roo.metadata.MetadataService;
+import org.springframework.roo.model.JavaType;
+import org.springframework.roo.project.Path;
+import org.springframework.roo.support.util.Assert;
+
+/**
+ * Implementation of {@link EntityDetailsCache} interface. Entries are keyed by the entity type
+ * and a fingerprint of the entity's source file and its *_Roo_*.aj ITDs. The fingerprint is only
+ * calculated again when the modification time or size of one of these files changed.
+ * 
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+@Component
+@Service
+public class EntityDetailsCacheImpl implements EntityDetailsCache {
+	
+	@Reference private TypeLocationService typeLocationService;
+	@Reference private MemberDetailsScanner memberDetailsScanner;
+	@Reference private MetadataService metadataService;
+	
+	private Map<JavaType, EntityDetails> cache = new HashMap<JavaType, EntityDetails>();
+	
+	/**
+	 * Modification times and sizes of the files of the cached entities
+	 */
+	private Map<JavaType, String> stamps = new HashMap<JavaType, String>();
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized EntityDetails getEntityDetails(JavaType entity) {
+		List<File> files = getFiles(entity);
+		String stamp = getStamp(files);
+		
+		EntityDetails entityDetails = cache.get(entity);
+		if (entityDetails != null && stamp.equals(stamps.get(entity))) {
+			return entityDetails;
+		}
+		
+		String fingerprint = getFingerprint(files);
+		if (entityDetails == null || !entityDetails.getFingerprint().equals(fingerprint)) {
+			entityDetails = scanEntity(entity, fingerprint);
+			cache.put(entity, entityDetails);
+		}
+		stamps.put(entity, stamp);
+		return entityDetails;
+	}
+	
+	/**
+	 * Scans the member details of an entity and walks its methods once to collect setters,
+	 * property types and finder method names.
+	 * 
+	 * @param JavaType entity
+	 * @param String fingerprint
+	 * @return new EntityDetails
+	 */
+	private EntityDetails scanEntity(JavaType entity, String fingerprint) {
+		MemberDetails memberDetails = getMemberDetails(entity);
+		List<MethodMetadata> methods = MemberFindingUtils.getMethods(memberDetails);
+		
+		// Confirm that memberDetails is not empty
+		Assert.notEmpty(methods, "Unable to obtain the methods of type " + entity.getFullyQualifiedTypeName());
+		
+		List<MethodMetadata> setterMethods = new ArrayList<MethodMetadata>();
+		Map<String, JavaType> propertyTypes = new LinkedHashMap<String, JavaType>();
+		Map<String, String> getterNames = new HashMap<String, String>();
+		String findAllMethodName = null;
+		String findEntriesMethodName = null;
+		String countMethodName = null;
+		
+		for (MethodMetadata methodMetadata : methods) {
+			String name = methodMetadata.getMethodName().getSymbolName();
+			boolean noParameters = methodMetadata.getParameterTypes().isEmpty();
+			
+			if (name.startsWith("set") && (!name.equalsIgnoreCase("setVersion") && !name.equalsIgnoreCase("setId"))) {
+				setterMethods.add(methodMetadata);
+			} else if (name.startsWith("findAll")) {
+				findAllMethodName = name;
+			} else if (name.startsWith("find") && name.endsWith("Entries")) {
+				findEntriesMethodName = name;
+			} else if (name.startsWith("count") && noParameters) {
+				countMethodName = name;
+			} else if (name.startsWith("get") && name.length() > 3 && noParameters && !Modifier.isStatic(methodMetadata.getModifier())) {
+				String propertyName = Introspector.decapitalize(name.substring(3));
+				if (!propertyName.equals("id") && !propertyName.equals("version")) {
+					propertyTypes.put(propertyName, methodMetadata.getReturnType());
+					getterNames.put(propertyName, name);
+				}
+			} else if (name.startsWith("is") && name.length() > 2 && noParameters && !Modifier.isStatic(methodMetadata.getModifier()) && isBoolean(methodMetadata.getReturnType())) {
+				String propertyName = Introspector.decapitalize(name.substring(2));
+				if (!getterNames.containsKey(propertyName)) {
+					propertyTypes.put(propertyName, methodMetadata.getReturnType());
+					getterNames.put(propertyName, name);
+				}
+			}
+		}
+		
+		return new EntityDetails(entity, fingerprint, memberDetails, setterMethods, propertyTypes, getterNames, findAllMethodName, findEntriesMethodName, countMethodName);
+	}
+	
+	private boolean isBoolean(JavaType type) {
+		return type.equals(JavaType.BOOLEAN_PRIMITIVE) || type.equals(JavaType.BOOLEAN_OBJECT);
+	}
+	
+	private MemberDetails getMemberDetails(JavaType javaType) {
+		PhysicalTypeMetadata physicalTypeMetadata = (PhysicalTypeMetadata) metadataService.get(PhysicalTypeIdentifier.createIdentifier(javaType, Path.SRC_MAIN_JAVA));
+		Assert.notNull(physicalTypeMetadata, "Unable to obtain physical type metdata for type " + javaType.getFullyQualifiedTypeName());
+		ClassOrInterfaceTypeDetails classOrInterfaceDetails = (ClassOrInterfaceTypeDetails) physicalTypeMetadata.getMemberHoldingTypeDetails();
+		return memberDetailsScanner.getMemberDetails(EntityDetailsCacheImpl.class.getName(), classOrInterfaceDetails);
+	}
+	
+	/**
+	 * Returns the entity's source file followed by its ITDs in name order.
+	 * 
+	 * @param JavaType entity
+	 * @return List<File>
+	 */
+	private List<File> getFiles(JavaType entity) {
+		File source = new File(typeLocationService.getPhysicalLocationCanonicalPath(entity, Path.SRC_MAIN_JAVA));
+		final String itdPrefix = entity.getSimpleTypeName() + "_Roo_";
+		
+		List<File> files = new ArrayList<File>();
+		files.add(source);
+		File[] itds = source.getParentFile().listFiles(new FilenameFilter() {
+			public boolean accept(File dir, String name) {
+				return name.startsWith(itdPrefix) && name.endsWith(".aj");
+			}
+		});
+		if (itds != null) {
+			Arrays.sort(itds);
+			files.addAll(Arrays.asList(itds));
+		}
+		return files;
+	}
+	
+	/**
+	 * Describes the files by name, modification time and size, which is cheap compared to
+	 * reading them.
+	 * 
+	 * @param List<File> files
+	 * @return String
+	 */
+	private String getStamp(List<File> files) {
+		StringBuilder stamp = new StringBuilder();
+		for (File file : files) {
+			stamp.append(file.getName()).append(':').append(file.lastModified()).append(':').append(file.length()).append(';');
+		}
+		return stamp.toString();
+	}
+	
+	/**
+	 * Calculates a MD5 hash over the contents of the entity's source file and all of its ITDs.
+	 * 
+	 * @param List<File> files
+	 * @return hex encoded fingerprint
+	 */
+	private String getFingerprint(List<File> files) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("MD5");
+			byte[] buffer = new byte[8192];
+			for (File file : files) {
+				digest.update(file.getName().getBytes("UTF-8"));
+				if (!file.exists()) {
+					continue;
+				}
+				InputStream inputStream = new FileInputStream(file);
+				try {
+					int read;
+					while ((read = inputStream.read(buffer)) != -1) {
+						digest.update(buffer, 0, read);
+					}
+				} finally {
+					inputStream.close();
+				}
+			}
+			return String.format("%032x", new BigInteger(1, digest.digest()));
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		} catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package de.viadee.roo.addon.richclient;
+
+/**
+ * Which event and listener types are generated for the CRUD operations of the entities.
+ * 
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+public enum EventMode {
+	
+	/**
+	 * Every entity gets an event and a listener class for each CRUD operation, its controller
+	 * subscribes to each event class
+	 */
+	PER_ENTITY,
+	
+	/**
+	 * All entities share a generic CrudEvent carrying a CrudOperation and a generic CrudListener,
+	 * the events are published on a topic named after the entity which its controller subscribes to
+	 */
+	GENERIC
+}
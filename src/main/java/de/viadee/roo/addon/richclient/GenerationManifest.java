@@ -0,0 +1,279 @@
+package de.viadee.roo.addon.richclient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.springframework.roo.model.JavaPackage;
+import org.springframework.roo.model.JavaType;
+import org.springframework.roo.process.manager.FileManager;
+import org.springframework.roo.process.manager.MutableFile;
+import org.springframework.roo.project.Path;
+import org.springframework.roo.project.ProjectOperations;
+import org.springframework.roo.support.util.StringUtils;
+
+/**
+ * Manifest of the last generation run, persisted in src/main/resources/META-INF/richclient. It
+ * records the fingerprint of every entity the components have been generated for, so that a
+ * following run only regenerates entities whose source or ITDs changed and removes the
+ * components of deleted entities.
+ * 
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+public class GenerationManifest {
+	
+	/**
+	 * Version of the generated code. Has to be increased whenever the generators produce different
+	 * components, which invalidates all manifests written by former versions.
+	 */
+	public static final String GENERATOR_VERSION = "29";
+	
+	private static final String MANIFEST_FILE = "META-INF/richclient/generation.properties";
+	private static final String GENERATOR_VERSION_KEY = "generator.version";
+	private static final String PACKAGE_KEY = "controller.package";
+	private static final String LIVE_MODE_KEY = "live.mode";
+	private static final String WIRING_MODE_KEY = "wiring.mode";
+	private static final String EVENT_MODE_KEY = "event.mode";
+	private static final String WRITE_BEHIND_KEY = "write.behind";
+	
+	private FileManager fileManager;
+	private String manifestPath;
+	private String content;
+	private String generatorVersion;
+	private String packageName;
+	private boolean liveMode = false;
+	private WiringMode wiringMode = WiringMode.XML;
+	private EventMode eventMode = EventMode.PER_ENTITY;
+	private boolean writeBehind = false;
+	private Map<String, String> fingerprints = new TreeMap<String, String>();
+	
+	/**
+	 * Reads the manifest of the current project. A missing manifest is treated as empty.
+	 * 
+	 * @param FileManager fileManager
+	 * @param ProjectOperations projectOperations
+	 */
+	public GenerationManifest(FileManager fileManager, ProjectOperations projectOperations) {
+		this.fileManager = fileManager;
+		this.manifestPath = projectOperations.getPathResolver().getIdentifier(Path.SRC_MAIN_RESOURCES, MANIFEST_FILE);
+		
+		if (!fileManager.exists(manifestPath)) {
+			return;
+		}
+		
+		Properties properties = new Properties();
+		try {
+			InputStream inputStream = fileManager.updateFile(manifestPath).getInputStream();
+			try {
+				properties.load(inputStream);
+			} finally {
+				inputStream.close();
+			}
+		} catch (IOException ex) {
+			throw new IllegalStateException("Could not read the generation manifest " + manifestPath, ex);
+		}
+		
+		for (Object name : properties.keySet()) {
+			String key = (String) name;
+			if (key.equals(GENERATOR_VERSION_KEY)) {
+				generatorVersion = properties.getProperty(key);
+			} else if (key.equals(PACKAGE_KEY)) {
+				packageName = properties.getProperty(key);
+			} else if (key.equals(LIVE_MODE_KEY)) {
+				liveMode = Boolean.valueOf(properties.getProperty(key));
+			} else if (key.equals(WIRING_MODE_KEY)) {
+				wiringMode = WiringMode.valueOf(properties.getProperty(key));
+			} else if (key.equals(EVENT_MODE_KEY)) {
+				eventMode = EventMode.valueOf(properties.getProperty(key));
+			} else if (key.equals(WRITE_BEHIND_KEY)) {
+				writeBehind = Boolean.valueOf(properties.getProperty(key));
+			} else {
+				fingerprints.put(key, properties.getProperty(key));
+			}
+		}
+		content = toContent();
+	}
+	
+	/**
+	 * @return the package of the controllers of the last run, null if there was none
+	 */
+	public JavaPackage getJavaPackage() {
+		return StringUtils.hasText(packageName) ? new JavaPackage(packageName) : null;
+	}
+	
+	/**
+	 * @return true if the manifest has been written by the current generator version
+	 */
+	public boolean isCurrentVersion() {
+		return GENERATOR_VERSION.equals(generatorVersion);
+	}
+	
+	/**
+	 * @return true if components are regenerated as soon as Roo reports a changed entity
+	 */
+	public boolean isLiveMode() {
+		return liveMode;
+	}
+	
+	public void setLiveMode(boolean liveMode) {
+		this.liveMode = liveMode;
+	}
+	
+	/**
+	 * @return how the components of the last run are registered with the Spring Application Context
+	 */
+	public WiringMode getWiringMode() {
+		return wiringMode;
+	}
+	
+	public void setWiringMode(WiringMode wiringMode) {
+		this.wiringMode = wiringMode;
+	}
+	
+	/**
+	 * @return which event and listener types have been generated by the last run
+	 */
+	public EventMode getEventMode() {
+		return eventMode;
+	}
+	
+	public void setEventMode(EventMode eventMode) {
+		this.eventMode = eventMode;
+	}
+	
+	/**
+	 * @return true if the controllers of the last run batch the updates of the entities
+	 */
+	public boolean isWriteBehind() {
+		return writeBehind;
+	}
+	
+	public void setWriteBehind(boolean writeBehind) {
+		this.writeBehind = writeBehind;
+	}
+	
+	/**
+	 * Checks whether the components of an entity have been generated from the same input by the
+	 * same generator version into the same package and whether their files still exist.
+	 * 
+	 * @param JavaType entity
+	 * @param String fingerprint
+	 * @param JavaPackage javaPackage
+	 * @param Collection<String> files the canonical paths of the generated component files
+	 * @return true if the components of the entity are up to date
+	 */
+	public boolean isUpToDate(JavaType entity, String fingerprint, JavaPackage javaPackage, Collection<String> files) {
+		if (!isCurrentVersion() 
+				|| !javaPackage.getFullyQualifiedPackageName().equals(packageName) 
+				|| !fingerprint.equals(fingerprints.get(entity.getFullyQualifiedTypeName()))) {
+			return false;
+		}
+		for (String file : files) {
+			if (!fileManager.exists(file)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @param JavaType entity
+	 * @return the fingerprint the components of the entity have been generated from, null if the
+	 * entity is not recorded
+	 */
+	public String getFingerprint(JavaType entity) {
+		return fingerprints.get(entity.getFullyQualifiedTypeName());
+	}
+	
+	/**
+	 * @return all entities recorded in the manifest
+	 */
+	public Set<JavaType> getEntities() {
+		Set<JavaType> entities = new TreeSet<JavaType>();
+		for (String typeName : fingerprints.keySet()) {
+			entities.add(new JavaType(typeName));
+		}
+		return entities;
+	}
+	
+	/**
+	 * Records the fingerprint an entity has been generated from.
+	 * 
+	 * @param JavaType entity
+	 * @param String fingerprint
+	 */
+	public void update(JavaType entity, String fingerprint) {
+		fingerprints.put(entity.getFullyQualifiedTypeName(), fingerprint);
+	}
+	
+	/**
+	 * Removes a deleted entity from the manifest.
+	 * 
+	 * @param JavaType entity
+	 */
+	public void remove(JavaType entity) {
+		fingerprints.remove(entity.getFullyQualifiedTypeName());
+	}
+	
+	/**
+	 * Records that all entities have been generated into the specified package by the current
+	 * generator version.
+	 * 
+	 * @param JavaPackage javaPackage
+	 */
+	public void setGenerated(JavaPackage javaPackage) {
+		this.packageName = javaPackage.getFullyQualifiedPackageName();
+		this.generatorVersion = GENERATOR_VERSION;
+	}
+	
+	/**
+	 * Writes the manifest if its content changed.
+	 */
+	public void save() {
+		String newContent = toContent();
+		if (newContent.equals(content)) {
+			return;
+		}
+		
+		MutableFile mutableFile = fileManager.exists(manifestPath) ? fileManager.updateFile(manifestPath) : fileManager.createFile(manifestPath);
+		try {
+			OutputStream outputStream = mutableFile.getOutputStream();
+			try {
+				outputStream.write(newContent.getBytes("ISO-8859-1"));
+			} finally {
+				outputStream.close();
+			}
+		} catch (IOException ex) {
+			throw new IllegalStateException("Could not write the generation manifest " + manifestPath, ex);
+		}
+		content = newContent;
+	}
+	
+	/**
+	 * Renders the manifest in properties format with sorted keys, so that unchanged manifests
+	 * produce identical files.
+	 * 
+	 * @return String
+	 */
+	private String toContent() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("# Generated by the Roo richclient add-on, do not edit\n");
+		builder.append(GENERATOR_VERSION_KEY).append('=').append(generatorVersion).append('\n');
+		builder.append(PACKAGE_KEY).append('=').append(packageName == null ? "" : packageName).append('\n');
+		builder.append(LIVE_MODE_KEY).append('=').append(liveMode).append('\n');
+		builder.append(WIRING_MODE_KEY).append('=').append(wiringMode).append('\n');
+		builder.append(EVENT_MODE_KEY).append('=').append(eventMode).append('\n');
+		builder.append(WRITE_BEHIND_KEY).append('=').append(writeBehind).append('\n');
+		for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+			builder.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+		}
+		return builder.toString();
+	}
+}
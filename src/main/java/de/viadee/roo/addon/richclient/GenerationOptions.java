@@ -0,0 +1,71 @@
+package de.viadee.roo.addon.richclient;
+
+/**
+ * Options of a generation run triggered via the Roo shell.
+ * 
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+public class GenerationOptions {
+	
+	private boolean parallel = false;
+	private boolean force = false;
+	private WiringMode wiring;
+	private EventMode events;
+	private Boolean writeBehind;
+	
+	/**
+	 * @return true if the components of all entities are built concurrently before they are written
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+	
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+	
+	/**
+	 * @return true if the components of all entities are regenerated, even if their sources did not change
+	 */
+	public boolean isForce() {
+		return force;
+	}
+	
+	public void setForce(boolean force) {
+		this.force = force;
+	}
+	
+	/**
+	 * @return how the components are registered with the Spring Application Context, null to keep the mode of the last run
+	 */
+	public WiringMode getWiring() {
+		return wiring;
+	}
+	
+	public void setWiring(WiringMode wiring) {
+		this.wiring = wiring;
+	}
+	
+	/**
+	 * @return which event and listener types are generated, null to keep the mode of the last run
+	 */
+	public EventMode getEvents() {
+		return events;
+	}
+	
+	public void setEvents(EventMode events) {
+		this.events = events;
+	}
+	
+	/**
+	 * @return true if the controllers batch updates, null to keep the mode of the last run
+	 */
+	public Boolean getWriteBehind() {
+		return writeBehind;
+	}
+	
+	public void setWriteBehind(Boolean writeBehind) {
+		this.writeBehind = writeBehind;
+	}
+}
@@ -0,0 +1,63 @@
+package de.viadee.roo.addon.richclient;
+
+import org.springframework.roo.model.JavaType;
+
+/**
+ * Interface of the profiler that collects timings and counters of generation runs. All methods
+ * may be called concurrently. Calls outside of a run are ignored.
+ * 
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+public interface GenerationProfiler {
+	
+	/**
+	 * Starts a new run unless a run is already in progress.
+	 * 
+	 * @param String command the shell command that triggered the run
+	 * @return true if the caller started the run and has to finish it
+	 */
+	boolean startRun(String command);
+	
+	/**
+	 * Finishes the current run, which becomes the last run.
+	 */
+	void finishRun();
+	
+	/**
+	 * Adds the time elapsed since startNanos to a phase. Phases recorded by the same thread
+	 * within this interval are treated as nested phases.
+	 * 
+	 * @param String phase
+	 * @param long startNanos a value of System.nanoTime()
+	 */
+	void recordPhase(String phase, long startNanos);
+	
+	/**
+	 * Adds the time elapsed since startNanos to an entity.
+	 * 
+	 * @param JavaType entity
+	 * @param long startNanos a value of System.nanoTime()
+	 */
+	void recordEntity(JavaType entity, long startNanos);
+	
+	/**
+	 * Counts written class files.
+	 * 
+	 * @param int files
+	 */
+	void recordFilesWritten(int files);
+	
+	/**
+	 * Counts bytes of rewritten XML files.
+	 * 
+	 * @param long bytes
+	 */
+	void recordXmlBytesWritten(long bytes);
+	
+	/**
+	 * @return the statistics of the last finished run, null if there is none
+	 */
+	GenerationStatistics getLastRun();
+
+}
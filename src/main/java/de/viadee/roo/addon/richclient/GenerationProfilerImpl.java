@@ -0,0 +1,85 @@
+package de.viadee.roo.addon.richclient;
+
+import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Service;
+import org.springframework.roo.model.JavaType;
+
+/**
+ * Implementation of {@link GenerationProfiler} interface.
+ * 
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+@Component
+@Service
+public class GenerationProfilerImpl implements GenerationProfiler {
+	
+	private GenerationStatistics currentRun;
+	private GenerationStatistics lastRun;
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized boolean startRun(String command) {
+		if (currentRun != null) {
+			return false;
+		}
+		currentRun = new GenerationStatistics(command);
+		return true;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized void finishRun() {
+		if (currentRun == null) {
+			return;
+		}
+		currentRun.finish();
+		lastRun = currentRun;
+		currentRun = null;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized void recordPhase(String phase, long startNanos) {
+		if (currentRun != null) {
+			currentRun.addPhase(phase, startNanos, System.nanoTime());
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized void recordEntity(JavaType entity, long startNanos) {
+		if (currentRun != null) {
+			currentRun.addEntity(entity.getFullyQualifiedTypeName(), System.nanoTime() - startNanos);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized void recordFilesWritten(int files) {
+		if (currentRun != null) {
+			currentRun.addFilesWritten(files);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized void recordXmlBytesWritten(long bytes) {
+		if (currentRun != null) {
+			currentRun.addXmlBytesWritten(bytes);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized GenerationStatistics getLastRun() {
+		return lastRun;
+	}
+}
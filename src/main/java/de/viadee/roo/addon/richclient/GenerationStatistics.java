@@ -0,0 +1,195 @@
+package de.viadee.roo.addon.richclient;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Timings and counters of a single generation run. Phase and entity timings are accumulated
+ * in nanoseconds, so a phase that runs once per entity reports its total time. The total time
+ * of a phase includes its nested phases, the self time excludes them. Phases recorded by other
+ * threads than the one that started the run are summed over all threads and reported as CPU
+ * time, they may exceed the elapsed time of the run.
+ * 
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+public class GenerationStatistics {
+	
+	private String command;
+	private Date started = new Date();
+	private long startNanos = System.nanoTime();
+	private long totalNanos;
+	private Thread runThread = Thread.currentThread();
+	private Map<String, Long> phaseNanos = new LinkedHashMap<String, Long>();
+	private Map<String, Long> phaseSelfNanos = new LinkedHashMap<String, Long>();
+	private Map<String, Integer> phaseCounts = new LinkedHashMap<String, Integer>();
+	private Set<String> parallelPhases = new HashSet<String>();
+	private Map<Thread, LinkedList<long[]>> completedPhases = new HashMap<Thread, LinkedList<long[]>>();
+	private Map<String, Long> entityNanos = new LinkedHashMap<String, Long>();
+	private int filesWritten;
+	private long xmlBytesWritten;
+	
+	public GenerationStatistics(String command) {
+		this.command = command;
+	}
+	
+	public String getCommand() {
+		return command;
+	}
+	
+	public Date getStarted() {
+		return started;
+	}
+	
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+	
+	public Map<String, Long> getPhaseNanos() {
+		return phaseNanos;
+	}
+	
+	public Map<String, Long> getPhaseSelfNanos() {
+		return phaseSelfNanos;
+	}
+	
+	public Map<String, Integer> getPhaseCounts() {
+		return phaseCounts;
+	}
+	
+	/**
+	 * @param String phase
+	 * @return true if the phase has been recorded by parallel threads and reports CPU time
+	 */
+	public boolean isParallelPhase(String phase) {
+		return parallelPhases.contains(phase);
+	}
+	
+	public Map<String, Long> getEntityNanos() {
+		return entityNanos;
+	}
+	
+	public int getFilesWritten() {
+		return filesWritten;
+	}
+	
+	public long getXmlBytesWritten() {
+		return xmlBytesWritten;
+	}
+	
+	void addPhase(String phase, long startNanos, long endNanos) {
+		Thread thread = Thread.currentThread();
+		LinkedList<long[]> completed = completedPhases.get(thread);
+		if (completed == null) {
+			completed = new LinkedList<long[]>();
+			completedPhases.put(thread, completed);
+		}
+		
+		// Phases of this thread that started within this phase are nested in it
+		long nestedNanos = 0;
+		while (!completed.isEmpty() && completed.getLast()[0] >= startNanos) {
+			long[] nested = completed.removeLast();
+			nestedNanos += nested[1] - nested[0];
+		}
+		completed.add(new long[] {startNanos, endNanos});
+		
+		long nanos = endNanos - startNanos;
+		Long total = phaseNanos.get(phase);
+		Long self = phaseSelfNanos.get(phase);
+		Integer count = phaseCounts.get(phase);
+		phaseNanos.put(phase, total == null ? nanos : total + nanos);
+		phaseSelfNanos.put(phase, self == null ? nanos - nestedNanos : self + nanos - nestedNanos);
+		phaseCounts.put(phase, count == null ? 1 : count + 1);
+		if (thread != runThread) {
+			parallelPhases.add(phase);
+		}
+	}
+	
+	void addEntity(String entity, long nanos) {
+		Long total = entityNanos.get(entity);
+		entityNanos.put(entity, total == null ? nanos : total + nanos);
+	}
+	
+	void addFilesWritten(int files) {
+		filesWritten += files;
+	}
+	
+	void addXmlBytesWritten(long bytes) {
+		xmlBytesWritten += bytes;
+	}
+	
+	void finish() {
+		totalNanos = System.nanoTime() - startNanos;
+		completedPhases.clear();
+	}
+	
+	/**
+	 * @return a human readable breakdown of the run
+	 */
+	public String toText() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("Command:             ").append(command).append('\n');
+		builder.append("Started:             ").append(started).append('\n');
+		builder.append("Total:               ").append(toMillis(totalNanos)).append(" ms\n");
+		builder.append("Files written:       ").append(filesWritten).append('\n');
+		builder.append("XML bytes rewritten: ").append(xmlBytesWritten).append('\n');
+		builder.append("Phases (total / self):\n");
+		for (Map.Entry<String, Long> entry : phaseNanos.entrySet()) {
+			String phase = entry.getKey();
+			builder.append("  ").append(phase).append(": ").append(toMillis(entry.getValue())).append(" ms / ").append(toMillis(phaseSelfNanos.get(phase))).append(" ms (").append(phaseCounts.get(phase)).append("x");
+			if (isParallelPhase(phase)) {
+				builder.append(", CPU time of parallel threads");
+			}
+			builder.append(")\n");
+		}
+		builder.append("Entities:\n");
+		for (Map.Entry<String, Long> entry : entityNanos.entrySet()) {
+			builder.append("  ").append(entry.getKey()).append(": ").append(toMillis(entry.getValue())).append(" ms\n");
+		}
+		return builder.toString();
+	}
+	
+	/**
+	 * @return the breakdown of the run as JSON document
+	 */
+	public String toJson() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("{\n");
+		builder.append("  \"command\": ").append(quote(command)).append(",\n");
+		builder.append("  \"started\": ").append(started.getTime()).append(",\n");
+		builder.append("  \"totalMillis\": ").append(toMillis(totalNanos)).append(",\n");
+		builder.append("  \"filesWritten\": ").append(filesWritten).append(",\n");
+		builder.append("  \"xmlBytesWritten\": ").append(xmlBytesWritten).append(",\n");
+		builder.append("  \"phases\": [");
+		String separator = "\n";
+		for (Map.Entry<String, Long> entry : phaseNanos.entrySet()) {
+			String phase = entry.getKey();
+			builder.append(separator).append("    {\"name\": ").append(quote(phase)).append(", \"millis\": ").append(toMillis(entry.getValue())).append(", \"selfMillis\": ").append(toMillis(phaseSelfNanos.get(phase))).append(", \"count\": ").append(phaseCounts.get(phase)).append(", \"cpuTime\": ").append(isParallelPhase(phase)).append("}");
+			separator = ",\n";
+		}
+		builder.append("\n  ],\n");
+		builder.append("  \"entities\": [");
+		separator = "\n";
+		for (Map.Entry<String, Long> entry : entityNanos.entrySet()) {
+			builder.append(separator).append("    {\"name\": ").append(quote(entry.getKey())).append(", \"millis\": ").append(toMillis(entry.getValue())).append("}");
+			separator = ",\n";
+		}
+		builder.append("\n  ]\n");
+		builder.append("}\n");
+		return builder.toString();
+	}
+	
+	private String toMillis(long nanos) {
+		return String.format(Locale.ENGLISH, "%.3f", nanos / 1000000d);
+	}
+	
+	private String quote(String value) {
+		return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+}
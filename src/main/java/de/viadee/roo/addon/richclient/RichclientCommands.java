@@ -1,5 +1,7 @@
 package de.viadee.roo.addon.richclient;
 
+import java.io.File;
+
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.Service;
@@ -30,10 +32,26 @@ public class RichclientCommands implements CommandMarker { // All command types
 	 * whole domain model.
 	 * 
 	 * @param JavaPackage javaPackage
+	 * @param boolean parallel
+	 * @param boolean force
+	 * @param WiringMode wiring
+	 * @param EventMode events
+	 * @param Boolean writeBehind
 	 */
 	@CliCommand(value = "richclient controller all", help = "Creates controllers for all entities")
-	public void controllerAll(@CliOption(key = "package", mandatory = true) JavaPackage javaPackage) {
-		operations.generateComponentsForAllEntities(javaPackage);
+	public void controllerAll(@CliOption(key = "package", mandatory = true) JavaPackage javaPackage, 
+			@CliOption(key = "parallel", mandatory = false, specifiedDefaultValue = "true", unspecifiedDefaultValue = "false", help = "Builds the components of all entities concurrently") boolean parallel, 
+			@CliOption(key = "force", mandatory = false, specifiedDefaultValue = "true", unspecifiedDefaultValue = "false", help = "Regenerates the components of unchanged entities as well") boolean force, 
+			@CliOption(key = "wiring", mandatory = false, help = "Registers the components as XML beans or by component-scan, keeps the mode of the last run if omitted") WiringMode wiring, 
+			@CliOption(key = "events", mandatory = false, help = "Generates CRUD events per entity or one generic CrudEvent, keeps the mode of the last run if omitted") EventMode events, 
+			@CliOption(key = "writeBehind", mandatory = false, specifiedDefaultValue = "true", help = "Batches the updates of the controllers in one transaction per short time window, keeps the mode of the last run if omitted") Boolean writeBehind) {
+		GenerationOptions options = new GenerationOptions();
+		options.setParallel(parallel);
+		options.setForce(force);
+		options.setWiring(wiring);
+		options.setEvents(events);
+		options.setWriteBehind(writeBehind);
+		operations.generateComponentsForAllEntities(javaPackage, options);
 	}
 	
 	/**
@@ -48,6 +66,39 @@ public class RichclientCommands implements CommandMarker { // All command types
 		operations.generateComponentsForSingleEntity(javaPackage, entity);
 	}
 	
+	/**
+	 * Enables or disables the regeneration of an entity's components as soon as the entity changes.
+	 * 
+	 * @param boolean enable
+	 */
+	@CliCommand(value = "richclient live", help = "Regenerates the components of an entity whenever it changes")
+	public void live(@CliOption(key = "enable", mandatory = false, specifiedDefaultValue = "true", unspecifiedDefaultValue = "true", help = "Enables or disables the live mode") boolean enable) {
+		operations.setLiveMode(enable);
+	}
+	
+	/**
+	 * Prints timings and counters of the last generation run.
+	 * 
+	 * @param File json
+	 * @return the breakdown of the last run
+	 */
+	@CliCommand(value = "richclient stats", help = "Shows timings and counters of the last generation run")
+	public String stats(@CliOption(key = "json", mandatory = false, help = "Writes the statistics as JSON to the specified file") File json) {
+		return operations.getStatistics(json);
+	}
+	
+	/**
+	 * Adds index hints of the persistence provider to the fields shown in the tables, so that the
+	 * tables can be sorted and filtered by the database.
+	 * 
+	 * @param JavaType entity
+	 * @return the number of fields that got an index
+	 */
+	@CliCommand(value = "richclient index", help = "Adds index hints for the columns shown in the tables")
+	public String index(@CliOption(key = "entity", mandatory = false, help = "Only indexes the columns of the specified entity") JavaType entity) {
+		return operations.addIndexes(entity);
+	}
+	
 	/**
 	 * This method registers a command with the Roo shell. It has no command attribute.
 	 */
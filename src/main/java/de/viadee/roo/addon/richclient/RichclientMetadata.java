@@ -0,0 +1,71 @@
+package de.viadee.roo.addon.richclient;
+
+import org.springframework.roo.classpath.PhysicalTypeIdentifierNamingUtils;
+import org.springframework.roo.metadata.AbstractMetadataItem;
+import org.springframework.roo.metadata.MetadataIdentificationUtils;
+import org.springframework.roo.model.JavaType;
+import org.springframework.roo.project.Path;
+import org.springframework.roo.support.style.ToStringCreator;
+import org.springframework.roo.support.util.Assert;
+
+/**
+ * Metadata of the components generated for a single entity in live mode. An item exists for
+ * every entity whose components are up to date and records the fingerprint they have been
+ * generated from.
+ * 
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+public class RichclientMetadata extends AbstractMetadataItem {
+	
+	private static final String PROVIDES_TYPE_STRING = RichclientMetadata.class.getName();
+	private static final String PROVIDES_TYPE = MetadataIdentificationUtils.create(PROVIDES_TYPE_STRING);
+	
+	private JavaType entity;
+	private String fingerprint;
+	
+	public RichclientMetadata(String identifier, JavaType entity, String fingerprint) {
+		super(identifier);
+		Assert.isTrue(isValid(identifier), "Metadata identification string '" + identifier + "' does not appear to be a valid");
+		Assert.notNull(entity, "Entity required");
+		Assert.hasText(fingerprint, "Fingerprint required");
+		this.entity = entity;
+		this.fingerprint = fingerprint;
+	}
+	
+	public JavaType getEntity() {
+		return entity;
+	}
+	
+	public String getFingerprint() {
+		return fingerprint;
+	}
+	
+	public static final String getMetadataIdentiferType() {
+		return PROVIDES_TYPE;
+	}
+	
+	public static final String createIdentifier(JavaType javaType, Path path) {
+		return PhysicalTypeIdentifierNamingUtils.createIdentifier(PROVIDES_TYPE_STRING, javaType, path);
+	}
+	
+	public static final JavaType getJavaType(String metadataIdentificationString) {
+		return PhysicalTypeIdentifierNamingUtils.getJavaType(PROVIDES_TYPE_STRING, metadataIdentificationString);
+	}
+	
+	public static final Path getPath(String metadataIdentificationString) {
+		return PhysicalTypeIdentifierNamingUtils.getPath(PROVIDES_TYPE_STRING, metadataIdentificationString);
+	}
+	
+	public static boolean isValid(String metadataIdentificationString) {
+		return PhysicalTypeIdentifierNamingUtils.isValid(PROVIDES_TYPE_STRING, metadataIdentificationString);
+	}
+	
+	public String toString() {
+		ToStringCreator tsc = new ToStringCreator(this);
+		tsc.append("identifier", getId());
+		tsc.append("entity", entity);
+		tsc.append("fingerprint", fingerprint);
+		return tsc.toString();
+	}
+}
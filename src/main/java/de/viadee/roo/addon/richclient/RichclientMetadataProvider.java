@@ -0,0 +1,127 @@
+package de.viadee.roo.addon.richclient;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.Service;
+import org.osgi.service.component.ComponentContext;
+import org.springframework.roo.classpath.PhysicalTypeIdentifier;
+import org.springframework.roo.classpath.PhysicalTypeIdentifierNamingUtils;
+import org.springframework.roo.metadata.MetadataDependencyRegistry;
+import org.springframework.roo.metadata.MetadataIdentificationUtils;
+import org.springframework.roo.metadata.MetadataItem;
+import org.springframework.roo.metadata.MetadataNotificationListener;
+import org.springframework.roo.metadata.MetadataProvider;
+import org.springframework.roo.metadata.MetadataService;
+import org.springframework.roo.model.JavaType;
+import org.springframework.roo.process.manager.CommandCallback;
+import org.springframework.roo.process.manager.ProcessManager;
+import org.springframework.roo.process.manager.event.ProcessManagerStatus;
+import org.springframework.roo.process.manager.event.ProcessManagerStatusListener;
+import org.springframework.roo.project.Path;
+
+/**
+ * Provides {@link RichclientMetadata} for the live mode. The provider depends on the entity ITDs
+ * Roo maintains for @RooEntity types and on the physical types of the project. Changed entities
+ * are only queued while Roo resolves its metadata, their components are regenerated once the
+ * process manager is available again. Resolving the metadata itself never writes any files.
+ * 
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+@Component(immediate = true)
+@Service
+public class RichclientMetadataProvider implements MetadataProvider, MetadataNotificationListener, ProcessManagerStatusListener {
+	
+	private static final String ENTITY_METADATA_TYPE = MetadataIdentificationUtils.create("org.springframework.roo.addon.entity.EntityMetadata");
+	
+	@Reference private MetadataService metadataService;
+	@Reference private MetadataDependencyRegistry metadataDependencyRegistry;
+	@Reference private ProcessManager processManager;
+	@Reference private RichclientOperations richclientOperations;
+	
+	/**
+	 * Entities notified since the process manager has been available the last time
+	 */
+	private Set<JavaType> pendingEntities = new LinkedHashSet<JavaType>();
+	
+	protected void activate(ComponentContext context) {
+		metadataDependencyRegistry.registerDependency(PhysicalTypeIdentifier.getMetadataIdentiferType(), getProvidesType());
+		metadataDependencyRegistry.registerDependency(ENTITY_METADATA_TYPE, getProvidesType());
+		processManager.addProcessManagerStatusListener(this);
+	}
+	
+	protected void deactivate(ComponentContext context) {
+		processManager.removeProcessManagerStatusListener(this);
+		metadataDependencyRegistry.deregisterDependency(PhysicalTypeIdentifier.getMetadataIdentiferType(), getProvidesType());
+		metadataDependencyRegistry.deregisterDependency(ENTITY_METADATA_TYPE, getProvidesType());
+	}
+	
+	/**
+	 * Returns the fingerprint the components of the entity have been generated from.
+	 */
+	public MetadataItem get(String metadataIdentificationString) {
+		JavaType entity = RichclientMetadata.getJavaType(metadataIdentificationString);
+		
+		String fingerprint = richclientOperations.getGeneratedFingerprint(entity);
+		if (fingerprint == null) {
+			// The type is no entity or no components have been generated so far
+			return null;
+		}
+		return new RichclientMetadata(metadataIdentificationString, entity, fingerprint);
+	}
+	
+	public String getProvidesType() {
+		return RichclientMetadata.getMetadataIdentiferType();
+	}
+	
+	/**
+	 * Queues the entity of an entity ITD notification. Physical types are only followed for
+	 * entities with generated components, so that the components of deleted entities are removed.
+	 */
+	public void notify(String upstreamDependency, String downstreamDependency) {
+		if (!richclientOperations.isLiveMode() || MetadataIdentificationUtils.isIdentifyingClass(upstreamDependency)) {
+			return;
+		}
+		
+		String upstreamType = MetadataIdentificationUtils.getMetadataClass(upstreamDependency);
+		JavaType javaType = PhysicalTypeIdentifierNamingUtils.getJavaType(upstreamType, upstreamDependency);
+		if (!ENTITY_METADATA_TYPE.equals(MetadataIdentificationUtils.create(upstreamType)) && richclientOperations.getGeneratedFingerprint(javaType) == null) {
+			return;
+		}
+		synchronized (pendingEntities) {
+			pendingEntities.add(javaType);
+		}
+	}
+	
+	/**
+	 * Regenerates the components of the queued entities as soon as the process manager finished
+	 * the command or file system poll that changed them.
+	 */
+	public void onProcessManagerStatusChange(ProcessManagerStatus oldStatus, ProcessManagerStatus newStatus) {
+		if (newStatus != ProcessManagerStatus.AVAILABLE) {
+			return;
+		}
+		
+		final Set<JavaType> entities;
+		synchronized (pendingEntities) {
+			if (pendingEntities.isEmpty()) {
+				return;
+			}
+			entities = new LinkedHashSet<JavaType>(pendingEntities);
+			pendingEntities.clear();
+		}
+		
+		processManager.execute(new CommandCallback<Object>() {
+			public Object callback() {
+				for (JavaType entity : entities) {
+					richclientOperations.updateComponentsForEntity(entity);
+					metadataService.evict(RichclientMetadata.createIdentifier(entity, Path.SRC_MAIN_JAVA));
+				}
+				return null;
+			}
+		});
+	}
+}
@@ -1,5 +1,7 @@
 package de.viadee.roo.addon.richclient;
 
+import java.io.File;
+
 import org.springframework.roo.model.JavaPackage;
 import org.springframework.roo.model.JavaType;
 
@@ -32,6 +34,56 @@ public interface RichclientOperations {
 	 * Triggers the creation of a main class and of all swing components.
 	 * 
 	 * @param JavaPackage javaPackage
+	 * @param GenerationOptions options
+	 */
+	void generateComponentsForAllEntities(JavaPackage javaPackage, GenerationOptions options);
+	
+	/**
+	 * Regenerates the components of a single entity if its sources changed since the last run,
+	 * or removes them if the entity has been deleted. Used by the live mode.
+	 * 
+	 * @param JavaType entity
+	 * @return the fingerprint the components are generated from, null if there are none
+	 */
+	String updateComponentsForEntity(JavaType entity);
+	
+	/**
+	 * Returns the fingerprint the components of an entity have been generated from, without
+	 * scanning the entity or writing any files.
+	 * 
+	 * @param JavaType entity
+	 * @return the recorded fingerprint, null if no components have been generated for the entity
+	 */
+	String getGeneratedFingerprint(JavaType entity);
+	
+	/**
+	 * Enables or disables the live mode. In live mode the components of an entity are 
+	 * regenerated as soon as Roo reports a change of the entity.
+	 * 
+	 * @param boolean liveMode
+	 */
+	void setLiveMode(boolean liveMode);
+	
+	/**
+	 * @return true if the live mode is enabled for the current project
+	 */
+	boolean isLiveMode();
+	
+	/**
+	 * Returns the timings and counters of the last generation run and optionally writes them 
+	 * to a JSON file.
+	 * 
+	 * @param File jsonFile the file to write, may be null
+	 * @return a human readable breakdown of the last run
+	 */
+	String getStatistics(File jsonFile);
+	
+	/**
+	 * Adds the index annotation of the configured persistence provider to the fields of the 
+	 * entities the tables can be sorted and filtered by.
+	 * 
+	 * @param JavaType entity the entity to index, null for all entities
+	 * @return a summary of the added indexes
 	 */
-	void generateComponentsForAllEntities(JavaPackage javaPackage);
+	String addIndexes(JavaType entity);
 }
\ No newline at end of file
@@ -1,10 +1,23 @@
 package de.viadee.roo.addon.richclient;
 
 import java.beans.Introspector;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Reference;
@@ -17,20 +30,23 @@ import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetails;
 import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetailsBuilder;
 import org.springframework.roo.classpath.details.ConstructorMetadata;
 import org.springframework.roo.classpath.details.ConstructorMetadataBuilder;
+import org.springframework.roo.classpath.details.DeclaredFieldAnnotationDetails;
 import org.springframework.roo.classpath.details.FieldMetadata;
 import org.springframework.roo.classpath.details.FieldMetadataBuilder;
 import org.springframework.roo.classpath.details.ImportMetadata;
 import org.springframework.roo.classpath.details.ImportMetadataBuilder;
-import org.springframework.roo.classpath.details.MemberFindingUtils;
 import org.springframework.roo.classpath.details.MethodMetadata;
+import org.springframework.roo.classpath.details.MemberFindingUtils;
 import org.springframework.roo.classpath.details.MethodMetadataBuilder;
+import org.springframework.roo.classpath.details.MutableClassOrInterfaceTypeDetails;
 import org.springframework.roo.classpath.details.annotations.AnnotatedJavaType;
 import org.springframework.roo.classpath.details.annotations.AnnotationAttributeValue;
+import org.springframework.roo.classpath.details.annotations.AnnotationMetadata;
 import org.springframework.roo.classpath.details.annotations.AnnotationMetadataBuilder;
+import org.springframework.roo.classpath.details.annotations.BooleanAttributeValue;
 import org.springframework.roo.classpath.details.annotations.ClassAttributeValue;
+import org.springframework.roo.classpath.details.annotations.StringAttributeValue;
 import org.springframework.roo.classpath.itd.InvocableMemberBodyBuilder;
-import org.springframework.roo.classpath.scanner.MemberDetails;
-import org.springframework.roo.classpath.scanner.MemberDetailsScanner;
 import org.springframework.roo.model.DataType;
 import org.springframework.roo.model.JavaPackage;
 import org.springframework.roo.model.JavaSymbolName;
@@ -39,12 +55,10 @@ import org.springframework.roo.process.manager.FileManager;
 import org.springframework.roo.process.manager.MutableFile;
 import org.springframework.roo.project.Dependency;
 import org.springframework.roo.project.Path;
-import org.springframework.roo.project.PathResolver;
 import org.springframework.roo.project.ProjectOperations;
 import org.springframework.roo.support.util.Assert;
 import org.springframework.roo.support.util.StringUtils;
 import org.springframework.roo.support.util.XmlUtils;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 /**
@@ -83,9 +97,19 @@ public class RichclientOperationsImpl implements RichclientOperations {
 	@Reference private SwingOperations swingOperations;
 	
 	/**
-	 * Get a reference to the MemberDetailsScanner from the underlying OSGi container
+	 * Get a reference to the shared RooEntityIndex from the underlying OSGi container
+	 */
+	@Reference private RooEntityIndex rooEntityIndex;
+	
+	/**
+	 * Get a reference to the shared EntityDetailsCache from the underlying OSGi container
+	 */
+	@Reference private EntityDetailsCache entityDetailsCache;
+	
+	/**
+	 * Get a reference to the shared GenerationProfiler from the underlying OSGi container
 	 */
-	@Reference private MemberDetailsScanner memberDetailsScanner;
+	@Reference private GenerationProfiler profiler;
 
 	/**
 	 * Get a reference to the FileManager from the underlying OSGi container. Make sure you
@@ -103,6 +127,27 @@ public class RichclientOperationsImpl implements RichclientOperations {
 	@Reference private ProjectOperations projectOperations;
 	
 	private JavaSymbolName changeSupportFieldName = new JavaSymbolName("changeSupport");
+	private JavaSymbolName updateDepthFieldName = new JavaSymbolName("updateDepth");
+	private JavaSymbolName updateChangedFieldName = new JavaSymbolName("updateChanged");
+	private JavaType valueModelType = new JavaType("com.jgoodies.binding.value.ValueModel");
+	
+	/**
+	 * applicationContext.xml session of the running command. All bean registrations of a command
+	 * are collected here and written with a single file update.
+	 */
+	private ApplicationContextSession contextSession;
+	
+	/**
+	 * Top level package and metadata identifiers of a parallel build, resolved on the calling
+	 * thread before the tasks are submitted. Null while the components are built sequentially.
+	 */
+	private volatile ResolvedLocations resolvedLocations;
+	
+	/**
+	 * Generation manifest of the current project, read on first access. All commands and the live
+	 * mode share this instance, so that no run overwrites the records of another.
+	 */
+	private GenerationManifest manifest;
 	
 	/**
 	 * {@inheritDoc}
@@ -119,21 +164,97 @@ public class RichclientOperationsImpl implements RichclientOperations {
 	/**
 	 * {@inheritDoc}
 	 */
-	public void generateComponentsForAllEntities(JavaPackage javaPackage){
-		Set<ClassOrInterfaceTypeDetails> cids = typeLocationService.findClassesOrInterfaceDetailsWithAnnotation(new JavaType("org.springframework.roo.addon.entity.RooEntity"));
-		for (ClassOrInterfaceTypeDetails cid : cids) {
-			if (Modifier.isAbstract(cid.getModifier())) {
-				continue;
+	public void generateComponentsForAllEntities(JavaPackage javaPackage, GenerationOptions options){
+		boolean profilerOwner = profiler.startRun("richclient controller all");
+		try {
+			generateComponentsForEntities(javaPackage, options);
+		} finally {
+			if (profilerOwner) {
+				profiler.finishRun();
 			}
+		}
+	}
+	
+	/**
+	 * Generates the components of all new and changed entities and removes the components of
+	 * deleted entities.
+	 * 
+	 * @param JavaPackage javaPackage
+	 * @param GenerationOptions options
+	 */
+	private void generateComponentsForEntities(JavaPackage javaPackage, GenerationOptions options){
+		GenerationManifest manifest = getManifest();
+		WiringMode wiring = options.getWiring() == null ? manifest.getWiringMode() : options.getWiring();
+		EventMode events = options.getEvents() == null ? manifest.getEventMode() : options.getEvents();
+		boolean writeBehind = options.getWriteBehind() == null ? manifest.isWriteBehind() : options.getWriteBehind();
+		boolean rewire = wiring != manifest.getWiringMode() || events != manifest.getEventMode() || writeBehind != manifest.isWriteBehind();
+		
+		long start = System.nanoTime();
+		Set<ClassOrInterfaceTypeDetails> cids = rooEntityIndex.getEntities();
+		profiler.recordPhase("entity scan", start);
+		
+		// Scan the entities up front, the builders only read the scanned details. Entities
+		// that did not change since the last run are skipped unless regeneration is forced or
+		// the wiring, event or write-behind mode changed.
+		Map<JavaType, EntityDetails> entities = new LinkedHashMap<JavaType, EntityDetails>();
+		Set<JavaType> removedEntities = manifest.getEntities();
+		for (ClassOrInterfaceTypeDetails cid : cids) {
 			JavaType entity = cid.getName();
+			start = System.nanoTime();
+			EntityDetails entityDetails = entityDetailsCache.getEntityDetails(entity);
+			profiler.recordPhase("member scanning", start);
+			profiler.recordEntity(entity, start);
+			removedEntities.remove(entity);
+			if (options.isForce() || rewire || !manifest.isUpToDate(entity, entityDetails.getFingerprint(), javaPackage, getComponentFilesForEntity(javaPackage, entity, events))) {
+				entities.put(entity, entityDetails);
+			}
+		}
+		
+		boolean sessionOwner = openContextSession();
+		try {
+			for (JavaType entity : removedEntities) {
+				removeComponentsForEntity(manifest.getJavaPackage(), entity);
+				manifest.remove(entity);
+			}
+			if (events == EventMode.GENERIC && manifest.getEventMode() != EventMode.GENERIC) {
+				for (JavaType entity : entities.keySet()) {
+					removeEventHandlingForEntity(entity);
+				}
+			}
+			writeCrudEventTypes(events, writeBehind, rewire);
+			installEntityCacheBean();
 			
-			MemberDetails memberDetails = memberDetailsScanner.getMemberDetails(RichclientOperationsImpl.class.getName(), cid);
-			createDecoratedEntityClassForEntity(entity, memberDetails);
+			if (options.isParallel()) {
+				for (EntityComponents components : buildComponentsInParallel(javaPackage, entities, wiring, events, writeBehind)) {
+					writeEntityComponents(components, wiring);
+				}
+			} else {
+				for (Map.Entry<JavaType, EntityDetails> entry : entities.entrySet()) {
+					writeEntityComponents(buildComponentsForEntity(javaPackage, entry.getKey(), entry.getValue(), wiring, events, writeBehind), wiring);
+				}
+			}
+			writeWiring(javaPackage, manifest.getJavaPackage(), wiring, rewire || !entities.isEmpty() || !removedEntities.isEmpty());
 			
-			generateComponentsForSingleEntity(javaPackage, entity);
+			// Write all bean registrations to the Spring Application Context at once
+			commitContextSession(sessionOwner);
+		} finally {
+			closeContextSession(sessionOwner);
 		}
-		createMainClass(); // TODO: create a method that sets main to TRUE
-		swingOperations.createViewsForAllEntities();
+		createMainClass(writeBehind);
+		
+		start = System.nanoTime();
+		swingOperations.createViewsForAllEntities(entities.keySet(), removedEntities);
+		profiler.recordPhase("views", start);
+		
+		// Record the entities only after all of their components have been written
+		for (Map.Entry<JavaType, EntityDetails> entry : entities.entrySet()) {
+			manifest.update(entry.getKey(), entry.getValue().getFingerprint());
+		}
+		manifest.setGenerated(javaPackage);
+		manifest.setWiringMode(wiring);
+		manifest.setEventMode(events);
+		manifest.setWriteBehind(writeBehind);
+		manifest.save();
 	}
 	
 	/**
@@ -142,231 +263,1228 @@ public class RichclientOperationsImpl implements RichclientOperations {
 	public void generateComponentsForSingleEntity(JavaPackage javaPackage, JavaType entity) {
 		// TODO: complete the method so that it can handle the creation of "decorated entities and views"
 		
-		createControllerClassForEntity(javaPackage, entity);
-		createEventHandlingForEntity(entity);
-
-		installEntity(entity);
+		boolean profilerOwner = profiler.startRun("richclient controller single");
+		GenerationManifest manifest = getManifest();
+		WiringMode wiring = manifest.getWiringMode();
+		EventMode events = manifest.getEventMode();
+		boolean writeBehind = manifest.isWriteBehind();
+		boolean sessionOwner = openContextSession();
+		try {
+			writeCrudEventTypes(events, writeBehind, false);
+			writeEntityComponents(buildComponentsForEntity(javaPackage, entity, null, wiring, events, writeBehind), wiring);
+			writeWiring(javaPackage, null, wiring, true);
+			
+			commitContextSession(sessionOwner);
+		} finally {
+			closeContextSession(sessionOwner);
+			if (profilerOwner) {
+				profiler.finishRun();
+			}
+		}
 	}
-
+	
 	/**
-	 * Creates a main class
+	 * {@inheritDoc}
 	 */
-	private void createMainClass() {
-		JavaType main = new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".main.Main");
-		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(main, Path.SRC_MAIN_JAVA);
-		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(main, projectOperations.getPathResolver().getPath(resourceIdentifier));
-		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, main, PhysicalTypeCategory.CLASS);
-	
-		typeDetailsBuilder.addMethod(getMainMethodForMainClass(declaredByMetadataId));
-		
-		typeManagementService.generateClassFile(typeDetailsBuilder.build());
+	public String updateComponentsForEntity(JavaType entity) {
+		boolean profilerOwner = profiler.startRun("richclient live " + entity.getFullyQualifiedTypeName());
+		try {
+			return updateComponents(entity);
+		} finally {
+			if (profilerOwner) {
+				profiler.finishRun();
+			}
+		}
 	}
-
+	
 	/**
-	 * Generates a main MethodMetadata for the main class. The main method will be able to load the
-	 * Spring Application Context
+	 * Regenerates or removes the components of a single entity.
 	 * 
-	 * @param String declaredByMetadataId
-	 * @return new MethodMetadata
+	 * @param JavaType entity
+	 * @return the fingerprint the components are generated from, null if there are none
 	 */
-	private MethodMetadata getMainMethodForMainClass(String declaredByMetadataId) {
-		
-		// Specify the desired method name
-		JavaSymbolName methodName = new JavaSymbolName("main");
+	private String updateComponents(JavaType entity) {
+		GenerationManifest manifest = getManifest();
+		JavaPackage javaPackage = manifest.getJavaPackage();
+		if (javaPackage == null || !manifest.isCurrentVersion()) {
+			// Single entities are only updated after a complete run of the current generator version
+			return null;
+		}
 		
-		// Define method parameter types
-		JavaType string = new JavaType("java.lang.String", 1, DataType.TYPE, null, null);
-		AnnotatedJavaType parameterType = new AnnotatedJavaType(string, null);
+		WiringMode wiring = manifest.getWiringMode();
+		EventMode events = manifest.getEventMode();
+		boolean writeBehind = manifest.isWriteBehind();
+		Set<JavaType> changedEntities = new HashSet<JavaType>();
+		Set<JavaType> removedEntities = new HashSet<JavaType>();
+		boolean entitiesChanged = false;
+		String fingerprint = null;
 		
-		// Create the method body
-		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine("String[] contextPaths = new String[] {\"META-INF/spring/applicationContext.xml\"};" +
-				"new ClassPathXmlApplicationContext(contextPaths);");
+		boolean sessionOwner = openContextSession();
+		try {
+			if (rooEntityIndex.isEntity(entity)) {
+				EntityDetails entityDetails = entityDetailsCache.getEntityDetails(entity);
+				fingerprint = entityDetails.getFingerprint();
+				if (manifest.isUpToDate(entity, fingerprint, javaPackage, getComponentFilesForEntity(javaPackage, entity, events))) {
+					return fingerprint;
+				}
+				entitiesChanged = !manifest.getEntities().contains(entity);
+				writeCrudEventTypes(events, writeBehind, false);
+				writeEntityComponents(buildComponentsForEntity(javaPackage, entity, entityDetails, wiring, events, writeBehind), wiring);
+				manifest.update(entity, fingerprint);
+				changedEntities.add(entity);
+			} else if (manifest.getEntities().contains(entity)) {
+				entitiesChanged = true;
+				removeComponentsForEntity(javaPackage, entity);
+				manifest.remove(entity);
+				removedEntities.add(entity);
+			} else {
+				return null;
+			}
+			// The shared types only depend on the set of entities, a changed entity keeps them
+			writeWiring(javaPackage, javaPackage, wiring, entitiesChanged);
+			
+			commitContextSession(sessionOwner);
+		} finally {
+			closeContextSession(sessionOwner);
+		}
 		
-		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
-		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId);
-		methodBuilder.setMethodName(methodName);
-		methodBuilder.addParameterType(parameterType);
-		methodBuilder.addParameterName(new JavaSymbolName("args"));
-		methodBuilder.setModifier(Modifier.PUBLIC);
-		methodBuilder.setReturnType(JavaType.VOID_PRIMITIVE);
-		methodBuilder.setBodyBuilder(bodyBuilder);
+		long start = System.nanoTime();
+		swingOperations.createViewsForAllEntities(changedEntities, removedEntities);
+		profiler.recordPhase("views", start);
 		
-		return methodBuilder.build(); // Build and return a MethodMetadata instance
+		manifest.save();
+		return fingerprint;
 	}
-
+	
 	/**
-	 * Creates a decorated entity class for a specified entity with PropertyChangeSupport 
-	 * and extended setter methods for beans-binding.
-	 * 
-	 * @param JavaType entity
-	 * @param MemberDetails memberDetails
-	 * @return new JavaType
+	 * {@inheritDoc}
 	 */
-	private JavaType createDecoratedEntityClassForEntity(JavaType entity, MemberDetails memberDetails){
+	public void setLiveMode(boolean liveMode) {
+		GenerationManifest manifest = getManifest();
+		Assert.notNull(manifest.getJavaPackage(), "Run 'richclient controller all' before enabling the live mode");
 		
-		// Create new JavaType with a fully qualified type name
-		JavaType decoratedEntity = new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".domain.Decorated" + entity.getSimpleTypeName());
+		manifest.setLiveMode(liveMode);
+		manifest.save();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isLiveMode() {
+		return projectOperations.isProjectAvailable() && getManifest().isLiveMode();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public String getGeneratedFingerprint(JavaType entity) {
+		if (!projectOperations.isProjectAvailable()) {
+			return null;
+		}
+		return getManifest().getFingerprint(entity);
+	}
+	
+	private synchronized GenerationManifest getManifest() {
+		if (manifest == null) {
+			manifest = new GenerationManifest(fileManager, projectOperations);
+		}
+		return manifest;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public String getStatistics(File jsonFile) {
+		GenerationStatistics statistics = profiler.getLastRun();
+		if (statistics == null) {
+			return "No generation run recorded so far";
+		}
 		
-		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(decoratedEntity, Path.SRC_MAIN_JAVA);
-		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(decoratedEntity, projectOperations.getPathResolver().getPath(resourceIdentifier));
-		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, decoratedEntity, PhysicalTypeCategory.CLASS);
+		if (jsonFile != null) {
+			try {
+				String jsonPath = jsonFile.getCanonicalPath();
+				MutableFile mutableFile = fileManager.exists(jsonPath) ? fileManager.updateFile(jsonPath) : fileManager.createFile(jsonPath);
+				OutputStream outputStream = mutableFile.getOutputStream();
+				try {
+					outputStream.write(statistics.toJson().getBytes("UTF-8"));
+				} finally {
+					outputStream.close();
+				}
+			} catch (IOException ex) {
+				throw new IllegalStateException("Could not write the statistics to " + jsonFile, ex);
+			}
+		}
+		return statistics.toText();
+	}
 	
-		// Confirm that memberDetails is not empty
-		Assert.notEmpty(MemberFindingUtils.getMethods(memberDetails));
+	/**
+	 * {@inheritDoc}
+	 */
+	public String addIndexes(JavaType entity) {
+		JavaType index = getIndexAnnotation();
+		JavaType transientType = new JavaType("javax.persistence.Transient");
+		int indexes = 0;
 		
-		// for every Method in methodMetadata ...
-		for(MethodMetadata methodMetadata : MemberFindingUtils.getMethods(memberDetails)){
+		for (ClassOrInterfaceTypeDetails cid : rooEntityIndex.getEntities()) {
+			if ((entity != null && !entity.equals(cid.getName())) || !(cid instanceof MutableClassOrInterfaceTypeDetails)) {
+				continue;
+			}
+			EntityDetails entityDetails = entityDetailsCache.getEntityDetails(cid.getName());
 			
-			// ... get the method name, ...
-			JavaSymbolName methodName = new JavaSymbolName(methodMetadata.getMethodName().getSymbolName());
-			String name = methodName.getSymbolName();
-
-			// ... check if the method is a setter method (exclude setVersion and setId) ...
-			if(name.startsWith("set") && (!name.equalsIgnoreCase("setVersion") && !name.equalsIgnoreCase("setId"))){
-				// ... and add method
-				typeDetailsBuilder.addMethod(getSetterMethodsForDecoratedEntityClass(declaredByMetadataId, methodMetadata, name));
+			for (FieldMetadata field : cid.getDeclaredFields()) {
+				String fieldName = field.getFieldName().getSymbolName();
+				if (!entityDetails.getPropertyTypes().containsKey(fieldName) || !entityDetails.isQueryable(fieldName)) {
+					continue;
+				}
+				if (Modifier.isStatic(field.getModifier()) || Modifier.isTransient(field.getModifier())
+						|| MemberFindingUtils.getAnnotationOfType(field.getAnnotations(), transientType) != null
+						|| MemberFindingUtils.getAnnotationOfType(field.getAnnotations(), index) != null) {
+					continue;
+				}
+				
+				List<AnnotationAttributeValue<?>> attributes = new ArrayList<AnnotationAttributeValue<?>>();
+				String indexName = (cid.getName().getSimpleTypeName() + "_" + fieldName + "_idx").toLowerCase();
+				attributes.add(new StringAttributeValue(new JavaSymbolName("name"), indexName));
+				AnnotationMetadata annotation = new AnnotationMetadataBuilder(index, attributes).build();
+				((MutableClassOrInterfaceTypeDetails) cid).addFieldAnnotation(new DeclaredFieldAnnotationDetails(field, annotation));
+				indexes++;
 			}
 		}
-		
-		typeDetailsBuilder.addMethod(getAddPropertyChangeListenerMethodForDecoratedEntityClass(declaredByMetadataId));
-		typeDetailsBuilder.addMethod(getRemovePropertyChangeListenerMethodForDecoratedEntityClass(declaredByMetadataId));
-		typeDetailsBuilder.addField(getChangeSupportFieldForDecoratedEntityClass(declaredByMetadataId));
-		typeDetailsBuilder.addExtendsTypes(entity);
-		
-		typeManagementService.generateClassFile(typeDetailsBuilder.build());
-		
-		return typeDetailsBuilder.getName();
+		return "Added " + indexes + " index hint(s) of type " + index.getFullyQualifiedTypeName();
 	}
 	
 	/**
-	 * Generates addPropertyChangeListener MethodMetadata for a decorated entity.
+	 * Returns the index annotation of the persistence provider configured in the persistence.xml 
+	 * of the project. JPA 2.0 has no index annotation of its own.
 	 * 
-	 * @param String declaredByMetadataId
-	 * @return new MethodMetadata
+	 * @return JavaType of the annotation
 	 */
-	private MethodMetadata getAddPropertyChangeListenerMethodForDecoratedEntityClass(String declaredByMetadataId) {
-		
-		// Specify the desired method name
-		JavaSymbolName methodName = new JavaSymbolName("addPropertyChangeListener");
-
-		// Define method parameter types
-		JavaType propertyChangeType = new JavaType("java.beans.PropertyChangeListener");
-		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
-		parameterTypes.add(new AnnotatedJavaType(propertyChangeType, null));
-		
-		// Define method parameter names
-		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
-		parameterNames.add(new JavaSymbolName("x"));
-		
-		// Create the method body
-		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine(changeSupportFieldName + ".addPropertyChangeListener(x);");
+	private JavaType getIndexAnnotation() {
+		String persistencePath = projectOperations.getPathResolver().getIdentifier(Path.SRC_MAIN_RESOURCES, "META-INF/persistence.xml");
+		if (!fileManager.exists(persistencePath)) {
+			throw new IllegalStateException("Could not find " + persistencePath + ", please set up the persistence first");
+		}
 		
-		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
-		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		String provider;
+		try {
+			Element persistence = XmlUtils.getDocumentBuilder().parse(new File(persistencePath)).getDocumentElement();
+			Element providerElement = XmlUtils.findFirstElement("/persistence/persistence-unit/provider", persistence);
+			provider = providerElement == null ? "" : providerElement.getTextContent().trim();
+		} catch (Exception ex) {
+			throw new IllegalStateException("Could not read " + persistencePath, ex);
+		}
 		
-		return methodBuilder.build(); // Build and return a MethodMetadata instance
+		if (provider.startsWith("org.hibernate")) {
+			return new JavaType("org.hibernate.annotations.Index");
+		} else if (provider.startsWith("org.apache.openjpa")) {
+			return new JavaType("org.apache.openjpa.persistence.jdbc.Index");
+		} else if (provider.startsWith("org.eclipse.persistence")) {
+			return new JavaType("org.eclipse.persistence.annotations.Index");
+		}
+		throw new IllegalStateException("The persistence provider '" + provider + "' has no supported index annotation");
 	}
 	
 	/**
-	 * Generates getPropertyChangeListener MethodMetadata for a decorated entity.
+	 * Builds the components of all entities on a thread pool bounded by the number of available
+	 * processors. The components are returned in the order of the entities.
 	 * 
-	 * @param String declaredByMetadataId
-	 * @return new MethodMetadata
+	 * @param JavaPackage javaPackage
+	 * @param Map<JavaType, EntityDetails> entities
+	 * @param WiringMode wiring
+	 * @param EventMode events
+	 * @param boolean writeBehind
+	 * @return List<EntityComponents>
 	 */
-	private MethodMetadata getRemovePropertyChangeListenerMethodForDecoratedEntityClass(String declaredByMetadataId) {
-		
-		
-		JavaSymbolName methodName = new JavaSymbolName("removePropertyChangeListener");
-		
-		// Define method parameter types
-		JavaType propertyChangeType = new JavaType("java.beans.PropertyChangeListener");
-		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
-		parameterTypes.add(new AnnotatedJavaType(propertyChangeType, null));
-		
-		// Define method parameter names
-		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
-		parameterNames.add(new JavaSymbolName("x"));
-		
-		// Create the method body
-		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine(changeSupportFieldName + ".removePropertyChangeListener(x);");
+	private List<EntityComponents> buildComponentsInParallel(final JavaPackage javaPackage, Map<JavaType, EntityDetails> entities, final WiringMode wiring, final EventMode events, final boolean writeBehind) {
+		List<EntityComponents> result = new ArrayList<EntityComponents>();
+		if (entities.isEmpty()) {
+			return result;
+		}
 		
-		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
-		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		// the Roo services are not thread-safe, so every location is resolved up front and the
+		// workers only assemble the type details
+		ResolvedLocations locations = new ResolvedLocations(getTopLevelPackage());
+		List<Callable<EntityComponents>> tasks = new ArrayList<Callable<EntityComponents>>();
+		for (Map.Entry<JavaType, EntityDetails> entry : entities.entrySet()) {
+			final JavaType entity = entry.getKey();
+			final EntityDetails entityDetails = entry.getValue();
+			if (entityDetails != null) {
+				locations.resolve(getDecoratedEntityType(entity));
+			}
+			locations.resolve(getControllerType(javaPackage, entity));
+			if (events == EventMode.PER_ENTITY) {
+				for (JavaType type : getEventTypesForEntity(entity)) {
+					locations.resolve(type);
+				}
+				for (JavaType type : getListenerTypesForEntity(entity)) {
+					locations.resolve(type);
+				}
+			}
+			tasks.add(new Callable<EntityComponents>() {
+				public EntityComponents call() {
+					return buildComponentsForEntity(javaPackage, entity, entityDetails, wiring, events, writeBehind);
+				}
+			});
+		}
 		
-		return methodBuilder.build(); // Build and return a MethodMetadata instance
+		int threads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		resolvedLocations = locations;
+		try {
+			for (Future<EntityComponents> future : executor.invokeAll(tasks)) {
+				result.add(future.get());
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		} catch (ExecutionException ex) {
+			throw new IllegalStateException(ex.getCause());
+		} finally {
+			resolvedLocations = null;
+			executor.shutdownNow();
+		}
+		return result;
 	}
-
+	
 	/**
-	 * Generates a setter method with a specified name from MethodMetadata for a decorated entity.
+	 * Returns the top level package of the project, taken from the resolved locations during a
+	 * parallel build.
 	 * 
-	 * @param String declaredByMetadataId
-	 * @param MethodMetadata methodMetadata
-	 * @return new MethodMetadata
+	 * @return String
 	 */
-	private MethodMetadata getSetterMethodsForDecoratedEntityClass(String declaredByMetadataId, MethodMetadata methodMetadata, String name){
-		
-		// Specify the desired method name
-		JavaSymbolName methodName = new JavaSymbolName(name);
-		
-		// Define method annotations
-		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
-		annotations.add(new AnnotationMetadataBuilder(new JavaType("java.lang.Override")));
-		
-		// Define method parameter types
-		List<AnnotatedJavaType> parameterTypes = methodMetadata.getParameterTypes();
+	private String getTopLevelPackage() {
+		ResolvedLocations locations = resolvedLocations;
+		if (locations != null) {
+			return locations.topLevelPackage;
+		}
+		return projectOperations.getProjectMetadata().getTopLevelPackage().getFullyQualifiedPackageName();
+	}
+	
+	/**
+	 * Returns the metadata identifier a new type is declared by, taken from the resolved locations
+	 * during a parallel build.
+	 * 
+	 * @param JavaType javaType
+	 * @return String
+	 */
+	private String getDeclaredByMetadataId(JavaType javaType) {
+		ResolvedLocations locations = resolvedLocations;
+		if (locations != null) {
+			String declaredByMetadataId = locations.declaredByMetadataIds.get(javaType);
+			Assert.notNull(declaredByMetadataId, "The location of " + javaType.getFullyQualifiedTypeName() + " has not been resolved before the parallel build");
+			return declaredByMetadataId;
+		}
+		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(javaType, Path.SRC_MAIN_JAVA);
+		return PhysicalTypeIdentifier.createIdentifier(javaType, projectOperations.getPathResolver().getPath(resourceIdentifier));
+	}
+	
+	/**
+	 * Locations resolved on the calling thread before a parallel build. The instance is only read
+	 * once it has been handed to the workers.
+	 */
+	private class ResolvedLocations {
 		
-		// Define method parameter names
-		List<JavaSymbolName> parameterNames = methodMetadata.getParameterNames();
+		private final String topLevelPackage;
+		private final Map<JavaType, String> declaredByMetadataIds = new HashMap<JavaType, String>();
 		
-		// Create the method body
-		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine(parameterTypes.get(0).getJavaType().getSimpleTypeName() + " oldValue = super.get" + name.substring(3) + "();");
-		bodyBuilder.appendFormalLine("super." + name + "(" + uncapitalize(name.substring(3)) + ");");
-		bodyBuilder.appendFormalLine(changeSupportFieldName + ".firePropertyChange(\"" + uncapitalize(name.substring(3)) + "\", oldValue, " + uncapitalize(name.substring(3)) + ");");
-
-		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
-		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
-		methodBuilder.setAnnotations(annotations);
+		private ResolvedLocations(String topLevelPackage) {
+			this.topLevelPackage = topLevelPackage;
+		}
 		
-		return methodBuilder.build(); // Build and return a MethodMetadata instance
+		private void resolve(JavaType javaType) {
+			declaredByMetadataIds.put(javaType, getDeclaredByMetadataId(javaType));
+		}
 	}
 	
 	/**
-	 * Generates a changeSupport field for a decorated entity.
+	 * Builds the decorated entity, the controller and the event handling classes of an entity
+	 * without writing any files.
 	 * 
-	 * @param String declaredByMetadataId
-	 * @return new FieldMetadata
+	 * @param JavaPackage javaPackage
+	 * @param JavaType entity
+	 * @param EntityDetails entityDetails the scanned entity, null if no decorated entity is required
+	 * @param WiringMode wiring
+	 * @param EventMode events
+	 * @param boolean writeBehind
+	 * @return new EntityComponents
 	 */
-	private FieldMetadata getChangeSupportFieldForDecoratedEntityClass(String declaredByMetadataId){
+	private EntityComponents buildComponentsForEntity(JavaPackage javaPackage, JavaType entity, EntityDetails entityDetails, WiringMode wiring, EventMode events, boolean writeBehind) {
+		long start = System.nanoTime();
+		EntityComponents components = new EntityComponents(entity);
 		
-		// Define the field type
-		JavaType fieldType = new JavaType("com.jgoodies.binding.beans.ExtendedPropertyChangeSupport");
+		if (entityDetails != null) {
+			createDecoratedEntityClassForEntity(entity, entityDetails, components);
+		}
+		createControllerClassForEntity(javaPackage, entity, events, writeBehind, components);
+		if (events == EventMode.PER_ENTITY) {
+			createEventHandlingForEntity(entity, wiring, components);
+		}
 		
-		// Create initializer for field
-		String fieldInitializer = "new ExtendedPropertyChangeSupport(this)";
+		// Define the entity within Spring Application Context
+		components.addBean(entity);
 		
-		// Use the FieldMetadataBuilder for easy creation of FieldMetadata
-		FieldMetadataBuilder fieldMetadataBuilder = new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, changeSupportFieldName, fieldType, fieldInitializer);
+		profiler.recordPhase("type generation", start);
+		profiler.recordEntity(entity, start);
+		return components;
+	}
+	
+	/**
+	 * Deletes the class files of all components of an entity that no longer exists and removes
+	 * their beans from the Spring Application Context.
+	 * 
+	 * @param JavaPackage javaPackage the package the controller has been generated into
+	 * @param JavaType entity
+	 */
+	private void removeComponentsForEntity(JavaPackage javaPackage, JavaType entity) {
+		List<JavaType> components = new ArrayList<JavaType>();
+		components.add(getDecoratedEntityType(entity));
+		if (javaPackage != null) {
+			components.add(getControllerType(javaPackage, entity));
+		}
+		components.addAll(getEventTypesForEntity(entity));
+		components.addAll(getListenerTypesForEntity(entity));
 		
-		return fieldMetadataBuilder.build(); // Build and return a FieldMetadata instance
+		long start = System.nanoTime();
+		removeComponents(components);
+		contextSession.removeBean(entity);
+		profiler.recordPhase("component removal", start);
 	}
 	
 	/**
-	 * Creates a Controller class for a specified entity.
+	 * Returns the canonical paths of the class files generated for an entity.
 	 * 
 	 * @param JavaPackage javaPackage
 	 * @param JavaType entity
+	 * @param EventMode events
+	 * @return List<String>
 	 */
-	private void createControllerClassForEntity(JavaPackage javaPackage, JavaType entity){
-		JavaType controller = new JavaType(javaPackage.getFullyQualifiedPackageName() + "." + entity.getSimpleTypeName() + "Controller");
-		JavaType annotationProcessor = new JavaType("org.bushe.swing.event.annotation.AnnotationProcessor");
+	private List<String> getComponentFilesForEntity(JavaPackage javaPackage, JavaType entity, EventMode events) {
+		List<JavaType> components = new ArrayList<JavaType>();
+		components.add(getDecoratedEntityType(entity));
+		components.add(getControllerType(javaPackage, entity));
+		if (events == EventMode.PER_ENTITY) {
+			components.addAll(getEventTypesForEntity(entity));
+			components.addAll(getListenerTypesForEntity(entity));
+		}
 		
-		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(controller, Path.SRC_MAIN_JAVA);
-		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(controller, projectOperations.getPathResolver().getPath(resourceIdentifier));
-		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, controller, PhysicalTypeCategory.CLASS);
+		List<String> files = new ArrayList<String>();
+		for (JavaType component : components) {
+			files.add(typeLocationService.getPhysicalLocationCanonicalPath(component, Path.SRC_MAIN_JAVA));
+		}
+		return files;
+	}
+	
+	/**
+	 * Deletes the event and listener classes of an entity that are replaced by the generic
+	 * CRUD event types and removes their beans from the Spring Application Context.
+	 * 
+	 * @param JavaType entity
+	 */
+	private void removeEventHandlingForEntity(JavaType entity) {
+		List<JavaType> components = new ArrayList<JavaType>();
+		components.addAll(getEventTypesForEntity(entity));
+		components.addAll(getListenerTypesForEntity(entity));
+		
+		long start = System.nanoTime();
+		removeComponents(components);
+		profiler.recordPhase("component removal", start);
+	}
+	
+	private void removeComponents(List<JavaType> components) {
+		for (JavaType component : components) {
+			String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(component, Path.SRC_MAIN_JAVA);
+			if (fileManager.exists(resourceIdentifier)) {
+				fileManager.delete(resourceIdentifier);
+			}
+			contextSession.removeBean(component);
+		}
+	}
+	
+	/**
+	 * Generates the class files of the components and registers their beans with the
+	 * Spring Application Context. With the annotation wiring the beans are removed from
+	 * applicationContext.xml instead, as the components are found by the component-scan.
+	 * 
+	 * @param EntityComponents components
+	 * @param WiringMode wiring
+	 */
+	private void writeEntityComponents(EntityComponents components, WiringMode wiring) {
+		long start = System.nanoTime();
+		for (ClassOrInterfaceTypeDetails typeDetails : components.getTypes()) {
+			typeManagementService.generateClassFile(typeDetails);
+		}
+		profiler.recordFilesWritten(components.getTypes().size());
+		profiler.recordPhase("file write", start);
+		
+		long installStart = System.nanoTime();
+		for (int i = 0; i < components.getBeans().size(); i++) {
+			if (wiring == WiringMode.ANNOTATION) {
+				contextSession.removeBean(components.getBeans().get(i));
+			} else {
+				installBean(components.getBeans().get(i), components.getConstructorArgs().get(i));
+			}
+		}
+		profiler.recordPhase("context install", installStart);
+		profiler.recordEntity(components.getEntity(), start);
+	}
+
+	/**
+	 * Registers a component-scan for every package with generated components and generates the
+	 * entity configuration if the annotation wiring is used. Otherwise both are removed again.
+	 * 
+	 * @param JavaPackage javaPackage the package of the controllers
+	 * @param JavaPackage previousPackage the package of the controllers of the last run, may be null
+	 * @param WiringMode wiring
+	 * @param boolean entitiesChanged true if the entity configuration has to be regenerated
+	 */
+	private void writeWiring(JavaPackage javaPackage, JavaPackage previousPackage, WiringMode wiring, boolean entitiesChanged) {
+		long start = System.nanoTime();
+		if (previousPackage != null && !previousPackage.getFullyQualifiedPackageName().equals(javaPackage.getFullyQualifiedPackageName())) {
+			contextSession.removeComponentScan(previousPackage);
+		}
+		
+		String topLevelPackage = getTopLevelPackage();
+		JavaType entityConfiguration = getEntityConfigurationType();
+		List<JavaPackage> packages = new ArrayList<JavaPackage>();
+		packages.add(new JavaPackage(topLevelPackage + ".events"));
+		packages.add(new JavaPackage(topLevelPackage + ".listeners"));
+		packages.add(entityConfiguration.getPackage());
+		packages.add(javaPackage);
+		
+		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(entityConfiguration, Path.SRC_MAIN_JAVA);
+		if (wiring == WiringMode.ANNOTATION) {
+			for (JavaPackage javaPackageToScan : packages) {
+				// The controllers are @Controller classes, which Roo excludes from its component-scan
+				if (!javaPackageToScan.getFullyQualifiedPackageName().equals(javaPackage.getFullyQualifiedPackageName()) && contextSession.isScannedByParentPackage(javaPackageToScan)) {
+					contextSession.removeComponentScan(javaPackageToScan);
+				} else {
+					contextSession.installComponentScan(javaPackageToScan);
+				}
+			}
+			profiler.recordPhase("context install", start);
+			
+			// @Configuration classes are enhanced by CGLIB
+			Element configuration = XmlUtils.getConfiguration(getClass());
+			for (Element dependencyElement : XmlUtils.findElements("/configuration/richroo/annotation-wiring/dependencies/dependency", configuration)) {
+				projectOperations.addDependency(new Dependency(dependencyElement));
+			}
+			if (entitiesChanged || !fileManager.exists(resourceIdentifier)) {
+				createEntityConfigurationClass(entityConfiguration);
+			}
+		} else {
+			for (JavaPackage javaPackageToScan : packages) {
+				contextSession.removeComponentScan(javaPackageToScan);
+			}
+			profiler.recordPhase("context install", start);
+			if (fileManager.exists(resourceIdentifier)) {
+				fileManager.delete(resourceIdentifier);
+			}
+		}
+	}
+	
+	private JavaType getEntityConfigurationType() {
+		return new JavaType(getTopLevelPackage() + ".config.EntityConfiguration");
+	}
+	
+	/**
+	 * Creates a @Configuration class that defines a bean for every entity, which replaces the
+	 * entity beans in applicationContext.xml for the annotation wiring.
+	 * 
+	 * @param JavaType entityConfiguration
+	 */
+	private void createEntityConfigurationClass(JavaType entityConfiguration) {
+		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(entityConfiguration, Path.SRC_MAIN_JAVA);
+		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(entityConfiguration, projectOperations.getPathResolver().getPath(resourceIdentifier));
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, entityConfiguration, PhysicalTypeCategory.CLASS);
+		
+		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
+		annotations.add(new AnnotationMetadataBuilder(new JavaType("org.springframework.context.annotation.Configuration")));
+		typeDetailsBuilder.setAnnotations(annotations);
+		
+		for (ClassOrInterfaceTypeDetails cid : rooEntityIndex.getEntities()) {
+			typeDetailsBuilder.addMethod(getBeanMethodForEntityConfigurationClass(declaredByMetadataId, cid.getName()));
+		}
+		
+		long start = System.nanoTime();
+		typeManagementService.generateClassFile(typeDetailsBuilder.build());
+		profiler.recordFilesWritten(1);
+		profiler.recordPhase("file write", start);
+	}
+	
+	/**
+	 * Generates a @Bean method that creates an entity.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param JavaType entity
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getBeanMethodForEntityConfigurationClass(String declaredByMetadataId, JavaType entity) {
+		
+		// The method name is the bean name the events and listeners qualify their constructor argument with
+		JavaSymbolName methodName = new JavaSymbolName(uncapitalize(entity.getSimpleTypeName()));
+		
+		// Define method annotations
+		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
+		annotations.add(new AnnotationMetadataBuilder(new JavaType("org.springframework.context.annotation.Bean")));
+		
+		// Create the method body
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return new " + entity.getFullyQualifiedTypeName() + "();");
+		
+		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, entity, bodyBuilder);
+		methodBuilder.setAnnotations(annotations);
+		
+		return methodBuilder.build(); // Build and return a MethodMetadata instance
+	}
+
+	/**
+	 * Creates a main class, which shows the main frame at once and leaves the Spring Application
+	 * Context to the ContextLoader.
+	 * 
+	 * @param boolean writeBehind true if the pending updates have to be flushed on exit
+	 */
+	private void createMainClass(boolean writeBehind) {
+		JavaType main = new JavaType(getTopLevelPackage() + ".main.Main");
+		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(main, Path.SRC_MAIN_JAVA);
+		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(main, projectOperations.getPathResolver().getPath(resourceIdentifier));
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, main, PhysicalTypeCategory.CLASS);
+		
+		JavaType frame = new JavaType("javax.swing.JFrame");
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC | Modifier.VOLATILE, new JavaSymbolName("mainFrame"), frame, null).build());
+		typeDetailsBuilder.addMethod(getMainMethodForMainClass(declaredByMetadataId, writeBehind));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return mainFrame;");
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC, new JavaSymbolName("getMainFrame"), frame, new ArrayList<AnnotatedJavaType>(), new ArrayList<JavaSymbolName>(), bodyBuilder).build());
+		
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.awt.SplashScreen")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, frame));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("javax.swing.SwingUtilities")));
+		if (writeBehind) {
+			typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, getUpdateBatcherType()));
+		}
+		
+		long start = System.nanoTime();
+		typeManagementService.generateClassFile(typeDetailsBuilder.build());
+		createContextLoaderClass();
+		profiler.recordFilesWritten(2);
+		profiler.recordPhase("file write", start);
+	}
+
+	/**
+	 * Generates a main MethodMetadata for the main class. The main method starts loading the
+	 * Spring Application Context in the background and shows the main frame on the event dispatch
+	 * thread meanwhile, which replaces the splash screen of the JVM if there is one. In
+	 * write-behind mode it registers a shutdown hook, which writes the updates still pending
+	 * when the application is closed.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param boolean writeBehind
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getMainMethodForMainClass(String declaredByMetadataId, boolean writeBehind) {
+		
+		// Specify the desired method name
+		JavaSymbolName methodName = new JavaSymbolName("main");
+		
+		// Define method parameter types
+		JavaType string = new JavaType("java.lang.String", 1, DataType.TYPE, null, null);
+		AnnotatedJavaType parameterType = new AnnotatedJavaType(string, null);
+		
+		// Create the method body
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("ContextLoader.start(new String[] {\"META-INF/spring/applicationContext.xml\"});");
+		bodyBuilder.appendFormalLine("SwingUtilities.invokeLater(new Runnable() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public void run() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("JFrame frame = new JFrame(\"" + projectOperations.getProjectMetadata().getProjectName() + "\");");
+		bodyBuilder.appendFormalLine("frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);");
+		bodyBuilder.appendFormalLine("frame.setSize(800, 600);");
+		bodyBuilder.appendFormalLine("frame.setLocationRelativeTo(null);");
+		bodyBuilder.appendFormalLine("frame.setVisible(true);");
+		bodyBuilder.appendFormalLine("mainFrame = frame;");
+		bodyBuilder.appendFormalLine("SplashScreen splash = SplashScreen.getSplashScreen();");
+		bodyBuilder.appendFormalLine("if (splash != null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("splash.close();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("});");
+		if (writeBehind) {
+			bodyBuilder.appendFormalLine("Runtime.getRuntime().addShutdownHook(new Thread() {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine("public void run() {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine("UpdateBatcher.flush();");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("});");
+		}
+		
+		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId);
+		methodBuilder.setMethodName(methodName);
+		methodBuilder.addParameterType(parameterType);
+		methodBuilder.addParameterName(new JavaSymbolName("args"));
+		methodBuilder.setModifier(Modifier.PUBLIC | Modifier.STATIC);
+		methodBuilder.setReturnType(JavaType.VOID_PRIMITIVE);
+		methodBuilder.setBodyBuilder(bodyBuilder);
+		
+		return methodBuilder.build(); // Build and return a MethodMetadata instance
+	}
+
+	private JavaType getContextLoaderType() {
+		return new JavaType(getTopLevelPackage() + ".main.ContextLoader");
+	}
+	
+	/**
+	 * Creates the ContextLoader class, which refreshes the Spring Application Context on a
+	 * background thread. The event and listener beans of the entities are made lazy, so that the
+	 * refresh only creates the shared beans and the controllers, which have to subscribe to the
+	 * EventBus before the first CRUD event is published. The event and listener beans of an
+	 * entity are created on a background thread when the entity is used first, see initEntity,
+	 * or right after the refresh if the entity has been used before. Otherwise Spring creates
+	 * them when they are requested.
+	 */
+	private void createContextLoaderClass() {
+		JavaType contextLoader = getContextLoaderType();
+		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(contextLoader, Path.SRC_MAIN_JAVA);
+		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(contextLoader, projectOperations.getPathResolver().getPath(resourceIdentifier));
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, contextLoader, PhysicalTypeCategory.CLASS);
+		
+		String topLevelPackage = getTopLevelPackage();
+		JavaType string = new JavaType("java.lang.String");
+		JavaType context = new JavaType("org.springframework.context.support.ClassPathXmlApplicationContext");
+		JavaType beanFactory = new JavaType("org.springframework.beans.factory.config.ConfigurableListableBeanFactory");
+		JavaType beanNames = new JavaType("java.util.List", 0, DataType.TYPE, null, Arrays.asList(string));
+		
+		int constant = Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL;
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, constant, new JavaSymbolName("LOG"), new JavaType("java.util.logging.Logger"), "Logger.getLogger(ContextLoader.class.getName())").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, constant, new JavaSymbolName("EVENT_PACKAGE"), string, "\"" + topLevelPackage + ".events\"").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, constant, new JavaSymbolName("LISTENER_PACKAGE"), string, "\"" + topLevelPackage + ".listeners\"").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, constant, new JavaSymbolName("OPERATIONS"), new JavaType("java.lang.String", 1, DataType.TYPE, null, null), "{\"Create\", \"Read\", \"Update\", \"Delete\"}").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, constant, new JavaSymbolName("LOADED"), new JavaType("java.util.concurrent.CountDownLatch"), "new CountDownLatch(1)").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, constant, new JavaSymbolName("beansByEntity"), new JavaType("java.util.Map", 0, DataType.TYPE, null, Arrays.asList(string, beanNames)), "new HashMap<String, List<String>>()").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, constant, new JavaSymbolName("usedEntities"), new JavaType("java.util.Set", 0, DataType.TYPE, null, Arrays.asList(string)), "new HashSet<String>()").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC | Modifier.VOLATILE, new JavaSymbolName("context"), context, null).build());
+		
+		// start
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.String", 1, DataType.TYPE, null, null), null));
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("contextPaths"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("final String[] paths = contextPaths;");
+		bodyBuilder.appendFormalLine("new Thread(\"context-loader\") {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public void run() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("try {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("load(paths);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} catch (RuntimeException e) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("LOG.log(Level.SEVERE, \"Loading the application context failed\", e);");
+		bodyBuilder.appendFormalLine("System.exit(1);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}.start();");
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC, new JavaSymbolName("start"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		typeDetailsBuilder.addMethod(methodBuilder.build());
+		
+		// load
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("ClassPathXmlApplicationContext loaded = new ClassPathXmlApplicationContext(contextPaths, false);");
+		bodyBuilder.appendFormalLine("loaded.addBeanFactoryPostProcessor(new BeanFactoryPostProcessor() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("for (String beanName : beanFactory.getBeanDefinitionNames()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("BeanDefinition definition = beanFactory.getBeanDefinition(beanName);");
+		bodyBuilder.appendFormalLine("String entityName = getEntityName(definition.getBeanClassName());");
+		bodyBuilder.appendFormalLine("if (entityName == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("continue;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("definition.setLazyInit(true);");
+		bodyBuilder.appendFormalLine("synchronized (ContextLoader.class) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("List<String> entityBeans = beansByEntity.get(entityName);");
+		bodyBuilder.appendFormalLine("if (entityBeans == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("entityBeans = new ArrayList<String>();");
+		bodyBuilder.appendFormalLine("beansByEntity.put(entityName, entityBeans);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("entityBeans.add(beanName);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("});");
+		bodyBuilder.appendFormalLine("loaded.refresh();");
+		bodyBuilder.appendFormalLine("List<String> entityNames;");
+		bodyBuilder.appendFormalLine("synchronized (ContextLoader.class) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("context = loaded;");
+		bodyBuilder.appendFormalLine("entityNames = new ArrayList<String>(usedEntities);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("LOADED.countDown();");
+		bodyBuilder.appendFormalLine("for (String entityName : entityNames) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("createEntityBeans(loaded, entityName);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC, new JavaSymbolName("load"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder).build());
+		
+		// initEntity
+		parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(string, null));
+		parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("entityName"));
+		
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("ClassPathXmlApplicationContext loaded;");
+		bodyBuilder.appendFormalLine("synchronized (ContextLoader.class) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (!usedEntities.add(entityName) || context == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("// Created by the loader as soon as the context is refreshed");
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("loaded = context;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("// Called on the event dispatch thread, which must not wait for the beans");
+		bodyBuilder.appendFormalLine("final ClassPathXmlApplicationContext entityContext = loaded;");
+		bodyBuilder.appendFormalLine("final String name = entityName;");
+		bodyBuilder.appendFormalLine("Thread initializer = new Thread(\"entity-loader\") {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public void run() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("try {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("createEntityBeans(entityContext, name);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} catch (RuntimeException e) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("LOG.log(Level.SEVERE, \"Creating the beans of \" + name + \" failed\", e);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("};");
+		bodyBuilder.appendFormalLine("initializer.setDaemon(true);");
+		bodyBuilder.appendFormalLine("initializer.start();");
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC, new JavaSymbolName("initEntity"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder).build());
+		
+		// createEntityBeans
+		List<AnnotatedJavaType> createParameterTypes = new ArrayList<AnnotatedJavaType>();
+		createParameterTypes.add(new AnnotatedJavaType(context, null));
+		createParameterTypes.add(new AnnotatedJavaType(string, null));
+		List<JavaSymbolName> createParameterNames = new ArrayList<JavaSymbolName>();
+		createParameterNames.add(new JavaSymbolName("loaded"));
+		createParameterNames.add(new JavaSymbolName("entityName"));
+		
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("List<String> entityBeans;");
+		bodyBuilder.appendFormalLine("synchronized (ContextLoader.class) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("entityBeans = beansByEntity.remove(entityName);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("if (entityBeans != null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("for (String beanName : entityBeans) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("loaded.getBean(beanName);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC, new JavaSymbolName("createEntityBeans"), JavaType.VOID_PRIMITIVE, createParameterTypes, createParameterNames, bodyBuilder).build());
+		
+		// getContext
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("LOADED.await();");
+		bodyBuilder.appendFormalLine("return context;");
+		methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC, new JavaSymbolName("getContext"), new JavaType("org.springframework.context.ApplicationContext"), new ArrayList<AnnotatedJavaType>(), new ArrayList<JavaSymbolName>(), bodyBuilder);
+		methodBuilder.addThrowsType(new JavaType("java.lang.InterruptedException"));
+		typeDetailsBuilder.addMethod(methodBuilder.build());
+		
+		// getEntityName
+		parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(string, null));
+		parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("beanClassName"));
+		
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("if (beanClassName == null || beanClassName.lastIndexOf('.') < 0) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return null;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("String packageName = beanClassName.substring(0, beanClassName.lastIndexOf('.'));");
+		bodyBuilder.appendFormalLine("String simpleName = beanClassName.substring(beanClassName.lastIndexOf('.') + 1);");
+		bodyBuilder.appendFormalLine("String suffix = packageName.equals(EVENT_PACKAGE) ? \"Event\" : packageName.equals(LISTENER_PACKAGE) ? \"Listener\" : null;");
+		bodyBuilder.appendFormalLine("if (suffix == null || !simpleName.endsWith(suffix)) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return null;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("for (String operation : OPERATIONS) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (simpleName.startsWith(operation) && simpleName.length() > operation.length() + suffix.length()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return simpleName.substring(operation.length(), simpleName.length() - suffix.length());");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("return null;");
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC, new JavaSymbolName("getEntityName"), string, parameterTypes, parameterNames, bodyBuilder).build());
+		
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.ArrayList")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.HashMap")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.HashSet")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.List")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.Map")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.Set")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.concurrent.CountDownLatch")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.logging.Level")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.logging.Logger")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("org.springframework.beans.factory.config.BeanDefinition")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("org.springframework.beans.factory.config.BeanFactoryPostProcessor")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, beanFactory));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("org.springframework.context.ApplicationContext")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, context));
+		
+		typeManagementService.generateClassFile(typeDetailsBuilder.build());
+	}
+
+	/**
+	 * Creates a decorated entity class for a specified entity with PropertyChangeSupport 
+	 * and extended setter methods for beans-binding.
+	 * 
+	 * @param JavaType entity
+	 * @param EntityDetails entityDetails
+	 * @param EntityComponents components
+	 * @return new JavaType
+	 */
+	private JavaType createDecoratedEntityClassForEntity(JavaType entity, EntityDetails entityDetails, EntityComponents components){
+		
+		// Create new JavaType with a fully qualified type name
+		JavaType decoratedEntity = getDecoratedEntityType(entity);
+		
+		String declaredByMetadataId = getDeclaredByMetadataId(decoratedEntity);
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, decoratedEntity, PhysicalTypeCategory.CLASS);
+	
+		// for every setter method of the entity (except setVersion and setId) add an extended setter
+		// and a typed value model for the bindings
+		for(MethodMetadata methodMetadata : entityDetails.getSetterMethods()){
+			String name = methodMetadata.getMethodName().getSymbolName();
+			typeDetailsBuilder.addMethod(getSetterMethodsForDecoratedEntityClass(declaredByMetadataId, methodMetadata, name));
+			typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName(uncapitalize(name.substring(3)) + "Model"), valueModelType, null).build());
+			typeDetailsBuilder.addMethod(getValueModelMethodForDecoratedEntityClass(declaredByMetadataId, decoratedEntity, methodMetadata, name));
+		}
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, valueModelType));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("com.jgoodies.binding.value.AbstractValueModel")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.beans.PropertyChangeEvent")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.beans.PropertyChangeListener")));
+		
+		typeDetailsBuilder.addMethod(getAddPropertyChangeListenerMethodForDecoratedEntityClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getRemovePropertyChangeListenerMethodForDecoratedEntityClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getBeginUpdateMethodForDecoratedEntityClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getEndUpdateMethodForDecoratedEntityClass(declaredByMetadataId));
+		typeDetailsBuilder.addField(getChangeSupportFieldForDecoratedEntityClass(declaredByMetadataId));
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, updateDepthFieldName, JavaType.INT_PRIMITIVE, null).build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, updateChangedFieldName, JavaType.BOOLEAN_PRIMITIVE, null).build());
+		typeDetailsBuilder.addExtendsTypes(entity);
+		
+		components.addType(typeDetailsBuilder.build());
+		
+		return typeDetailsBuilder.getName();
+	}
+	
+	/**
+	 * Generates addPropertyChangeListener MethodMetadata for a decorated entity.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getAddPropertyChangeListenerMethodForDecoratedEntityClass(String declaredByMetadataId) {
+		
+		// Specify the desired method name
+		JavaSymbolName methodName = new JavaSymbolName("addPropertyChangeListener");
+
+		// Define method parameter types
+		JavaType propertyChangeType = new JavaType("java.beans.PropertyChangeListener");
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(propertyChangeType, null));
+		
+		// Define method parameter names
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("x"));
+		
+		// Create the method body
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine(changeSupportFieldName + ".addPropertyChangeListener(x);");
+		
+		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build(); // Build and return a MethodMetadata instance
+	}
+	
+	/**
+	 * Generates getPropertyChangeListener MethodMetadata for a decorated entity.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getRemovePropertyChangeListenerMethodForDecoratedEntityClass(String declaredByMetadataId) {
+		
+		
+		JavaSymbolName methodName = new JavaSymbolName("removePropertyChangeListener");
+		
+		// Define method parameter types
+		JavaType propertyChangeType = new JavaType("java.beans.PropertyChangeListener");
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(propertyChangeType, null));
+		
+		// Define method parameter names
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("x"));
+		
+		// Create the method body
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine(changeSupportFieldName + ".removePropertyChangeListener(x);");
+		
+		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build(); // Build and return a MethodMetadata instance
+	}
+
+	/**
+	 * Generates a beginUpdate method for a decorated entity. It opens a batch-update scope, within
+	 * which the setters collect their changes instead of firing them. Scopes may be nested.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getBeginUpdateMethodForDecoratedEntityClass(String declaredByMetadataId) {
+		JavaSymbolName methodName = new JavaSymbolName("beginUpdate");
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine(updateDepthFieldName.getSymbolName() + "++;");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, new ArrayList<AnnotatedJavaType>(), new ArrayList<JavaSymbolName>(), bodyBuilder);
+		
+		return methodBuilder.build(); // Build and return a MethodMetadata instance
+	}
+	
+	/**
+	 * Generates an endUpdate method for a decorated entity. Closing the outermost batch-update
+	 * scope fires a single change event without a property name if any property changed, which
+	 * tells the bindings to refresh all properties at once. Meant to be called in a finally block.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getEndUpdateMethodForDecoratedEntityClass(String declaredByMetadataId) {
+		JavaSymbolName methodName = new JavaSymbolName("endUpdate");
+		String depth = updateDepthFieldName.getSymbolName();
+		String changed = updateChangedFieldName.getSymbolName();
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("if (--" + depth + " == 0 && " + changed + ") {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine(changed + " = false;");
+		bodyBuilder.appendFormalLine(changeSupportFieldName.getSymbolName() + ".firePropertyChange(null, null, null);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, new ArrayList<AnnotatedJavaType>(), new ArrayList<JavaSymbolName>(), bodyBuilder);
+		
+		return methodBuilder.build(); // Build and return a MethodMetadata instance
+	}
+	
+	/**
+	 * Generates a setter method with a specified name from MethodMetadata for a decorated entity.
+	 * Setting an equal value fires no event, within a batch-update scope the change is only
+	 * recorded and fired by endUpdate.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param MethodMetadata methodMetadata
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getSetterMethodsForDecoratedEntityClass(String declaredByMetadataId, MethodMetadata methodMetadata, String name){
+		
+		// Specify the desired method name
+		JavaSymbolName methodName = new JavaSymbolName(name);
+		
+		// Define method annotations
+		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
+		annotations.add(new AnnotationMetadataBuilder(new JavaType("java.lang.Override")));
+		
+		// Define method parameter types
+		List<AnnotatedJavaType> parameterTypes = methodMetadata.getParameterTypes();
+		
+		// Define method parameter names
+		List<JavaSymbolName> parameterNames = methodMetadata.getParameterNames();
+		
+		// Create the method body
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		String property = uncapitalize(name.substring(3));
+		JavaType propertyType = parameterTypes.get(0).getJavaType();
+		bodyBuilder.appendFormalLine(propertyType.getSimpleTypeName() + " oldValue = super.get" + name.substring(3) + "();");
+		bodyBuilder.appendFormalLine("super." + name + "(" + property + ");");
+		if (propertyType.isPrimitive()) {
+			bodyBuilder.appendFormalLine("if (oldValue == " + property + ") {");
+		} else {
+			bodyBuilder.appendFormalLine("if (oldValue == " + property + " || (oldValue != null && oldValue.equals(" + property + "))) {");
+		}
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("if (" + updateDepthFieldName.getSymbolName() + " > 0) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine(updateChangedFieldName.getSymbolName() + " = true;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} else {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine(changeSupportFieldName + ".firePropertyChange(\"" + property + "\", oldValue, " + property + ");");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+
+		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		methodBuilder.setAnnotations(annotations);
+		
+		return methodBuilder.build(); // Build and return a MethodMetadata instance
+	}
+	
+	/**
+	 * Generates the get<Property>Model method of a decorated entity. It returns a ValueModel that
+	 * calls the getter and setter of the property directly, so that binding a form needs no
+	 * introspection. The model is created on first use and follows the change events of the
+	 * property, including the aggregated event of a batch-update scope.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param JavaType decoratedEntity
+	 * @param MethodMetadata methodMetadata the setter of the property
+	 * @param String name the name of the setter
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getValueModelMethodForDecoratedEntityClass(String declaredByMetadataId, JavaType decoratedEntity, MethodMetadata methodMetadata, String name) {
+		String property = uncapitalize(name.substring(3));
+		String field = property + "Model";
+		String self = decoratedEntity.getSimpleTypeName() + ".this";
+		JavaType propertyType = methodMetadata.getParameterTypes().get(0).getJavaType();
+		
+		JavaSymbolName methodName = new JavaSymbolName("get" + name.substring(3) + "Model");
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("if (" + field + " == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("final AbstractValueModel model = new AbstractValueModel() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public Object getValue() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return " + self + ".get" + name.substring(3) + "();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("public void setValue(Object newValue) {");
+		bodyBuilder.indent();
+		// Primitive types are unboxed from their wrapper, whose name the type carries
+		bodyBuilder.appendFormalLine(self + "." + name + "((" + propertyType.getFullyQualifiedTypeName() + ") newValue);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("};");
+		bodyBuilder.appendFormalLine(changeSupportFieldName.getSymbolName() + ".addPropertyChangeListener(new PropertyChangeListener() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public void propertyChange(PropertyChangeEvent evt) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (evt.getPropertyName() == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("model.fireValueChange(null, model.getValue());");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} else if (evt.getPropertyName().equals(\"" + property + "\")) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("model.fireValueChange(evt.getOldValue(), evt.getNewValue());");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("});");
+		bodyBuilder.appendFormalLine(field + " = model;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("return " + field + ";");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, valueModelType, bodyBuilder);
+		
+		return methodBuilder.build(); // Build and return a MethodMetadata instance
+	}
+	
+	/**
+	 * Generates a changeSupport field for a decorated entity.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new FieldMetadata
+	 */
+	private FieldMetadata getChangeSupportFieldForDecoratedEntityClass(String declaredByMetadataId){
+		
+		// Define the field type
+		JavaType fieldType = new JavaType("com.jgoodies.binding.beans.ExtendedPropertyChangeSupport");
+		
+		// Create initializer for field
+		String fieldInitializer = "new ExtendedPropertyChangeSupport(this)";
+		
+		// Use the FieldMetadataBuilder for easy creation of FieldMetadata
+		FieldMetadataBuilder fieldMetadataBuilder = new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, changeSupportFieldName, fieldType, fieldInitializer);
+		
+		return fieldMetadataBuilder.build(); // Build and return a FieldMetadata instance
+	}
+	
+	/**
+	 * Creates a Controller class for a specified entity.
+	 * 
+	 * @param JavaPackage javaPackage
+	 * @param JavaType entity
+	 * @param EventMode events
+	 * @param boolean writeBehind
+	 * @param EntityComponents components
+	 */
+	private void createControllerClassForEntity(JavaPackage javaPackage, JavaType entity, EventMode events, boolean writeBehind, EntityComponents components){
+		JavaType controller = getControllerType(javaPackage, entity);
+		JavaType annotationProcessor = new JavaType("org.bushe.swing.event.annotation.AnnotationProcessor");
+		
+		String declaredByMetadataId = getDeclaredByMetadataId(controller);
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, controller, PhysicalTypeCategory.CLASS);
 		
 		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
 		annotations.add(new AnnotationMetadataBuilder(new JavaType("org.springframework.stereotype.Controller")));
@@ -374,18 +1492,84 @@ public class RichclientOperationsImpl implements RichclientOperations {
 		typeDetailsBuilder.setAnnotations(annotations);
 		
 		typeDetailsBuilder.addConstructor(getConstructorForControllerClass(declaredByMetadataId));
-		
-		typeDetailsBuilder.addMethod(getCreateMethodForControllerClass(entity, declaredByMetadataId));
-		typeDetailsBuilder.addMethod(getDeleteMethodForControllerClass(entity, declaredByMetadataId));
-		typeDetailsBuilder.addMethod(getUpdateMethodForControllerClass(entity, declaredByMetadataId));
-		typeDetailsBuilder.addMethod(getReadMethodForControllerClass(entity, declaredByMetadataId));
+		typeDetailsBuilder.addField(getCacheFieldForControllerClass(entity, declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getSetCacheMethodForControllerClass(entity, declaredByMetadataId));
+		
+		if (events == EventMode.GENERIC) {
+			typeDetailsBuilder.addMethod(getCrudEventMethodForControllerClass(entity, declaredByMetadataId, writeBehind));
+			typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, entity));
+			typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, getCrudEventType()));
+			typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, getCrudOperationType()));
+		} else {
+			typeDetailsBuilder.addMethod(getCreateMethodForControllerClass(entity, declaredByMetadataId));
+			typeDetailsBuilder.addMethod(getDeleteMethodForControllerClass(entity, declaredByMetadataId, writeBehind));
+			typeDetailsBuilder.addMethod(getUpdateMethodForControllerClass(entity, declaredByMetadataId, writeBehind));
+			typeDetailsBuilder.addMethod(getReadMethodForControllerClass(entity, declaredByMetadataId));
+			typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, entity));
+		}
 		
 		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, annotationProcessor));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, getCrudDispatcherType()));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, getCrudResultEventType()));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, getEntityCacheType()));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.concurrent.Callable")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("org.bushe.swing.event.EventBus")));
+		if (writeBehind) {
+			typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, getUpdateBatcherType()));
+		}
 		
-		typeManagementService.generateClassFile(typeDetailsBuilder.build());
+		components.addType(typeDetailsBuilder.build());
 		
 		// Define the controller within Spring Application Context
-		installEntity(controller);
+		components.addBean(controller);
+	}
+	
+	/**
+	 * Generates the cache field of a controller, which keeps the entities its read method has
+	 * loaded. It is replaced by the EntityCache bean of the Spring Application Context, see
+	 * setCache, the initial cache takes its size and time to live from the system properties
+	 * richclient.cache.size and richclient.cache.ttl (in milliseconds).
+	 * 
+	 * @param JavaType entity
+	 * @param String declaredByMetadataId
+	 * @return new FieldMetadata
+	 */
+	private FieldMetadata getCacheFieldForControllerClass(JavaType entity, String declaredByMetadataId) {
+		JavaType cacheType = new JavaType(getEntityCacheType().getFullyQualifiedTypeName(), 0, DataType.TYPE, null, Arrays.asList(entity));
+		String fieldInitializer = "new EntityCache<" + entity.getSimpleTypeName() + ">()";
+		FieldMetadataBuilder fieldBuilder = new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("cache"), cacheType, fieldInitializer);
+		return fieldBuilder.build();
+	}
+	
+	/**
+	 * Generates the setCache method of a controller, which Spring calls with a new instance of
+	 * the prototype EntityCache bean when the controller is created. Without that bean the
+	 * controller keeps its initial cache.
+	 * 
+	 * @param JavaType entity
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getSetCacheMethodForControllerClass(JavaType entity, String declaredByMetadataId) {
+		JavaType cacheType = new JavaType(getEntityCacheType().getFullyQualifiedTypeName(), 0, DataType.TYPE, null, Arrays.asList(entity));
+		
+		List<AnnotationAttributeValue<?>> autowiredAttributes = new ArrayList<AnnotationAttributeValue<?>>();
+		autowiredAttributes.add(new BooleanAttributeValue(new JavaSymbolName("required"), false));
+		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
+		annotations.add(new AnnotationMetadataBuilder(new JavaType("org.springframework.beans.factory.annotation.Autowired"), autowiredAttributes));
+		
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(cacheType, null));
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("cache"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("this.cache = cache;");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, new JavaSymbolName("setCache"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		methodBuilder.setAnnotations(annotations);
+		
+		return methodBuilder.build();
 	}
 	
 	/**
@@ -416,7 +1600,7 @@ public class RichclientOperationsImpl implements RichclientOperations {
 	 * @return new MethodMetadata
 	 */
 	private MethodMetadata getCreateMethodForControllerClass(JavaType entity, String declaredByMetadataId){
-		JavaType eventType = new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".events.Create" + entity.getSimpleTypeName() + "Event");
+		JavaType eventType = new JavaType(getTopLevelPackage() + ".events.Create" + entity.getSimpleTypeName() + "Event");
 		String eventName = uncapitalize(eventType.getSimpleTypeName());
 
 		// Specify the desired method name
@@ -438,7 +1622,7 @@ public class RichclientOperationsImpl implements RichclientOperations {
 
 		// Create the method body
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine(eventName + ".get" + entity.getSimpleTypeName() + "()." + "persist();");
+		appendDispatch(bodyBuilder, "CREATE", entity, eventName + ".get" + entity.getSimpleTypeName() + "()", uncapitalize(entity.getSimpleTypeName()) + ".persist();");
 
 		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
 		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
@@ -448,14 +1632,17 @@ public class RichclientOperationsImpl implements RichclientOperations {
 	}
 	
 	/**
-	 * Generates a delete method for a controller.
+	 * Generates a delete method for a controller. In write-behind mode a pending update of the
+	 * entity is discarded, as it must not be written after the entity has been removed. The
+	 * entity is evicted from the cache when the event arrives and once it has been removed.
 	 * 
 	 * @param JavaType entity
 	 * @param String declaredByMetadataId
+	 * @param boolean writeBehind
 	 * @return new MethodMetadata
 	 */
-	private MethodMetadata getDeleteMethodForControllerClass(JavaType entity, String declaredByMetadataId){
-		JavaType eventType = new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".events.Delete" + entity.getSimpleTypeName() + "Event");
+	private MethodMetadata getDeleteMethodForControllerClass(JavaType entity, String declaredByMetadataId, boolean writeBehind){
+		JavaType eventType = new JavaType(getTopLevelPackage() + ".events.Delete" + entity.getSimpleTypeName() + "Event");
 		String eventName = uncapitalize(eventType.getSimpleTypeName());
 
 		// Specify the desired method name
@@ -469,121 +1656,1081 @@ public class RichclientOperationsImpl implements RichclientOperations {
 //		}
 		
 		// Define method annotations
-		List<AnnotationAttributeValue<?>> eventBusAttributes = new ArrayList<AnnotationAttributeValue<?>>();
-		eventBusAttributes.add(new ClassAttributeValue(new JavaSymbolName("eventClass"), eventType));
+		List<AnnotationAttributeValue<?>> eventBusAttributes = new ArrayList<AnnotationAttributeValue<?>>();
+		eventBusAttributes.add(new ClassAttributeValue(new JavaSymbolName("eventClass"), eventType));
+		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
+		annotations.add(new AnnotationMetadataBuilder(new JavaType("org.bushe.swing.event.annotation.EventSubscriber"), eventBusAttributes));
+
+		// Define method parameter types
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(eventType, null));
+		
+		// Define method parameter names
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName(eventName));
+
+		// Create the method body
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		if (writeBehind) {
+			bodyBuilder.appendFormalLine("UpdateBatcher.discard(" + entity.getSimpleTypeName() + ".class, " + eventName + ".get" + entity.getSimpleTypeName() + "().getId());");
+		}
+		bodyBuilder.appendFormalLine("cache.invalidate(" + eventName + ".get" + entity.getSimpleTypeName() + "().getId());");
+		appendDispatch(bodyBuilder, "DELETE", entity, eventName + ".get" + entity.getSimpleTypeName() + "()", uncapitalize(entity.getSimpleTypeName()) + ".remove();", "cache.invalidate(" + uncapitalize(entity.getSimpleTypeName()) + ".getId());");
+
+		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		methodBuilder.setAnnotations(annotations);
+
+		return methodBuilder.build(); // Build and return a MethodMetadata instance
+	}
+	
+	/**
+	 * Generates an update method for a controller. In write-behind mode the merge is handed to the
+	 * UpdateBatcher, unless the entity has not been persisted yet: its create is still queued on
+	 * the CrudDispatcher then, so the update is queued behind it. The entity is evicted from the
+	 * cache when the event arrives and once it has been merged.
+	 * 
+	 * @param JavaType entity
+	 * @param String declaredByMetadataId
+	 * @param boolean writeBehind
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getUpdateMethodForControllerClass(JavaType entity, String declaredByMetadataId, boolean writeBehind){
+		JavaType eventType = new JavaType(getTopLevelPackage() + ".events.Update" + entity.getSimpleTypeName() + "Event");
+		String eventName = uncapitalize(eventType.getSimpleTypeName());
+
+		// Specify the desired method name
+		JavaSymbolName methodName = new JavaSymbolName("update");
+		
+		// Check if a method with the same signature already exists in the target type
+//		MethodMetadata method = methodExists(methodName, new ArrayList<AnnotatedJavaType>());
+//		if (method != null) {
+//			// If it already exists, just return the method and omit its generation via the ITD
+//			return method;
+//		}
+		
+		// Define method annotations
+		List<AnnotationAttributeValue<?>> eventBusAttributes = new ArrayList<AnnotationAttributeValue<?>>();
+		eventBusAttributes.add(new ClassAttributeValue(new JavaSymbolName("eventClass"), eventType));
+		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
+		annotations.add(new AnnotationMetadataBuilder(new JavaType("org.bushe.swing.event.annotation.EventSubscriber"), eventBusAttributes));
+
+		// Define method parameter types
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(eventType, null));
+		
+		// Define method parameter names
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName(eventName));
+
+		// Create the method body
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		if (writeBehind) {
+			appendScheduleUpdate(bodyBuilder, entity, eventName + ".get" + entity.getSimpleTypeName() + "()");
+		} else {
+			bodyBuilder.appendFormalLine("cache.invalidate(" + eventName + ".get" + entity.getSimpleTypeName() + "().getId());");
+			appendDispatch(bodyBuilder, "UPDATE", entity, eventName + ".get" + entity.getSimpleTypeName() + "()", uncapitalize(entity.getSimpleTypeName()) + ".merge();", "cache.invalidate(" + uncapitalize(entity.getSimpleTypeName()) + ".getId());");
+		}
+
+		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		methodBuilder.setAnnotations(annotations);
+
+		return methodBuilder.build(); // Build and return a MethodMetadata instance
+	}
+	
+	/**
+	 * Generates a read method for a controller. The entity is served from the cache of the
+	 * controller if it has been loaded before, it is loaded on the CrudDispatcher otherwise.
+	 * 
+	 * @param JavaType entity
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getReadMethodForControllerClass(JavaType entity, String declaredByMetadataId){
+		
+		JavaType eventType = new JavaType(getTopLevelPackage() + ".events.Read" + entity.getSimpleTypeName() + "Event");
+		String eventName = uncapitalize(eventType.getSimpleTypeName());
+
+		// Specify the desired method name
+		JavaSymbolName methodName = new JavaSymbolName("read");
+		
+		// Check if a method with the same signature already exists in the target type
+//		MethodMetadata method = methodExists(methodName, new ArrayList<AnnotatedJavaType>());
+//		if (method != null) {
+//			// If it already exists, just return the method and omit its generation via the ITD
+//			return method;
+//		}
+		
+		// Define method annotations
+		List<AnnotationAttributeValue<?>> eventBusAttributes = new ArrayList<AnnotationAttributeValue<?>>();
+		eventBusAttributes.add(new ClassAttributeValue(new JavaSymbolName("eventClass"), eventType));
+		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
+		annotations.add(new AnnotationMetadataBuilder(new JavaType("org.bushe.swing.event.annotation.EventSubscriber"), eventBusAttributes));
+
+		// Define method parameter types
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(eventType, null));
+		
+		// Define method parameter names
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName(eventName));
+
+		// Create the method body
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		appendCachedRead(bodyBuilder, entity, eventName + ".get" + entity.getSimpleTypeName() + "()");
+
+		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		methodBuilder.setAnnotations(annotations);
+
+		return methodBuilder.build(); // Build and return a MethodMetadata instance
+	}
+
+	/**
+	 * Generates the method a controller handles the generic CRUD events of its entity with. The
+	 * controller subscribes to the topic of its entity only, so the EventBus does not dispatch
+	 * the events of other entities to it. The operation itself runs on the CrudDispatcher, in
+	 * write-behind mode updates of persisted entities are handed to the UpdateBatcher instead.
+	 * Reads are served from the cache of the controller, updates and deletes evict from it.
+	 * 
+	 * @param JavaType entity
+	 * @param String declaredByMetadataId
+	 * @param boolean writeBehind
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getCrudEventMethodForControllerClass(JavaType entity, String declaredByMetadataId, boolean writeBehind){
+		JavaType eventType = new JavaType(getCrudEventType().getFullyQualifiedTypeName(), 0, DataType.TYPE, null, Arrays.asList(entity));
+		String entityName = entity.getSimpleTypeName();
+		
+		// Specify the desired method name
+		JavaSymbolName methodName = new JavaSymbolName("onCrudEvent");
+		
+		// Define method annotations
+		List<AnnotationAttributeValue<?>> eventBusAttributes = new ArrayList<AnnotationAttributeValue<?>>();
+		eventBusAttributes.add(new StringAttributeValue(new JavaSymbolName("topic"), entity.getFullyQualifiedTypeName()));
+		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
+		annotations.add(new AnnotationMetadataBuilder(new JavaType("org.bushe.swing.event.annotation.EventTopicSubscriber"), eventBusAttributes));
+		
+		// Define method parameter types
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(JavaType.STRING_OBJECT, null));
+		parameterTypes.add(new AnnotatedJavaType(eventType, null));
+		
+		// Define method parameter names
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("topic"));
+		parameterNames.add(new JavaSymbolName("crudEvent"));
+		
+		// Create the method body
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("if (crudEvent.getOperation() == CrudOperation.READ) {");
+		bodyBuilder.indent();
+		appendCachedRead(bodyBuilder, entity, "crudEvent.getEntity()");
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		if (writeBehind) {
+			bodyBuilder.appendFormalLine("if (crudEvent.getOperation() == CrudOperation.UPDATE) {");
+			bodyBuilder.indent();
+			appendScheduleUpdate(bodyBuilder, entity, "crudEvent.getEntity()");
+			bodyBuilder.appendFormalLine("return;");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+			bodyBuilder.appendFormalLine("if (crudEvent.getOperation() == CrudOperation.DELETE) {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine("UpdateBatcher.discard(" + entity.getSimpleTypeName() + ".class, crudEvent.getEntity().getId());");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+		}
+		bodyBuilder.appendFormalLine("if (crudEvent.getOperation() == CrudOperation.UPDATE || crudEvent.getOperation() == CrudOperation.DELETE) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("cache.invalidate(crudEvent.getEntity().getId());");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("final CrudEvent<" + entityName + "> event = crudEvent;");
+		bodyBuilder.appendFormalLine("CrudDispatcher.dispatch(event.getOperation().name(), event.getEntity(), new Runnable() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public void run() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("switch (event.getOperation()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("case CREATE:");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("event.getEntity().persist();");
+		bodyBuilder.appendFormalLine("break;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("case UPDATE:");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("event.getEntity().merge();");
+		bodyBuilder.appendFormalLine("cache.invalidate(event.getEntity().getId());");
+		bodyBuilder.appendFormalLine("break;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("case DELETE:");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("event.getEntity().remove();");
+		bodyBuilder.appendFormalLine("cache.invalidate(event.getEntity().getId());");
+		bodyBuilder.appendFormalLine("break;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("});");
+		
+		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		methodBuilder.setAnnotations(annotations);
+		
+		return methodBuilder.build(); // Build and return a MethodMetadata instance
+	}
+	
+	/**
+	 * Generates the CRUD types shared by all entities. The CrudDispatcher and its result event
+	 * are used in both event modes, as is the EntityCache of the controllers, the generic event
+	 * types are deleted if the events of every entity are used, the UpdateBatcher is deleted
+	 * unless the write-behind mode is used.
+	 * 
+	 * @param EventMode events
+	 * @param boolean writeBehind
+	 * @param boolean regenerate true if existing types have to be regenerated
+	 */
+	private void writeCrudEventTypes(EventMode events, boolean writeBehind, boolean regenerate) {
+		List<JavaType> types = new ArrayList<JavaType>();
+		types.add(getCrudOperationType());
+		types.add(getCrudEventType());
+		types.add(getCrudListenerType());
+		types.add(getCrudDispatcherType());
+		types.add(getCrudResultEventType());
+		types.add(getUpdateBatcherType());
+		types.add(getEntityCacheType());
+		
+		for (JavaType type : types) {
+			String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(type, Path.SRC_MAIN_JAVA);
+			boolean shared = type.equals(getCrudDispatcherType()) || type.equals(getCrudResultEventType()) || type.equals(getEntityCacheType());
+			boolean unused = type.equals(getUpdateBatcherType()) ? !writeBehind : events == EventMode.PER_ENTITY && !shared;
+			if (unused) {
+				if (fileManager.exists(resourceIdentifier)) {
+					fileManager.delete(resourceIdentifier);
+				}
+				continue;
+			}
+			if (!regenerate && fileManager.exists(resourceIdentifier)) {
+				continue;
+			}
+			
+			String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(type, projectOperations.getPathResolver().getPath(resourceIdentifier));
+			ClassOrInterfaceTypeDetails typeDetails;
+			if (type.equals(getCrudOperationType())) {
+				typeDetails = getCrudOperationEnum(declaredByMetadataId);
+			} else if (type.equals(getCrudEventType())) {
+				typeDetails = getCrudEventClass(declaredByMetadataId);
+			} else if (type.equals(getCrudDispatcherType())) {
+				typeDetails = getCrudDispatcherClass(declaredByMetadataId);
+			} else if (type.equals(getCrudResultEventType())) {
+				typeDetails = getCrudResultEventClass(declaredByMetadataId);
+			} else if (type.equals(getUpdateBatcherType())) {
+				typeDetails = getUpdateBatcherClass(declaredByMetadataId);
+			} else if (type.equals(getEntityCacheType())) {
+				typeDetails = getEntityCacheClass(declaredByMetadataId);
+			} else {
+				typeDetails = getCrudListenerClass(declaredByMetadataId);
+			}
+			
+			long start = System.nanoTime();
+			typeManagementService.generateClassFile(typeDetails);
+			profiler.recordFilesWritten(1);
+			profiler.recordPhase("file write", start);
+		}
+	}
+	
+	/**
+	 * Registers the prototype bean every controller gets its EntityCache from. Its size and time
+	 * to live are placeholders of the properties richclient.cache.size and richclient.cache.ttl,
+	 * which the property-placeholder of Roo looks up in the properties files and the system
+	 * properties, with the defaults of EntityCache as fallback. A bean tuned in
+	 * applicationContext.xml is kept.
+	 */
+	private void installEntityCacheBean() {
+		Map<String, String> properties = new LinkedHashMap<String, String>();
+		properties.put("maxSize", "${richclient.cache.size:100}");
+		properties.put("ttl", "${richclient.cache.ttl:60000}");
+		contextSession.installPrototypeBean(getEntityCacheType(), properties);
+	}
+	
+	private JavaType getCrudOperationType() {
+		return new JavaType(getTopLevelPackage() + ".events.CrudOperation");
+	}
+	
+	private JavaType getCrudEventType() {
+		return new JavaType(getTopLevelPackage() + ".events.CrudEvent");
+	}
+	
+	private JavaType getCrudListenerType() {
+		return new JavaType(getTopLevelPackage() + ".listeners.CrudListener");
+	}
+	
+	private JavaType getCrudDispatcherType() {
+		return new JavaType(getTopLevelPackage() + ".events.CrudDispatcher");
+	}
+	
+	private JavaType getCrudResultEventType() {
+		return new JavaType(getTopLevelPackage() + ".events.CrudResultEvent");
+	}
+	
+	private JavaType getUpdateBatcherType() {
+		return new JavaType(getTopLevelPackage() + ".events.UpdateBatcher");
+	}
+	
+	private JavaType getEntityCacheType() {
+		return new JavaType(getTopLevelPackage() + ".events.EntityCache");
+	}
+	
+	/**
+	 * @return the type variable of the generic CRUD event types
+	 */
+	private JavaType getEntityTypeVariable() {
+		return new JavaType("T", 0, DataType.VARIABLE, null, null);
+	}
+	
+	/**
+	 * Generates the enum of the CRUD operations a generic event stands for.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new ClassOrInterfaceTypeDetails
+	 */
+	private ClassOrInterfaceTypeDetails getCrudOperationEnum(String declaredByMetadataId) {
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, getCrudOperationType(), PhysicalTypeCategory.ENUMERATION);
+		typeDetailsBuilder.addEnumConstant(new JavaSymbolName("CREATE"));
+		typeDetailsBuilder.addEnumConstant(new JavaSymbolName("READ"));
+		typeDetailsBuilder.addEnumConstant(new JavaSymbolName("UPDATE"));
+		typeDetailsBuilder.addEnumConstant(new JavaSymbolName("DELETE"));
+		
+		return typeDetailsBuilder.build();
+	}
+	
+	/**
+	 * Generates the event class CrudEvent<T> that carries an entity and the CRUD operation to perform on it.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new ClassOrInterfaceTypeDetails
+	 */
+	private ClassOrInterfaceTypeDetails getCrudEventClass(String declaredByMetadataId) {
+		JavaType crudEvent = new JavaType(getCrudEventType().getFullyQualifiedTypeName(), 0, DataType.TYPE, null, Arrays.asList(getEntityTypeVariable()));
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, crudEvent, PhysicalTypeCategory.CLASS);
+		
+		Map<JavaSymbolName, JavaType> fields = new LinkedHashMap<JavaSymbolName, JavaType>();
+		fields.put(new JavaSymbolName("operation"), getCrudOperationType());
+		fields.put(new JavaSymbolName("entity"), getEntityTypeVariable());
+		
+		for (Map.Entry<JavaSymbolName, JavaType> field : fields.entrySet()) {
+			typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, field.getKey(), field.getValue(), null).build());
+			typeDetailsBuilder.addMethod(getGetterMethod(declaredByMetadataId, field.getKey(), field.getValue()));
+		}
+		typeDetailsBuilder.addConstructor(getConstructorForFields(declaredByMetadataId, fields));
+		
+		return typeDetailsBuilder.build();
+	}
+	
+	/**
+	 * Generates the listener class CrudListener<T> that publishes a CrudEvent on the topic of its
+	 * entity type. One instance is created for every action a view offers on an entity.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new ClassOrInterfaceTypeDetails
+	 */
+	private ClassOrInterfaceTypeDetails getCrudListenerClass(String declaredByMetadataId) {
+		JavaType crudListener = new JavaType(getCrudListenerType().getFullyQualifiedTypeName(), 0, DataType.TYPE, null, Arrays.asList(getEntityTypeVariable()));
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, crudListener, PhysicalTypeCategory.CLASS);
+		typeDetailsBuilder.addImplementsType(new JavaType("java.awt.event.ActionListener"));
+		
+		Map<JavaSymbolName, JavaType> fields = new LinkedHashMap<JavaSymbolName, JavaType>();
+		fields.put(new JavaSymbolName("entityType"), new JavaType("java.lang.Class", 0, DataType.TYPE, null, Arrays.asList(getEntityTypeVariable())));
+		fields.put(new JavaSymbolName("operation"), getCrudOperationType());
+		fields.put(new JavaSymbolName("entity"), getEntityTypeVariable());
+		
+		for (Map.Entry<JavaSymbolName, JavaType> field : fields.entrySet()) {
+			typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, field.getKey(), field.getValue(), null).build());
+		}
+		typeDetailsBuilder.addConstructor(getConstructorForFields(declaredByMetadataId, fields));
+		
+		// Define method annotations
 		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
-		annotations.add(new AnnotationMetadataBuilder(new JavaType("org.bushe.swing.event.annotation.EventSubscriber"), eventBusAttributes));
-
+		annotations.add(new AnnotationMetadataBuilder(new JavaType("java.lang.Override")));
+		
 		// Define method parameter types
 		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
-		parameterTypes.add(new AnnotatedJavaType(eventType, null));
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.awt.event.ActionEvent"), null));
 		
 		// Define method parameter names
 		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
-		parameterNames.add(new JavaSymbolName(eventName));
-
+		parameterNames.add(new JavaSymbolName("e"));
+		
 		// Create the method body
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine(eventName + ".get" + entity.getSimpleTypeName() + "()." + "remove();");
-
-		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
-		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		bodyBuilder.appendFormalLine("EventBus.publish(entityType.getName(), new CrudEvent<T>(operation, entity));");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, new JavaSymbolName("actionPerformed"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
 		methodBuilder.setAnnotations(annotations);
-
-		return methodBuilder.build(); // Build and return a MethodMetadata instance
+		typeDetailsBuilder.addMethod(methodBuilder.build());
+		
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("org.bushe.swing.event.EventBus")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, getCrudEventType()));
+		
+		return typeDetailsBuilder.build();
 	}
 	
 	/**
-	 * Generates an update method for a controller.
+	 * Generates the CrudDispatcher class, which runs the CRUD operations of the controllers off
+	 * the event dispatch thread. The operations on one entity instance are queued and run one
+	 * after the other, operations on different instances run in parallel on the executor. The
+	 * executor is a fixed pool of daemon threads, sized by the system property
+	 * richclient.crud.threads, and can be replaced with setExecutor, e.g. with an executor of
+	 * virtual threads. Every finished operation is reported with a CrudResultEvent, which the
+	 * EventBus delivers on the event dispatch thread. It carries the entity the operation has
+	 * been dispatched for, or the result of the operation if it is given as a Callable.
 	 * 
-	 * @param JavaType entity
 	 * @param String declaredByMetadataId
-	 * @return new MethodMetadata
+	 * @return new ClassOrInterfaceTypeDetails
 	 */
-	private MethodMetadata getUpdateMethodForControllerClass(JavaType entity, String declaredByMetadataId){
-		JavaType eventType = new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".events.Update" + entity.getSimpleTypeName() + "Event");
-		String eventName = uncapitalize(eventType.getSimpleTypeName());
-
-		// Specify the desired method name
-		JavaSymbolName methodName = new JavaSymbolName("update");
+	private ClassOrInterfaceTypeDetails getCrudDispatcherClass(String declaredByMetadataId) {
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.FINAL, getCrudDispatcherType(), PhysicalTypeCategory.CLASS);
+		JavaType executorService = new JavaType("java.util.concurrent.ExecutorService");
+		JavaType object = new JavaType("java.lang.Object");
+		JavaType runnable = new JavaType("java.lang.Runnable");
+		JavaType callable = new JavaType("java.util.concurrent.Callable", 0, DataType.TYPE, null, Arrays.asList(new JavaType("java.lang.Object", 0, DataType.TYPE, JavaType.WILDCARD_NEG, null)));
+		JavaType queue = new JavaType("java.util.LinkedList", 0, DataType.TYPE, null, Arrays.asList(runnable));
+		JavaType queues = new JavaType("java.util.Map", 0, DataType.TYPE, null, Arrays.asList(object, queue));
+		
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL, new JavaSymbolName("DEFAULT_THREADS"), JavaType.INT_PRIMITIVE, "4").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC | Modifier.VOLATILE, new JavaSymbolName("executor"), executorService, "Executors.newFixedThreadPool(Integer.getInteger(\"richclient.crud.threads\", DEFAULT_THREADS), new ThreadFactory() { "
+			+ "public Thread newThread(Runnable runnable) { Thread thread = new Thread(runnable, \"CrudDispatcher\"); thread.setDaemon(true); return thread; } })").build());
+		// Identity keys, so that every entity instance gets its own queue whatever its equals method does
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL, new JavaSymbolName("queues"), queues, "new IdentityHashMap<Object, LinkedList<Runnable>>()").build());
 		
-		// Check if a method with the same signature already exists in the target type
-//		MethodMetadata method = methodExists(methodName, new ArrayList<AnnotatedJavaType>());
-//		if (method != null) {
-//			// If it already exists, just return the method and omit its generation via the ITD
-//			return method;
-//		}
+		ConstructorMetadataBuilder constructorBuilder = new ConstructorMetadataBuilder(declaredByMetadataId);
+		constructorBuilder.setModifier(Modifier.PRIVATE);
+		constructorBuilder.setBodyBuilder(new InvocableMemberBodyBuilder());
+		typeDetailsBuilder.addConstructor(constructorBuilder.build());
 		
-		// Define method annotations
-		List<AnnotationAttributeValue<?>> eventBusAttributes = new ArrayList<AnnotationAttributeValue<?>>();
-		eventBusAttributes.add(new ClassAttributeValue(new JavaSymbolName("eventClass"), eventType));
-		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
-		annotations.add(new AnnotationMetadataBuilder(new JavaType("org.bushe.swing.event.annotation.EventSubscriber"), eventBusAttributes));
-
-		// Define method parameter types
+		// setExecutor
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("CrudDispatcher.executor = executor;");
 		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
-		parameterTypes.add(new AnnotatedJavaType(eventType, null));
+		parameterTypes.add(new AnnotatedJavaType(executorService, null));
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("executor"));
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC, new JavaSymbolName("setExecutor"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder).build());
+		
+		// dispatch, reporting the entity
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("dispatch(operation, entity, Executors.callable(task, entity));");
+		parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(JavaType.STRING_OBJECT, null));
+		parameterTypes.add(new AnnotatedJavaType(object, null));
+		parameterTypes.add(new AnnotatedJavaType(runnable, null));
+		parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("operation"));
+		parameterNames.add(new JavaSymbolName("entity"));
+		parameterNames.add(new JavaSymbolName("task"));
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC, new JavaSymbolName("dispatch"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder).build());
+		
+		// dispatch, reporting the result
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("final String finalOperation = operation;");
+		bodyBuilder.appendFormalLine("final Object finalEntity = entity;");
+		bodyBuilder.appendFormalLine("final Callable<?> finalTask = task;");
+		bodyBuilder.appendFormalLine("Runnable work = new Runnable() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public void run() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("Object result = finalEntity;");
+		bodyBuilder.appendFormalLine("Throwable error = null;");
+		bodyBuilder.appendFormalLine("try {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("result = finalTask.call();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} catch (Exception e) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("error = e;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("EventBus.publish(new CrudResultEvent(finalOperation, result, error));");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("};");
+		bodyBuilder.appendFormalLine("synchronized (queues) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("LinkedList<Runnable> queue = queues.get(entity);");
+		bodyBuilder.appendFormalLine("if (queue != null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("// The operations of the entity are being drained already");
+		bodyBuilder.appendFormalLine("queue.add(work);");
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("queue = new LinkedList<Runnable>();");
+		bodyBuilder.appendFormalLine("queue.add(work);");
+		bodyBuilder.appendFormalLine("queues.put(entity, queue);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("executor.execute(new Runnable() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public void run() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("drain(finalEntity);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("});");
+		parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(JavaType.STRING_OBJECT, null));
+		parameterTypes.add(new AnnotatedJavaType(object, null));
+		parameterTypes.add(new AnnotatedJavaType(callable, null));
+		parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("operation"));
+		parameterNames.add(new JavaSymbolName("entity"));
+		parameterNames.add(new JavaSymbolName("task"));
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC, new JavaSymbolName("dispatch"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder).build());
+		
+		// drain
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("LinkedList<Runnable> queue;");
+		bodyBuilder.appendFormalLine("synchronized (queues) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("queue = queues.get(entity);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("final Object finalEntity = entity;");
+		bodyBuilder.appendFormalLine("boolean drained = false;");
+		bodyBuilder.appendFormalLine("try {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("while (!drained) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("Runnable work;");
+		bodyBuilder.appendFormalLine("synchronized (queues) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("work = queue.getFirst();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("try {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("work.run();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} finally {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("synchronized (queues) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("queue.removeFirst();");
+		bodyBuilder.appendFormalLine("if (queue.isEmpty()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("queues.remove(entity);");
+		bodyBuilder.appendFormalLine("drained = true;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} finally {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (!drained) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("// An Error escaped the operation, the remaining operations are drained by a new task");
+		bodyBuilder.appendFormalLine("executor.execute(new Runnable() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public void run() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("drain(finalEntity);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("});");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(object, null));
+		parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("entity"));
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC, new JavaSymbolName("drain"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder).build());
+		
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.IdentityHashMap")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.LinkedList")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.Map")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.concurrent.Callable")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, executorService));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.concurrent.Executors")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.concurrent.ThreadFactory")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("org.bushe.swing.event.EventBus")));
+		
+		return typeDetailsBuilder.build();
+	}
+	
+	/**
+	 * Generates the UpdateBatcher class of the write-behind mode. It collects the updates of the
+	 * controllers and writes them together once the window given by the system property
+	 * richclient.writebehind.window (in milliseconds) has passed since the first of them.
+	 * Repeated updates of an entity within the window are coalesced by its type and id, so that
+	 * only the last scheduled merge of the entity is written, even if it has been scheduled for
+	 * different instances. The merges are written in the order they have been scheduled last.
+	 * All merges of a window run in one transaction, so the JPA provider flushes them at once and
+	 * can send them as a JDBC batch if its batch size is configured. Every written entity is
+	 * reported with a CrudResultEvent. The batches are written under WRITE_LOCK, so that flush
+	 * returns only after a batch the flusher thread is writing meanwhile has been written, and
+	 * the flush of the shutdown hook does not let the JVM exit in the middle of a write.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new ClassOrInterfaceTypeDetails
+	 */
+	private ClassOrInterfaceTypeDetails getUpdateBatcherClass(String declaredByMetadataId) {
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.FINAL, getUpdateBatcherType(), PhysicalTypeCategory.CLASS);
+		JavaType object = new JavaType("java.lang.Object");
+		JavaType runnable = new JavaType("java.lang.Runnable");
+		JavaType wildcard = new JavaType("java.lang.Object", 0, DataType.TYPE, JavaType.WILDCARD_NEG, null);
+		
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL, new JavaSymbolName("DEFAULT_WINDOW"), JavaType.LONG_PRIMITIVE, "200").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL, new JavaSymbolName("WINDOW"), JavaType.LONG_PRIMITIVE, "Long.getLong(\"richclient.writebehind.window\", DEFAULT_WINDOW)").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL, new JavaSymbolName("WRITE_LOCK"), object, "new Object()").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL, new JavaSymbolName("FLUSHER"), new JavaType("java.util.concurrent.ScheduledExecutorService"), "Executors.newSingleThreadScheduledExecutor(new ThreadFactory() { "
+			+ "public Thread newThread(Runnable runnable) { Thread thread = new Thread(runnable, \"UpdateBatcher\"); thread.setDaemon(true); return thread; } })").build());
+		JavaType key = new JavaType("java.util.List", 0, DataType.TYPE, null, Arrays.asList(object));
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL, new JavaSymbolName("pending"), new JavaType("java.util.Map", 0, DataType.TYPE, null, Arrays.asList(key, object)), "new LinkedHashMap<List<Object>, Object>()").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL, new JavaSymbolName("merges"), new JavaType("java.util.Map", 0, DataType.TYPE, null, Arrays.asList(key, runnable)), "new LinkedHashMap<List<Object>, Runnable>()").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC, new JavaSymbolName("scheduledFlush"), new JavaType("java.util.concurrent.ScheduledFuture", 0, DataType.TYPE, null, Arrays.asList(wildcard)), null).build());
 		
-		// Define method parameter names
+		ConstructorMetadataBuilder constructorBuilder = new ConstructorMetadataBuilder(declaredByMetadataId);
+		constructorBuilder.setModifier(Modifier.PRIVATE);
+		constructorBuilder.setBodyBuilder(new InvocableMemberBodyBuilder());
+		typeDetailsBuilder.addConstructor(constructorBuilder.build());
+		
+		// schedule
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("List<Object> key = Arrays.<Object>asList(entityType, id);");
+		bodyBuilder.appendFormalLine("synchronized (pending) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("// The last scheduled merge of an entity replaces the former one and moves to the end");
+		bodyBuilder.appendFormalLine("pending.remove(key);");
+		bodyBuilder.appendFormalLine("merges.remove(key);");
+		bodyBuilder.appendFormalLine("pending.put(key, entity);");
+		bodyBuilder.appendFormalLine("merges.put(key, merge);");
+		bodyBuilder.appendFormalLine("if (scheduledFlush == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("scheduledFlush = FLUSHER.schedule(new Runnable() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public void run() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("flush();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}, WINDOW, TimeUnit.MILLISECONDS);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		JavaType entityType = new JavaType("java.lang.Class", 0, DataType.TYPE, null, Arrays.asList(wildcard));
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(entityType, null));
+		parameterTypes.add(new AnnotatedJavaType(object, null));
+		parameterTypes.add(new AnnotatedJavaType(object, null));
+		parameterTypes.add(new AnnotatedJavaType(runnable, null));
 		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
-		parameterNames.add(new JavaSymbolName(eventName));
-
-		// Create the method body
+		parameterNames.add(new JavaSymbolName("entityType"));
+		parameterNames.add(new JavaSymbolName("id"));
+		parameterNames.add(new JavaSymbolName("entity"));
+		parameterNames.add(new JavaSymbolName("merge"));
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC, new JavaSymbolName("schedule"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder).build());
+		
+		// discard
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("List<Object> key = Arrays.<Object>asList(entityType, id);");
+		bodyBuilder.appendFormalLine("synchronized (pending) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("pending.remove(key);");
+		bodyBuilder.appendFormalLine("merges.remove(key);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(entityType, null));
+		parameterTypes.add(new AnnotatedJavaType(object, null));
+		parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("entityType"));
+		parameterNames.add(new JavaSymbolName("id"));
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC, new JavaSymbolName("discard"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder).build());
+		
+		// flush
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("List<Object> entities;");
+		bodyBuilder.appendFormalLine("Throwable error = null;");
+		bodyBuilder.appendFormalLine("synchronized (WRITE_LOCK) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("// Waits for a batch that is written meanwhile");
+		bodyBuilder.appendFormalLine("List<Runnable> batch;");
+		bodyBuilder.appendFormalLine("synchronized (pending) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (scheduledFlush != null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("scheduledFlush.cancel(false);");
+		bodyBuilder.appendFormalLine("scheduledFlush = null;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("if (pending.isEmpty()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("entities = new ArrayList<Object>(pending.values());");
+		bodyBuilder.appendFormalLine("batch = new ArrayList<Runnable>(merges.values());");
+		bodyBuilder.appendFormalLine("pending.clear();");
+		bodyBuilder.appendFormalLine("merges.clear();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("try {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("write(batch);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} catch (RuntimeException e) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("error = e;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("for (Object entity : entities) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("EventBus.publish(new CrudResultEvent(\"UPDATE\", entity, error));");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC, new JavaSymbolName("flush"), JavaType.VOID_PRIMITIVE, new ArrayList<AnnotatedJavaType>(), new ArrayList<JavaSymbolName>(), bodyBuilder).build());
+		
+		// write, the merges of the entities join its transaction
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("for (Runnable merge : merges) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("merge.run();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.util.Collection", 0, DataType.TYPE, null, Arrays.asList(runnable)), null));
+		parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("merges"));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC, new JavaSymbolName("write"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		methodBuilder.addAnnotation(new AnnotationMetadataBuilder(new JavaType("org.springframework.transaction.annotation.Transactional")));
+		typeDetailsBuilder.addMethod(methodBuilder.build());
+		
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.ArrayList")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.Arrays")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.Collection")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.LinkedHashMap")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.List")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.Map")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.concurrent.Executors")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.concurrent.ScheduledExecutorService")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.concurrent.ScheduledFuture")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.concurrent.ThreadFactory")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.concurrent.TimeUnit")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("org.bushe.swing.event.EventBus")));
+		
+		return typeDetailsBuilder.build();
+	}
+	
+	/**
+	 * Generates the EntityCache<T> class, which keeps the entities a controller has loaded by
+	 * their id. It holds at most maxSize entities and evicts the least recently used one beyond
+	 * that, an entity expires ttl milliseconds after it has been loaded. Both are properties of
+	 * the EntityCache bean, the system properties richclient.cache.size and richclient.cache.ttl
+	 * are the defaults of a cache created without it. A size of 0 disables the cache. Every invalidation of an id increases the version of
+	 * the cache. A read takes the version before it loads the entity, and its put is dropped if the
+	 * id has been invalidated since, so that a read that overlaps a merge or remove never caches
+	 * the former state, whichever controller or entity instance the operations come from. The
+	 * versions of the last MAX_VERSIONS invalidated ids are kept, puts older than the versions
+	 * dropped beyond that are dropped as well.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new ClassOrInterfaceTypeDetails
+	 */
+	private ClassOrInterfaceTypeDetails getEntityCacheClass(String declaredByMetadataId) {
+		JavaType entityCache = new JavaType(getEntityCacheType().getFullyQualifiedTypeName(), 0, DataType.TYPE, null, Arrays.asList(getEntityTypeVariable()));
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, entityCache, PhysicalTypeCategory.CLASS);
+		JavaType object = new JavaType("java.lang.Object");
+		
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC | Modifier.FINAL, new JavaSymbolName("DEFAULT_SIZE"), JavaType.INT_PRIMITIVE, "100").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC | Modifier.FINAL, new JavaSymbolName("DEFAULT_TTL"), JavaType.LONG_PRIMITIVE, "60000").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL, new JavaSymbolName("MAX_VERSIONS"), JavaType.INT_PRIMITIVE, "1000").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("maxSize"), JavaType.INT_PRIMITIVE, null).build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("ttl"), JavaType.LONG_PRIMITIVE, null).build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.FINAL, new JavaSymbolName("loaded"), new JavaType("java.util.Map", 0, DataType.TYPE, null, Arrays.asList(object, new JavaType("java.lang.Long"))), "new HashMap<Object, Long>()").build());
+		// Access order, so that the eldest entry is the least recently used one
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.FINAL, new JavaSymbolName("entries"), new JavaType("java.util.Map", 0, DataType.TYPE, null, Arrays.asList(object, getEntityTypeVariable())), "new LinkedHashMap<Object, T>(16, 0.75f, true) { "
+			+ "protected boolean removeEldestEntry(Map.Entry<Object, T> eldest) { if (size() <= maxSize) { return false; } loaded.remove(eldest.getKey()); return true; } }").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("version"), JavaType.LONG_PRIMITIVE, "0").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("droppedVersion"), JavaType.LONG_PRIMITIVE, "0").build());
+		// Insertion order, so that the eldest entry is the one with the lowest version
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.FINAL, new JavaSymbolName("versions"), new JavaType("java.util.Map", 0, DataType.TYPE, null, Arrays.asList(object, new JavaType("java.lang.Long"))), "new LinkedHashMap<Object, Long>() { "
+			+ "protected boolean removeEldestEntry(Map.Entry<Object, Long> eldest) { if (size() <= MAX_VERSIONS) { return false; } droppedVersion = eldest.getValue(); return true; } }").build());
+		
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine(eventName + ".get" + entity.getSimpleTypeName() + "()." + "merge();");
-
-		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
-		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
-		methodBuilder.setAnnotations(annotations);
-
-		return methodBuilder.build(); // Build and return a MethodMetadata instance
+		bodyBuilder.appendFormalLine("this(Integer.getInteger(\"richclient.cache.size\", DEFAULT_SIZE), Long.getLong(\"richclient.cache.ttl\", DEFAULT_TTL));");
+		ConstructorMetadataBuilder constructorBuilder = new ConstructorMetadataBuilder(declaredByMetadataId);
+		constructorBuilder.setModifier(Modifier.PUBLIC);
+		constructorBuilder.setBodyBuilder(bodyBuilder);
+		typeDetailsBuilder.addConstructor(constructorBuilder.build());
+		
+		Map<JavaSymbolName, JavaType> fields = new LinkedHashMap<JavaSymbolName, JavaType>();
+		fields.put(new JavaSymbolName("maxSize"), JavaType.INT_PRIMITIVE);
+		fields.put(new JavaSymbolName("ttl"), JavaType.LONG_PRIMITIVE);
+		typeDetailsBuilder.addConstructor(getConstructorForFields(declaredByMetadataId, fields));
+		
+		// get
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("Long loadedAt = loaded.get(id);");
+		bodyBuilder.appendFormalLine("if (loadedAt == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return null;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("if (System.currentTimeMillis() - loadedAt > ttl) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("invalidate(id);");
+		bodyBuilder.appendFormalLine("return null;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("return entries.get(id);");
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(object, null));
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("id"));
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.SYNCHRONIZED, new JavaSymbolName("get"), getEntityTypeVariable(), parameterTypes, parameterNames, bodyBuilder).build());
+		
+		// setMaxSize, setTtl, the properties of the EntityCache bean
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("this.maxSize = maxSize;");
+		parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("maxSize"));
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.SYNCHRONIZED, new JavaSymbolName("setMaxSize"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder).build());
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("this.ttl = ttl;");
+		parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(JavaType.LONG_PRIMITIVE, null));
+		parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("ttl"));
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.SYNCHRONIZED, new JavaSymbolName("setTtl"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder).build());
+		
+		// getVersion
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return version;");
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.SYNCHRONIZED, new JavaSymbolName("getVersion"), JavaType.LONG_PRIMITIVE, new ArrayList<AnnotatedJavaType>(), new ArrayList<JavaSymbolName>(), bodyBuilder).build());
+		
+		// put
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("Long invalidated = versions.get(id);");
+		bodyBuilder.appendFormalLine("if (readVersion < droppedVersion || (invalidated != null && invalidated > readVersion)) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("// The entity may have changed since it has been read");
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("entries.put(id, entity);");
+		bodyBuilder.appendFormalLine("loaded.put(id, System.currentTimeMillis());");
+		parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(object, null));
+		parameterTypes.add(new AnnotatedJavaType(getEntityTypeVariable(), null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.LONG_PRIMITIVE, null));
+		parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("id"));
+		parameterNames.add(new JavaSymbolName("entity"));
+		parameterNames.add(new JavaSymbolName("readVersion"));
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.SYNCHRONIZED, new JavaSymbolName("put"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder).build());
+		
+		// invalidate
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("entries.remove(id);");
+		bodyBuilder.appendFormalLine("loaded.remove(id);");
+		bodyBuilder.appendFormalLine("versions.remove(id);");
+		bodyBuilder.appendFormalLine("versions.put(id, ++version);");
+		parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(object, null));
+		parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("id"));
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.SYNCHRONIZED, new JavaSymbolName("invalidate"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder).build());
+		
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.HashMap")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.LinkedHashMap")));
+		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, new JavaType("java.util.Map")));
+		
+		return typeDetailsBuilder.build();
 	}
 	
 	/**
-	 * Generates a read method for a controller.
+	 * Generates the event class CrudResultEvent, which reports a finished CRUD operation and the
+	 * error it failed with, if any.
 	 * 
-	 * @param JavaType entity
 	 * @param String declaredByMetadataId
-	 * @return new MethodMetadata
+	 * @return new ClassOrInterfaceTypeDetails
 	 */
-	private MethodMetadata getReadMethodForControllerClass(JavaType entity, String declaredByMetadataId){
+	private ClassOrInterfaceTypeDetails getCrudResultEventClass(String declaredByMetadataId) {
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, getCrudResultEventType(), PhysicalTypeCategory.CLASS);
 		
-		JavaType eventType = new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".events.Read" + entity.getSimpleTypeName() + "Event");
-		String eventName = uncapitalize(eventType.getSimpleTypeName());
-
-		// Specify the desired method name
-		JavaSymbolName methodName = new JavaSymbolName("read");
+		Map<JavaSymbolName, JavaType> fields = new LinkedHashMap<JavaSymbolName, JavaType>();
+		fields.put(new JavaSymbolName("operation"), JavaType.STRING_OBJECT);
+		fields.put(new JavaSymbolName("entity"), new JavaType("java.lang.Object"));
+		fields.put(new JavaSymbolName("error"), new JavaType("java.lang.Throwable"));
 		
-		// Check if a method with the same signature already exists in the target type
-//		MethodMetadata method = methodExists(methodName, new ArrayList<AnnotatedJavaType>());
-//		if (method != null) {
-//			// If it already exists, just return the method and omit its generation via the ITD
-//			return method;
-//		}
+		for (Map.Entry<JavaSymbolName, JavaType> field : fields.entrySet()) {
+			typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, field.getKey(), field.getValue(), null).build());
+			typeDetailsBuilder.addMethod(getGetterMethod(declaredByMetadataId, field.getKey(), field.getValue()));
+		}
+		typeDetailsBuilder.addConstructor(getConstructorForFields(declaredByMetadataId, fields));
 		
-		// Define method annotations
-		List<AnnotationAttributeValue<?>> eventBusAttributes = new ArrayList<AnnotationAttributeValue<?>>();
-		eventBusAttributes.add(new ClassAttributeValue(new JavaSymbolName("eventClass"), eventType));
-		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
-		annotations.add(new AnnotationMetadataBuilder(new JavaType("org.bushe.swing.event.annotation.EventSubscriber"), eventBusAttributes));
-
-		// Define method parameter types
-		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
-		parameterTypes.add(new AnnotatedJavaType(eventType, null));
+		return typeDetailsBuilder.build();
+	}
+	
+	/**
+	 * Appends the dispatch of a CRUD operation of the events of every entity to a controller
+	 * method body.
+	 * 
+	 * @param InvocableMemberBodyBuilder bodyBuilder
+	 * @param String operation the name of the operation reported in the CrudResultEvent
+	 * @param JavaType entity
+	 * @param String entityExpression the expression the event carries the entity in
+	 * @param String... statements the operation, referring to the entity by its uncapitalized name
+	 */
+	private void appendDispatch(InvocableMemberBodyBuilder bodyBuilder, String operation, JavaType entity, String entityExpression, String... statements) {
+		String entityName = uncapitalize(entity.getSimpleTypeName());
+		bodyBuilder.appendFormalLine("final " + entity.getSimpleTypeName() + " " + entityName + " = " + entityExpression + ";");
+		bodyBuilder.appendFormalLine("CrudDispatcher.dispatch(\"" + operation + "\", " + entityName + ", new Runnable() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public void run() {");
+		bodyBuilder.indent();
+		for (String statement : statements) {
+			bodyBuilder.appendFormalLine(statement);
+		}
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("});");
+	}
+	
+	/**
+	 * Appends the write-behind update of an entity to a controller method body. Entities without
+	 * an id are still waiting for their create on the CrudDispatcher, so their update is queued
+	 * behind it instead of being batched. The entity is evicted from the cache of the controller
+	 * right away and once it has been merged.
+	 * 
+	 * @param InvocableMemberBodyBuilder bodyBuilder
+	 * @param JavaType entity
+	 * @param String entityExpression the expression the event carries the entity in
+	 */
+	private void appendScheduleUpdate(InvocableMemberBodyBuilder bodyBuilder, JavaType entity, String entityExpression) {
+		String entityName = uncapitalize(entity.getSimpleTypeName());
+		bodyBuilder.appendFormalLine("final " + entity.getSimpleTypeName() + " " + entityName + " = " + entityExpression + ";");
+		bodyBuilder.appendFormalLine("cache.invalidate(" + entityName + ".getId());");
+		bodyBuilder.appendFormalLine("Runnable merge = new Runnable() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public void run() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine(entityName + ".merge();");
+		bodyBuilder.appendFormalLine("cache.invalidate(" + entityName + ".getId());");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("};");
+		bodyBuilder.appendFormalLine("if (" + entityName + ".getId() == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("CrudDispatcher.dispatch(\"UPDATE\", " + entityName + ", merge);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} else {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("UpdateBatcher.schedule(" + entity.getSimpleTypeName() + ".class, " + entityName + ".getId(), " + entityName + ", merge);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+	}
+	
+	/**
+	 * Appends the read of an entity to a controller method body. A cached entity is reported
+	 * with a CrudResultEvent right away, otherwise it is loaded on the CrudDispatcher and put
+	 * into the cache with the cache version taken before the read was dispatched. The
+	 * CrudResultEvent carries the loaded entity then, or null if there is no entity with the id.
+	 * 
+	 * @param InvocableMemberBodyBuilder bodyBuilder
+	 * @param JavaType entity
+	 * @param String entityExpression the expression the event carries the entity in
+	 */
+	private void appendCachedRead(InvocableMemberBodyBuilder bodyBuilder, JavaType entity, String entityExpression) {
+		String entityType = entity.getSimpleTypeName();
+		String entityName = uncapitalize(entityType);
+		bodyBuilder.appendFormalLine("final " + entityType + " " + entityName + " = " + entityExpression + ";");
+		bodyBuilder.appendFormalLine(entityType + " cached = cache.get(" + entityName + ".getId());");
+		bodyBuilder.appendFormalLine("if (cached != null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("EventBus.publish(new CrudResultEvent(\"READ\", cached, null));");
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("final long version = cache.getVersion();");
+		bodyBuilder.appendFormalLine("CrudDispatcher.dispatch(\"READ\", " + entityName + ", new Callable<" + entityType + ">() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public " + entityType + " call() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine(entityType + " found = " + entityType + ".find" + entityType + "(" + entityName + ".getId());");
+		bodyBuilder.appendFormalLine("if (found != null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("cache.put(found.getId(), found, version);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("return found;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("});");
+	}
+	
+	/**
+	 * Generates a constructor that assigns every specified field from a parameter of the same name.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param Map<JavaSymbolName, JavaType> fields
+	 * @return new ConstructorMetadata
+	 */
+	private ConstructorMetadata getConstructorForFields(String declaredByMetadataId, Map<JavaSymbolName, JavaType> fields) {
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		ConstructorMetadataBuilder constructorBuilder = new ConstructorMetadataBuilder(declaredByMetadataId);
+		for (Map.Entry<JavaSymbolName, JavaType> field : fields.entrySet()) {
+			constructorBuilder.addParameterType(new AnnotatedJavaType(field.getValue(), null));
+			constructorBuilder.addParameterName(field.getKey());
+			bodyBuilder.appendFormalLine("this." + field.getKey().getSymbolName() + " = " + field.getKey().getSymbolName() + ";");
+		}
+		constructorBuilder.setModifier(Modifier.PUBLIC);
+		constructorBuilder.setBodyBuilder(bodyBuilder);
+		
+		return constructorBuilder.build();
+	}
+	
+	/**
+	 * Generates a getter for a specified field.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param JavaSymbolName fieldName
+	 * @param JavaType fieldType
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getGetterMethod(String declaredByMetadataId, JavaSymbolName fieldName, JavaType fieldType) {
+		JavaSymbolName methodName = new JavaSymbolName("get" + StringUtils.capitalize(fieldName.getSymbolName()));
 		
-		// Define method parameter names
-		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
-		parameterNames.add(new JavaSymbolName(eventName));
-
-		// Create the method body
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine("Long id = (long) 0;");
-		bodyBuilder.appendFormalLine(eventName + ".get" + entity.getClass().getSimpleName() + "()." + "find" + entity.getSimpleTypeName() + "(id);");
-
-		// Use the MethodMetadataBuilder for easy creation of MethodMetadata
-		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
-		methodBuilder.setAnnotations(annotations);
-
+		bodyBuilder.appendFormalLine("return " + fieldName.getSymbolName() + ";");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, fieldType, bodyBuilder);
+		
 		return methodBuilder.build(); // Build and return a MethodMetadata instance
 	}
 
@@ -592,49 +2739,87 @@ public class RichclientOperationsImpl implements RichclientOperations {
 	 * Creates a list of JavaTypes for Events and Listeners (one for each CRUD method).
 	 * 	
 	 * @param JavaType entity
+	 * @param WiringMode wiring
+	 * @param EntityComponents components
 	 */
-	private void createEventHandlingForEntity(JavaType entity){
-		List<JavaType> events = new ArrayList<JavaType>();
-		List<JavaType> listeners = new ArrayList<JavaType>();
-		
-		events.add(new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".events.Delete" + entity.getSimpleTypeName() + "Event"));
-		events.add(new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".events.Update" + entity.getSimpleTypeName() + "Event"));
-		events.add(new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".events.Create" + entity.getSimpleTypeName() + "Event"));
-		events.add(new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".events.Read" + entity.getSimpleTypeName() + "Event"));
-		
-		listeners.add(new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".listeners.Delete" + entity.getSimpleTypeName() + "Listener"));
-		listeners.add(new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".listeners.Update" + entity.getSimpleTypeName() + "Listener"));
-		listeners.add(new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".listeners.Create" + entity.getSimpleTypeName() + "Listener"));
-		listeners.add(new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".listeners.Read" + entity.getSimpleTypeName() + "Listener"));
+	private void createEventHandlingForEntity(JavaType entity, WiringMode wiring, EntityComponents components){
+		List<JavaType> events = getEventTypesForEntity(entity);
+		List<JavaType> listeners = getListenerTypesForEntity(entity);
 		
 		for(JavaType event : events){
-			createEventClassForEntity(event, entity);
+			createEventClassForEntity(event, entity, wiring, components);
 		}
 		
 		for (int i = 0; i < listeners.size(); i++) {
-			createListenerClassForEntityAndEvent(listeners.get(i), events.get(i), entity);
+			createListenerClassForEntityAndEvent(listeners.get(i), events.get(i), entity, wiring, components);
 		}
 	}
 	
+	/**
+	 * Returns the event types of an entity, one for each CRUD method.
+	 * 
+	 * @param JavaType entity
+	 * @return List<JavaType>
+	 */
+	private List<JavaType> getEventTypesForEntity(JavaType entity){
+		List<JavaType> events = new ArrayList<JavaType>();
+		
+		events.add(new JavaType(getTopLevelPackage() + ".events.Delete" + entity.getSimpleTypeName() + "Event"));
+		events.add(new JavaType(getTopLevelPackage() + ".events.Update" + entity.getSimpleTypeName() + "Event"));
+		events.add(new JavaType(getTopLevelPackage() + ".events.Create" + entity.getSimpleTypeName() + "Event"));
+		events.add(new JavaType(getTopLevelPackage() + ".events.Read" + entity.getSimpleTypeName() + "Event"));
+		
+		return events;
+	}
+	
+	/**
+	 * Returns the listener types of an entity in the same order as {@link #getEventTypesForEntity(JavaType)}.
+	 * 
+	 * @param JavaType entity
+	 * @return List<JavaType>
+	 */
+	private List<JavaType> getListenerTypesForEntity(JavaType entity){
+		List<JavaType> listeners = new ArrayList<JavaType>();
+		
+		listeners.add(new JavaType(getTopLevelPackage() + ".listeners.Delete" + entity.getSimpleTypeName() + "Listener"));
+		listeners.add(new JavaType(getTopLevelPackage() + ".listeners.Update" + entity.getSimpleTypeName() + "Listener"));
+		listeners.add(new JavaType(getTopLevelPackage() + ".listeners.Create" + entity.getSimpleTypeName() + "Listener"));
+		listeners.add(new JavaType(getTopLevelPackage() + ".listeners.Read" + entity.getSimpleTypeName() + "Listener"));
+		
+		return listeners;
+	}
+	
+	private JavaType getDecoratedEntityType(JavaType entity){
+		return new JavaType(getTopLevelPackage() + ".domain.Decorated" + entity.getSimpleTypeName());
+	}
+	
+	private JavaType getControllerType(JavaPackage javaPackage, JavaType entity){
+		return new JavaType(javaPackage.getFullyQualifiedPackageName() + "." + entity.getSimpleTypeName() + "Controller");
+	}
+	
 	/**
 	 * Creates a specified Event for an entity.
 	 * 
 	 * @param JavaType event
 	 * @param JavaType entity
+	 * @param WiringMode wiring
+	 * @param EntityComponents components
 	 */
-	private void createEventClassForEntity(JavaType event, JavaType entity){
-		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(event, Path.SRC_MAIN_JAVA);
-		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(event, projectOperations.getPathResolver().getPath(resourceIdentifier));
+	private void createEventClassForEntity(JavaType event, JavaType entity, WiringMode wiring, EntityComponents components){
+		String declaredByMetadataId = getDeclaredByMetadataId(event);
 		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, event, PhysicalTypeCategory.CLASS);
 
+		if (wiring == WiringMode.ANNOTATION) {
+			typeDetailsBuilder.setAnnotations(getComponentAnnotations());
+		}
 		typeDetailsBuilder.addField(getFieldForJavaType(declaredByMetadataId, entity));
-		typeDetailsBuilder.addConstructor(getConstructorForJavaType(declaredByMetadataId, entity));
+		typeDetailsBuilder.addConstructor(getConstructorForJavaType(declaredByMetadataId, entity, wiring));
 		typeDetailsBuilder.addMethod(getEventGetEntityMethod(event, entity));
 		
-		typeManagementService.generateClassFile(typeDetailsBuilder.build());
+		components.addType(typeDetailsBuilder.build());
 		
 		// Register the event with Spring Application Context
-		installEventBusEvents(event, entity);
+		components.addBean(event, entity);
 	}
 	
 	/**
@@ -643,27 +2828,31 @@ public class RichclientOperationsImpl implements RichclientOperations {
 	 * @param JavaType listener
 	 * @param JavaType event
 	 * @param JavaType entity
+	 * @param WiringMode wiring
+	 * @param EntityComponents components
 	 */
-	private void createListenerClassForEntityAndEvent(JavaType listener, JavaType event, JavaType entity){
-		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(listener, Path.SRC_MAIN_JAVA);
-		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(listener, projectOperations.getPathResolver().getPath(resourceIdentifier));
+	private void createListenerClassForEntityAndEvent(JavaType listener, JavaType event, JavaType entity, WiringMode wiring, EntityComponents components){
+		String declaredByMetadataId = getDeclaredByMetadataId(listener);
 		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, listener, PhysicalTypeCategory.CLASS);
 		
 		JavaType actionListener = new JavaType("java.awt.event.ActionListener");
 		JavaType eventBus = new JavaType("org.bushe.swing.event.EventBus");
 		typeDetailsBuilder.addImplementsType(actionListener);
+		if (wiring == WiringMode.ANNOTATION) {
+			typeDetailsBuilder.setAnnotations(getComponentAnnotations());
+		}
 		
 		typeDetailsBuilder.addMethod(getActionPerformedMethodForListenerClass(listener, event, entity));
-		typeDetailsBuilder.addConstructor(getConstructorForJavaType(declaredByMetadataId, entity));
+		typeDetailsBuilder.addConstructor(getConstructorForJavaType(declaredByMetadataId, entity, wiring));
 		typeDetailsBuilder.addField(getFieldForJavaType(declaredByMetadataId, entity));
 		
 		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, eventBus));
 		typeDetailsBuilder.getRegisteredImports().add(getImportForJavaType(declaredByMetadataId, event));
 
-		typeManagementService.generateClassFile(typeDetailsBuilder.build());
+		components.addType(typeDetailsBuilder.build());
 		
 		// Register the listener with Spring Application Context
-		installActionListeners(listener, entity);
+		components.addBean(listener, entity);
 	}
 	
 	/**
@@ -685,15 +2874,36 @@ public class RichclientOperationsImpl implements RichclientOperations {
 	}
 	
 	/**
-	 * Generates a constructor for a specified JavaType.
+	 * @return the annotations of a component found by the component-scan of the annotation wiring
+	 */
+	private List<AnnotationMetadataBuilder> getComponentAnnotations() {
+		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
+		annotations.add(new AnnotationMetadataBuilder(new JavaType("org.springframework.stereotype.Component")));
+		return annotations;
+	}
+	
+	/**
+	 * Generates a constructor for a specified JavaType. With the annotation wiring the constructor
+	 * is autowired with the bean of the JavaType, qualified by the name of its bean method in the
+	 * entity configuration.
 	 * 
 	 * @param String declaredByMetadataId
 	 * @param JavaType javaType
+	 * @param WiringMode wiring
 	 * @return new ConstructorMetadata
 	 */
-	private ConstructorMetadata getConstructorForJavaType(String declaredByMetadataId, JavaType javaType){
+	private ConstructorMetadata getConstructorForJavaType(String declaredByMetadataId, JavaType javaType, WiringMode wiring){
 
 		AnnotatedJavaType constructorParamType = new AnnotatedJavaType(javaType, null);
+		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
+		if (wiring == WiringMode.ANNOTATION) {
+			List<AnnotationAttributeValue<?>> qualifierAttributes = new ArrayList<AnnotationAttributeValue<?>>();
+			qualifierAttributes.add(new StringAttributeValue(new JavaSymbolName("value"), uncapitalize(javaType.getSimpleTypeName())));
+			List<AnnotationMetadata> parameterAnnotations = new ArrayList<AnnotationMetadata>();
+			parameterAnnotations.add(new AnnotationMetadataBuilder(new JavaType("org.springframework.beans.factory.annotation.Qualifier"), qualifierAttributes).build());
+			constructorParamType = new AnnotatedJavaType(javaType, parameterAnnotations);
+			annotations.add(new AnnotationMetadataBuilder(new JavaType("org.springframework.beans.factory.annotation.Autowired")));
+		}
 		
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
 		bodyBuilder.appendFormalLine("this." + uncapitalize(javaType.getSimpleTypeName()) + " = " + uncapitalize(javaType.getSimpleTypeName()) + ";");
@@ -703,6 +2913,7 @@ public class RichclientOperationsImpl implements RichclientOperations {
 		constructorBuilder.addParameterName(new JavaSymbolName(uncapitalize(javaType.getSimpleTypeName())));
 		constructorBuilder.setModifier(Modifier.PUBLIC);
 		constructorBuilder.setBodyBuilder(bodyBuilder);
+		constructorBuilder.setAnnotations(annotations);
 		
 		return constructorBuilder.build();
 	}
@@ -786,140 +2997,55 @@ public class RichclientOperationsImpl implements RichclientOperations {
 
 	// --------------- INSTALL COMPONENTS TO APPLICATION CONTEXT ------------------- //
 	
-	private void installEntity(JavaType javaType){
-		Assert.isTrue(projectOperations.isProjectAvailable(), "Project metadata required");
-		PathResolver pathResolver = projectOperations.getPathResolver();
-		
-		// Verify that the application context already exists
-		String appContextPath = pathResolver.getIdentifier(Path.SPRING_CONFIG_ROOT, "applicationContext.xml");
-		Assert.isTrue(fileManager.exists(appContextPath), "Application context does not exist");
-
-		MutableFile appContextMutableFile = null;
-		
-		Document appContextXml = null;
-		try {
-			if (fileManager.exists(appContextPath)) {
-				appContextMutableFile = fileManager.updateFile(appContextPath);
-				appContextXml = XmlUtils.getDocumentBuilder().parse(appContextMutableFile.getInputStream());
-			} else {
-				new IllegalStateException("Could not aquire the Spring applicationContext.xml file");
-			}
-		} catch (Exception ex) {
-			throw new IllegalStateException(ex);
-		}
-		
-		Element root = (Element) appContextXml.getFirstChild();
-		
-		Element bean = XmlUtils.findFirstElement("/beans/bean[@class = '" + javaType.getFullyQualifiedTypeName() + "']", root);
-		if (bean != null) {
-			root.removeChild(bean);
+	/**
+	 * Opens an applicationContext.xml session unless one is already open for the running command.
+	 * 
+	 * @return true if the caller owns the session and has to commit it
+	 */
+	private boolean openContextSession() {
+		if (contextSession != null) {
+			return false;
 		}
-		
-		bean = appContextXml.createElement("bean");
-		bean.setAttribute("class", javaType.getFullyQualifiedTypeName());
-		bean.setAttribute("id", javaType.getSimpleTypeName());
-		
-		root.appendChild(bean);
-		
-		XmlUtils.writeXml(appContextMutableFile.getOutputStream(), appContextXml);
+		contextSession = new ApplicationContextSession(fileManager, projectOperations);
+		return true;
 	}
 	
-	private void installActionListeners(JavaType javaType, JavaType entity){
-		String entityName = entity.getSimpleTypeName();
-		
-		Assert.isTrue(projectOperations.isProjectAvailable(), "Project metadata required");
-		
-		// Verify that the application context already exists
-		PathResolver pathResolver = projectOperations.getPathResolver();
-		String appContextPath = pathResolver.getIdentifier(Path.SPRING_CONFIG_ROOT, "applicationContext.xml");
-		Assert.isTrue(fileManager.exists(appContextPath), "Application context does not exist");
-
-		MutableFile appContextMutableFile = null;
-		
-		Document appContextXml = null;
-		try {
-			if (fileManager.exists(appContextPath)) {
-				appContextMutableFile = fileManager.updateFile(appContextPath);
-				appContextXml = XmlUtils.getDocumentBuilder().parse(appContextMutableFile.getInputStream());
-			} else {
-				new IllegalStateException("Could not aquire the Spring applicationContext.xml file");
-			}
-		} catch (Exception ex) {
-			throw new IllegalStateException(ex);
-		}
-		
-		Element root = (Element) appContextXml.getFirstChild();
-		
-		Element bean = XmlUtils.findFirstElement("/beans/bean[@class = '" + javaType.getFullyQualifiedTypeName() + "']", root);
-		if (bean != null) {
-			root.removeChild(bean);
-		}
-		
-		bean = appContextXml.createElement("bean");
-		bean.setAttribute("class", javaType.getFullyQualifiedTypeName());
-		bean.setAttribute("id", javaType.getSimpleTypeName());
-		
-		Element constructorArg = XmlUtils.findFirstElement("//constructor-arg[@name='"+ uncapitalize(entityName) +"']", bean);
-		if (constructorArg != null) {
-			bean.removeChild(constructorArg);
+	/**
+	 * Writes all bean registrations of the running command to applicationContext.xml.
+	 * 
+	 * @param boolean sessionOwner
+	 */
+	private void commitContextSession(boolean sessionOwner) {
+		if (sessionOwner) {
+			long start = System.nanoTime();
+			profiler.recordXmlBytesWritten(contextSession.commit());
+			profiler.recordPhase("context commit", start);
 		}
-		constructorArg = appContextXml.createElement("constructor-arg");
-		constructorArg.setAttribute("ref", entityName);
-		constructorArg.setAttribute("name", uncapitalize(entityName));
-		bean.appendChild(constructorArg);
-		
-		root.appendChild(bean);
-		
-		XmlUtils.writeXml(appContextMutableFile.getOutputStream(), appContextXml);
 	}
 	
-	private void installEventBusEvents(JavaType javaType, JavaType entity){
-		String entityName = entity.getSimpleTypeName();
-		
-		Assert.isTrue(projectOperations.isProjectAvailable(), "Project metadata required");
-		PathResolver pathResolver = projectOperations.getPathResolver();
-		
-		// Verify that the application context already exists
-		String appContextPath = pathResolver.getIdentifier(Path.SPRING_CONFIG_ROOT, "applicationContext.xml");
-		Assert.isTrue(fileManager.exists(appContextPath), "Application context does not exist");
-
-		MutableFile appContextMutableFile = null;
-		
-		Document appContextXml = null;
-		try {
-			if (fileManager.exists(appContextPath)) {
-				appContextMutableFile = fileManager.updateFile(appContextPath);
-				appContextXml = XmlUtils.getDocumentBuilder().parse(appContextMutableFile.getInputStream());
-			} else {
-				new IllegalStateException("Could not aquire the Spring applicationContext.xml file");
-			}
-		} catch (Exception ex) {
-			throw new IllegalStateException(ex);
-		}
-		
-		Element root = (Element) appContextXml.getFirstChild();
-		
-		Element bean = XmlUtils.findFirstElement("/beans/bean[@class = '" + javaType.getFullyQualifiedTypeName() + "']", root);
-		if (bean != null) {
-			root.removeChild(bean);
+	/**
+	 * Discards the session of the running command. Registrations that have not been committed are lost.
+	 * 
+	 * @param boolean sessionOwner
+	 */
+	private void closeContextSession(boolean sessionOwner) {
+		if (sessionOwner) {
+			contextSession = null;
 		}
-		
-		bean = appContextXml.createElement("bean");
-		bean.setAttribute("class", javaType.getFullyQualifiedTypeName());
-		bean.setAttribute("id", javaType.getSimpleTypeName());
-		
-		Element constructorArg = XmlUtils.findFirstElement("//constructor-arg[@name='"+ uncapitalize(entityName) +"']", bean);
-		if (constructorArg != null) {
-			bean.removeChild(constructorArg);
+	}
+	
+	/**
+	 * Registers a bean with the session of the running command.
+	 * 
+	 * @param JavaType javaType
+	 * @param JavaType entity the constructor argument, may be null
+	 */
+	private void installBean(JavaType javaType, JavaType entity){
+		if (entity == null) {
+			contextSession.installBean(javaType);
+		} else {
+			contextSession.installBean(javaType, entity);
 		}
-		constructorArg = appContextXml.createElement("constructor-arg");
-		constructorArg.setAttribute("ref", entityName);
-		constructorArg.setAttribute("name", uncapitalize(entityName));
-		bean.appendChild(constructorArg);
-		
-		root.appendChild(bean);
-		
-		XmlUtils.writeXml(appContextMutableFile.getOutputStream(), appContextXml);
 	}
 	
 	private String uncapitalize(String term) {
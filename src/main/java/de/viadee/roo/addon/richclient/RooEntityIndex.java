@@ -0,0 +1,32 @@
+package de.viadee.roo.addon.richclient;
+
+import java.util.Set;
+
+import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetails;
+import org.springframework.roo.model.JavaType;
+
+/**
+ * Interface of the shared index of all entities within the project.
+ * 
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+public interface RooEntityIndex {
+	
+	/**
+	 * Returns all non-abstract types with the @RooEntity annotation. The project is scanned
+	 * once, afterwards only types that Roo reported as changed are looked up again.
+	 * 
+	 * @return Set<ClassOrInterfaceTypeDetails> 
+	 */
+	Set<ClassOrInterfaceTypeDetails> getEntities();
+	
+	/**
+	 * Looks up the current state of a single type, independent of pending notifications.
+	 * 
+	 * @param JavaType javaType
+	 * @return true if the type is a non-abstract type with the @RooEntity annotation
+	 */
+	boolean isEntity(JavaType javaType);
+
+}
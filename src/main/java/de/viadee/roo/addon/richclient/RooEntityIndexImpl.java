@@ -0,0 +1,157 @@
+package de.viadee.roo.addon.richclient;
+
+import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.Service;
+import org.osgi.service.component.ComponentContext;
+import org.springframework.roo.classpath.PhysicalTypeIdentifier;
+import org.springframework.roo.classpath.PhysicalTypeMetadata;
+import org.springframework.roo.classpath.TypeLocationService;
+import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetails;
+import org.springframework.roo.classpath.details.MemberFindingUtils;
+import org.springframework.roo.classpath.details.MemberHoldingTypeDetails;
+import org.springframework.roo.metadata.MetadataDependencyRegistry;
+import org.springframework.roo.metadata.MetadataNotificationListener;
+import org.springframework.roo.metadata.MetadataService;
+import org.springframework.roo.model.JavaType;
+import org.springframework.roo.project.Path;
+
+/**
+ * Implementation of {@link RooEntityIndex} interface. Listens to metadata notifications of
+ * physical types to keep the index up to date without scanning the whole project again.
+ * 
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+@Component
+@Service
+public class RooEntityIndexImpl implements RooEntityIndex, MetadataNotificationListener {
+	
+	private static final JavaType ROO_ENTITY = new JavaType("org.springframework.roo.addon.entity.RooEntity");
+	
+	@Reference private TypeLocationService typeLocationService;
+	@Reference private MetadataService metadataService;
+	@Reference private MetadataDependencyRegistry metadataDependencyRegistry;
+	
+	/**
+	 * Entities by fully qualified type name, null as long as the project has not been scanned
+	 */
+	private Map<String, ClassOrInterfaceTypeDetails> entities;
+	
+	/**
+	 * Physical type identifiers that changed since the index has been built
+	 */
+	private Set<String> changedTypes = new HashSet<String>();
+	
+	protected void activate(ComponentContext context) {
+		metadataDependencyRegistry.addNotificationListener(this);
+	}
+	
+	protected void deactivate(ComponentContext context) {
+		metadataDependencyRegistry.removeNotificationListener(this);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized Set<ClassOrInterfaceTypeDetails> getEntities() {
+		if (entities == null) {
+			buildIndex();
+		} else if (!changedTypes.isEmpty()) {
+			updateIndex();
+		}
+		return new LinkedHashSet<ClassOrInterfaceTypeDetails>(entities.values());
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public synchronized boolean isEntity(JavaType javaType) {
+		String physicalTypeIdentifier = PhysicalTypeIdentifier.createIdentifier(javaType, Path.SRC_MAIN_JAVA);
+		ClassOrInterfaceTypeDetails cid = lookupEntity(physicalTypeIdentifier);
+		if (entities != null) {
+			if (cid == null) {
+				entities.remove(javaType.getFullyQualifiedTypeName());
+			} else {
+				entities.put(javaType.getFullyQualifiedTypeName(), cid);
+			}
+			changedTypes.remove(physicalTypeIdentifier);
+		}
+		return cid != null;
+	}
+	
+	/**
+	 * Remembers every physical type that has been reported as changed. The type is looked up
+	 * again the next time the entities are requested.
+	 */
+	public synchronized void notify(String upstreamDependency, String downstreamDependency) {
+		if (entities == null || upstreamDependency == null || !PhysicalTypeIdentifier.isValid(upstreamDependency)) {
+			return;
+		}
+		changedTypes.add(upstreamDependency);
+	}
+	
+	/**
+	 * Scans the whole project for types with the @RooEntity annotation.
+	 */
+	private void buildIndex() {
+		entities = new TreeMap<String, ClassOrInterfaceTypeDetails>();
+		changedTypes.clear();
+		
+		Set<ClassOrInterfaceTypeDetails> cids = typeLocationService.findClassesOrInterfaceDetailsWithAnnotation(ROO_ENTITY);
+		for (ClassOrInterfaceTypeDetails cid : cids) {
+			if (Modifier.isAbstract(cid.getModifier())) {
+				continue;
+			}
+			entities.put(cid.getName().getFullyQualifiedTypeName(), cid);
+		}
+	}
+	
+	/**
+	 * Looks up every changed type and adds, replaces or removes its index entry. A lookup may
+	 * notify further changes on the same thread, which are kept for the next update.
+	 */
+	private void updateIndex() {
+		Set<String> types = new HashSet<String>(changedTypes);
+		changedTypes.clear();
+		for (String physicalTypeIdentifier : types) {
+			String typeName = PhysicalTypeIdentifier.getJavaType(physicalTypeIdentifier).getFullyQualifiedTypeName();
+			entities.remove(typeName);
+			
+			ClassOrInterfaceTypeDetails cid = lookupEntity(physicalTypeIdentifier);
+			if (cid != null) {
+				entities.put(typeName, cid);
+			}
+		}
+	}
+	
+	/**
+	 * Looks up a single physical type.
+	 * 
+	 * @param String physicalTypeIdentifier
+	 * @return the type details if the type is a non-abstract entity, otherwise null
+	 */
+	private ClassOrInterfaceTypeDetails lookupEntity(String physicalTypeIdentifier) {
+		// A missing physical type has been deleted from the project
+		PhysicalTypeMetadata physicalTypeMetadata = (PhysicalTypeMetadata) metadataService.get(physicalTypeIdentifier);
+		if (physicalTypeMetadata == null) {
+			return null;
+		}
+		MemberHoldingTypeDetails memberHoldingTypeDetails = physicalTypeMetadata.getMemberHoldingTypeDetails();
+		if (!(memberHoldingTypeDetails instanceof ClassOrInterfaceTypeDetails)) {
+			return null;
+		}
+		ClassOrInterfaceTypeDetails cid = (ClassOrInterfaceTypeDetails) memberHoldingTypeDetails;
+		if (Modifier.isAbstract(cid.getModifier()) || MemberFindingUtils.getDeclaredTypeAnnotation(cid, ROO_ENTITY) == null) {
+			return null;
+		}
+		return cid;
+	}
+}
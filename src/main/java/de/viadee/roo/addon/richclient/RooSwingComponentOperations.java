@@ -1,5 +1,9 @@
 package de.viadee.roo.addon.richclient;
 
+import java.util.Set;
+
+import org.springframework.roo.model.JavaType;
+
 /**
  * Interface of commands that are available via the Roo shell.
  * 
@@ -9,8 +13,12 @@ package de.viadee.roo.addon.richclient;
 public interface RooSwingComponentOperations {
 	
 	/**
-	 * Creates extended swing components needed for the creation of a rich client.
+	 * Creates extended swing components needed for the creation of a rich client. Entity specific
+	 * components are only created for the changed entities and removed for the removed entities.
+	 * 
+	 * @param Set<JavaType> changedEntities
+	 * @param Set<JavaType> removedEntities
 	 */
-	public void createRooComponents();
+	public void createRooComponents(Set<JavaType> changedEntities, Set<JavaType> removedEntities);
 
 }
@@ -6,6 +6,7 @@ import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.felix.scr.annotations.Component;
@@ -13,7 +14,6 @@ import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.Service;
 import org.springframework.roo.classpath.PhysicalTypeCategory;
 import org.springframework.roo.classpath.PhysicalTypeIdentifier;
-import org.springframework.roo.classpath.PhysicalTypeMetadata;
 import org.springframework.roo.classpath.TypeLocationService;
 import org.springframework.roo.classpath.TypeManagementService;
 import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetails;
@@ -28,18 +28,18 @@ import org.springframework.roo.classpath.details.MemberFindingUtils;
 import org.springframework.roo.classpath.details.MethodMetadata;
 import org.springframework.roo.classpath.details.MethodMetadataBuilder;
 import org.springframework.roo.classpath.details.annotations.AnnotatedJavaType;
+import org.springframework.roo.classpath.details.annotations.AnnotationAttributeValue;
 import org.springframework.roo.classpath.details.annotations.AnnotationMetadata;
 import org.springframework.roo.classpath.details.annotations.AnnotationMetadataBuilder;
+import org.springframework.roo.classpath.details.annotations.ClassAttributeValue;
 import org.springframework.roo.classpath.itd.InvocableMemberBodyBuilder;
 import org.springframework.roo.classpath.scanner.MemberDetails;
-import org.springframework.roo.classpath.scanner.MemberDetailsScanner;
-import org.springframework.roo.metadata.MetadataService;
 import org.springframework.roo.model.DataType;
 import org.springframework.roo.model.JavaSymbolName;
 import org.springframework.roo.model.JavaType;
+import org.springframework.roo.process.manager.FileManager;
 import org.springframework.roo.project.Path;
 import org.springframework.roo.project.ProjectOperations;
-import org.springframework.roo.support.util.Assert;
 import org.springframework.roo.support.util.StringUtils;
 
 /**
@@ -56,47 +56,145 @@ public class RooSwingComponentOperationsImpl implements
 	@Reference ProjectOperations projectOperations;
 	@Reference TypeLocationService typeLocationService;
 	@Reference TypeManagementService typeManagementService;
-	@Reference MemberDetailsScanner memberDetailsScanner;
-	@Reference MetadataService metadataService;
+	@Reference RooEntityIndex rooEntityIndex;
+	@Reference EntityDetailsCache entityDetailsCache;
+	@Reference FileManager fileManager;
+	@Reference GenerationProfiler profiler;
 	
 	private JavaType beanAdapter = new JavaType("com.jgoodies.binding.beans.BeanAdapter");
 	private JavaType valueModel = new JavaType("com.jgoodies.binding.value.ValueModel");
 	private JavaType bindings = new JavaType("com.jgoodies.binding.adapter.Bindings");
 	private JavaType list = new JavaType("java.util.List");
 	private JavaType stringArrayOneDimensional = new JavaType("java.lang.String", 1, DataType.TYPE, null, null);
-	private JavaType objectArrayTwoDimensional = new JavaType("java.lang.Object", 2, DataType.TYPE, null, null);
+	
+	/**
+	 * Number of entities the RooTableModel loads with one query
+	 */
+	private static final int DEFAULT_PAGE_SIZE = 100;
+	
+	/**
+	 * Number of pages the RooTableModel keeps, older pages are loaded again when they are shown
+	 */
+	private static final int DEFAULT_MAX_PAGES = 10;
 	
 	/**
 	 * {@inheritDoc}
 	 */
-	public void createRooComponents(){
+	public void createRooComponents(Set<JavaType> changedEntities, Set<JavaType> removedEntities){
 		createRooPanelClass();
-		createRooTableClassesForAllEntites();
+		createRooTableClassesForAllEntites(changedEntities);
+		removeRooTableClasses(removedEntities);
 		createRooButtonClass();
 		createRooTextFieldClass();
 		createRooTableModelClass();
+		createRooTablePrefetcherClass();
+		createRooSearchIndexClass();
 	}
 	
 	/**
 	 * Creates a RooTableModel class for the RooTable Component.  Implements AbstractTableModel.
+	 * The model does not hold the rows of the table. It loads fixed-size pages of entities on
+	 * demand and keeps only the most recently used pages, so that its memory stays constant
+	 * whatever the row count. The table model of an entity overrides the count and page methods
+	 * with the finders of its entity and stores each page column by column. No query runs on the
+	 * event dispatch thread: load counts the rows on a SwingWorker, cells of pages that are not
+	 * loaded yet show a placeholder, and pages are loaded and prefetched on a background thread.
+	 * The rows of the loaded pages are indexed by the ids of their entities, so that a created,
+	 * updated or deleted entity only changes its own row. Sorting and filtering is left to the
+	 * database: the table model of an entity queries its pages ordered and filtered as set by
+	 * setSort and setFilter. For type-ahead search, setSearch filters the rows in memory with a
+	 * RooSearchIndex, which is built on the first search and then follows the CRUD results.
 	 */
 	private void createRooTableModelClass(){
-		JavaType rooTableModel = new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".rooswingcomponents.RooTableModel");
+		JavaType rooTableModel = getRooTableModelType();
 		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(rooTableModel, Path.SRC_MAIN_JAVA);
 		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(rooTableModel, projectOperations.getPathResolver().getPath(resourceIdentifier));
 		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, rooTableModel, PhysicalTypeCategory.CLASS);
 		
 		JavaType abstractTableModel = new JavaType("javax.swing.table.AbstractTableModel");
 		
-		typeDetailsBuilder.addField(getDataFieldForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addField(getConstantFieldForRooTableModelClass(declaredByMetadataId, "DEFAULT_PAGE_SIZE", DEFAULT_PAGE_SIZE));
+		typeDetailsBuilder.addField(getConstantFieldForRooTableModelClass(declaredByMetadataId, "DEFAULT_MAX_PAGES", DEFAULT_MAX_PAGES));
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC | Modifier.FINAL, new JavaSymbolName("LOADING"), new JavaType("java.lang.String"), "\"...\"").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL, new JavaSymbolName("LOG"), new JavaType("java.util.logging.Logger"), "Logger.getLogger(RooTableModel.class.getName())").build());
 		typeDetailsBuilder.addField(getColumnNamesFieldForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("pageSize"), JavaType.INT_PRIMITIVE, null).build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("maxPages"), JavaType.INT_PRIMITIVE, null).build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("rowCount"), JavaType.INT_PRIMITIVE, "0").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.VOLATILE, new JavaSymbolName("generation"), JavaType.INT_PRIMITIVE, "0").build());
+		typeDetailsBuilder.addField(getPagesFieldForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addField(getPrefetchExecutorFieldForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addField(getRequestsFieldForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addField(getRowsFieldForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.VOLATILE, new JavaSymbolName("sortColumn"), JavaType.INT_PRIMITIVE, "-1").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.VOLATILE, new JavaSymbolName("sortAscending"), JavaType.BOOLEAN_PRIMITIVE, "true").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.VOLATILE, new JavaSymbolName("filters"), getFiltersType(), "Collections.<Integer, Object>emptyMap()").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.VOLATILE, new JavaSymbolName("searchIndex"), getRooSearchIndexType(), null).build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.VOLATILE, new JavaSymbolName("searchResult"), new JavaType("java.util.List", 0, DataType.TYPE, null, Arrays.asList(new JavaType("java.lang.Object"))), null).build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("searchText"), new JavaType("java.lang.String"), "\"\"").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("searchIndexed"), JavaType.BOOLEAN_PRIMITIVE, "false").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("searchable"), JavaType.BOOLEAN_PRIMITIVE, "true").build());
 		typeDetailsBuilder.addConstructor(getConstructorForRooTableModelClass(declaredByMetadataId));
 		typeDetailsBuilder.addMethod(getGetRowCountMethodForRooTableModelClass(declaredByMetadataId));
 		typeDetailsBuilder.addMethod(getGetColumnCountMethodForRooTableModelClass(declaredByMetadataId));
 		typeDetailsBuilder.addMethod(getGetValueAtMethodForRooTableModelClass(declaredByMetadataId));
 		typeDetailsBuilder.addMethod(getGetColumnNameMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getGetEntityAtMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getLoadMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getSetLoadedRowCountMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getRefreshMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getPrefetchMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getRequestPageMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getLoadPageMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getEntityChangedMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getIndexPageMethodForRooTableModelClass(declaredByMetadataId, true));
+		typeDetailsBuilder.addMethod(getIndexPageMethodForRooTableModelClass(declaredByMetadataId, false));
+		typeDetailsBuilder.addMethod(getRemovePagesMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getSetSortMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getToggleSortMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getSetFilterMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getGetterMethodForRooTableModelClass(declaredByMetadataId, "getSortColumn", "return sortColumn;", JavaType.INT_PRIMITIVE, Modifier.PUBLIC));
+		typeDetailsBuilder.addMethod(getGetterMethodForRooTableModelClass(declaredByMetadataId, "isSortAscending", "return sortAscending;", JavaType.BOOLEAN_PRIMITIVE, Modifier.PUBLIC));
+		typeDetailsBuilder.addMethod(getGetterMethodForRooTableModelClass(declaredByMetadataId, "getFilters", "return filters;", getFiltersType(), Modifier.PROTECTED));
+		typeDetailsBuilder.addMethod(getGetterMethodForRooTableModelClass(declaredByMetadataId, "isQueried", "return sortColumn >= 0 || !filters.isEmpty();", JavaType.BOOLEAN_PRIMITIVE, Modifier.PROTECTED));
+		typeDetailsBuilder.addMethod(getGetterMethodForRooTableModelClass(declaredByMetadataId, "isOrderedById", "return false;", JavaType.BOOLEAN_PRIMITIVE, Modifier.PROTECTED));
+		typeDetailsBuilder.addMethod(getGetterMethodForRooTableModelClass(declaredByMetadataId, "getGeneration", "return generation;", JavaType.INT_PRIMITIVE, Modifier.PROTECTED));
+		typeDetailsBuilder.addMethod(getIsQueryableMethodForRooTableModelClass(declaredByMetadataId, null));
+		typeDetailsBuilder.addMethod(getSetSearchMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getBuildSearchIndexMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getCountRowsMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getFindEntriesMethodForRooTableModelClass(declaredByMetadataId, "findEntries"));
+		typeDetailsBuilder.addMethod(getFindEntriesMethodForRooTableModelClass(declaredByMetadataId, "findIndexEntries"));
+		typeDetailsBuilder.addMethod(getPageHookMethodForRooTableModelClass(declaredByMetadataId, "createPage"));
+		typeDetailsBuilder.addMethod(getPageHookMethodForRooTableModelClass(declaredByMetadataId, "getPageRowCount"));
+		typeDetailsBuilder.addMethod(getPageHookMethodForRooTableModelClass(declaredByMetadataId, "getPageValue"));
+		typeDetailsBuilder.addMethod(getPageHookMethodForRooTableModelClass(declaredByMetadataId, "getPageEntity"));
+		typeDetailsBuilder.addMethod(getPageHookMethodForRooTableModelClass(declaredByMetadataId, "getPageId"));
+		typeDetailsBuilder.addMethod(getPageHookMethodForRooTableModelClass(declaredByMetadataId, "setPageRow"));
+		typeDetailsBuilder.addMethod(getPageHookMethodForRooTableModelClass(declaredByMetadataId, "isEntity"));
+		typeDetailsBuilder.addMethod(getPageHookMethodForRooTableModelClass(declaredByMetadataId, "getEntityId"));
+		typeDetailsBuilder.addMethod(getPageHookMethodForRooTableModelClass(declaredByMetadataId, "getSearchValues"));
+		typeDetailsBuilder.addMethod(getEncodeMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getEncodeIntoPageMethodForRooTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getDecodeMethodForRooTableModelClass(declaredByMetadataId));
 		typeDetailsBuilder.addExtendsTypes(abstractTableModel);
 		
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.Collections")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.HashMap")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.Iterator")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.LinkedHashMap")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, list));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.Map")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.concurrent.ExecutorService")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.concurrent.Executors")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.concurrent.Future")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.concurrent.ThreadFactory")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.logging.Level")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.logging.Logger")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("javax.swing.SwingUtilities")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("org.jdesktop.swingworker.SwingWorker")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".main.ContextLoader")));
+		
 		generateClassFile(typeDetailsBuilder);
 	}
 	
@@ -111,7 +209,7 @@ public class RooSwingComponentOperationsImpl implements
 		JavaType returnType = new JavaType("java.lang.String");
 		
 		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
-		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Integer"), null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
 		
 		JavaSymbolName col = new JavaSymbolName("col");
 		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
@@ -128,7 +226,8 @@ public class RooSwingComponentOperationsImpl implements
 	}
 
 	/**
-	 * Generates a getValueAt method for the RooTableModel class.
+	 * Generates a getValueAt method for the RooTableModel class. Cells of pages that are not
+	 * loaded yet show the LOADING placeholder while their page is requested in the background.
 	 * 
 	 * @param String declaredByMetadataId
 	 * @return new MethodMetadata
@@ -138,8 +237,8 @@ public class RooSwingComponentOperationsImpl implements
 		JavaType returnType = new JavaType("java.lang.Object");
 		
 		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
-		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Integer"), null));
-		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Integer"), null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
 		
 		JavaSymbolName rowIndex = new JavaSymbolName("rowIndex");
 		JavaSymbolName columnIndex = new JavaSymbolName("columnIndex");
@@ -148,7 +247,20 @@ public class RooSwingComponentOperationsImpl implements
 		parameterNames.add(columnIndex);
 		
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine("return data[rowIndex][columnIndex];");
+		bodyBuilder.appendFormalLine("Object page;");
+		bodyBuilder.appendFormalLine("synchronized (pages) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("page = pages.get(rowIndex / pageSize);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("if (page == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("requestPage(rowIndex / pageSize);");
+		bodyBuilder.appendFormalLine("return LOADING;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("int offset = rowIndex % pageSize;");
+		bodyBuilder.appendFormalLine("return offset < getPageRowCount(page) ? getPageValue(page, offset, columnIndex) : null;");
 		
 		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, returnType, parameterTypes, parameterNames, bodyBuilder);
 		
@@ -165,7 +277,7 @@ public class RooSwingComponentOperationsImpl implements
 	 */
 	private MethodMetadata getGetColumnCountMethodForRooTableModelClass(String declaredByMetadataId) {
 		JavaSymbolName methodName = new JavaSymbolName("getColumnCount");
-		JavaType returnType = new JavaType("java.lang.Integer");
+		JavaType returnType = JavaType.INT_PRIMITIVE;
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
 		bodyBuilder.appendFormalLine("return columnNames.length;");
 		
@@ -177,16 +289,17 @@ public class RooSwingComponentOperationsImpl implements
 	}
 
 	/**
-	 * Generates a getRowCount method for the RooTableModel class.
+	 * Generates a getRowCount method for the RooTableModel class. The count is set by load, so
+	 * the table starts empty and grows as the rows arrive.
 	 * 
 	 * @param String declaredByMetadataId
 	 * @return new MethodMetadata
 	 */
 	private MethodMetadata getGetRowCountMethodForRooTableModelClass(String declaredByMetadataId) {
 		JavaSymbolName methodName = new JavaSymbolName("getRowCount");
-		JavaType returnType = new JavaType("java.lang.Integer");
+		JavaType returnType = JavaType.INT_PRIMITIVE;
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine("return data.length;");
+		bodyBuilder.appendFormalLine("return rowCount;");
 		
 		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, returnType, null, null, bodyBuilder);
 		
@@ -194,290 +307,2548 @@ public class RooSwingComponentOperationsImpl implements
 		
 		return methodBuilder.build();
 	}
-
+	
 	/**
-	 * Generates a constructor for the RooTableModel class.
+	 * Generates a getEntityAt method for the RooTableModel class, which returns the entity
+	 * shown in a row. It never queries the database on the calling thread: if the page of the
+	 * row is not loaded, the page is requested in the background and null is returned. The
+	 * rows of the page are reported as updated once it arrives, so callers ask again then.
 	 * 
 	 * @param String declaredByMetadataId
-	 * @return new ConstructorMetadata
+	 * @return new MethodMetadata
 	 */
-	private ConstructorMetadata getConstructorForRooTableModelClass(String declaredByMetadataId) {
-		ConstructorMetadataBuilder constructorBuilder = new ConstructorMetadataBuilder(declaredByMetadataId);
+	private MethodMetadata getGetEntityAtMethodForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName methodName = new JavaSymbolName("getEntityAt");
+		JavaType returnType = new JavaType("java.lang.Object");
 		
 		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
-		parameterTypes.add(new AnnotatedJavaType(stringArrayOneDimensional, null));
-		parameterTypes.add(new AnnotatedJavaType(objectArrayTwoDimensional, null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
 		
-		JavaSymbolName columnNames = new JavaSymbolName("columnNames");
-		JavaSymbolName data = new JavaSymbolName("columnNames");
 		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
-		parameterNames.add(columnNames);
-		parameterNames.add(data);
+		parameterNames.add(new JavaSymbolName("rowIndex"));
 		
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine("this." + columnNames + " = " + columnNames + ";");
-		bodyBuilder.appendFormalLine("this." + data + " = " + data + ";");
+		bodyBuilder.appendFormalLine("Object page;");
+		bodyBuilder.appendFormalLine("synchronized (pages) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("page = pages.get(rowIndex / pageSize);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("if (page == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("requestPage(rowIndex / pageSize);");
+		bodyBuilder.appendFormalLine("return null;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("int offset = rowIndex % pageSize;");
+		bodyBuilder.appendFormalLine("return offset < getPageRowCount(page) ? getPageEntity(page, offset) : null;");
 		
-		constructorBuilder.setParameterTypes(parameterTypes);
-		constructorBuilder.setParameterNames(parameterNames);
-		constructorBuilder.setBodyBuilder(bodyBuilder);
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, returnType, parameterTypes, parameterNames, bodyBuilder);
 		
-		return constructorBuilder.build();
+		return methodBuilder.build();
 	}
-
+	
 	/**
-	 * Generates a data[][] field for the RooTableModel class.
+	 * Generates a refresh method for the RooTableModel class, which drops the cached pages after
+	 * the entities changed and loads the table again. Pages still being loaded for the former
+	 * generation are discarded when they arrive.
 	 * 
 	 * @param String declaredByMetadataId
-	 * @return new FieldMetadata
+	 * @return new MethodMetadata
 	 */
-	private FieldMetadata getDataFieldForRooTableModelClass(String declaredByMetadataId) {
-		JavaSymbolName fieldName = new JavaSymbolName("data");
-		FieldMetadataBuilder fieldBuilder = new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, fieldName, objectArrayTwoDimensional, null);
-		return fieldBuilder.build();
+	private MethodMetadata getRefreshMethodForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName methodName = new JavaSymbolName("refresh");
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("synchronized (pages) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("generation++;");
+		bodyBuilder.appendFormalLine("for (Future<?> request : requests.values()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("request.cancel(false);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("requests.clear();");
+		bodyBuilder.appendFormalLine("pages.clear();");
+		bodyBuilder.appendFormalLine("rows.clear();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("rowCount = 0;");
+		bodyBuilder.appendFormalLine("fireTableDataChanged();");
+		bodyBuilder.appendFormalLine("load();");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, null, null, bodyBuilder);
+		
+		return methodBuilder.build();
 	}
 	
 	/**
-	 * Generates a coumnNames[] field for the RooTableModel class.
+	 * Generates a prefetch method for the RooTableModel class. It requests the pages of the
+	 * visible rows and the pages just above and below them. Requests of a former viewport that
+	 * did not start yet are cancelled, so that fast scrolling does not queue up pages that are
+	 * no longer needed.
 	 * 
 	 * @param String declaredByMetadataId
-	 * @return new FieldMetadata
-	 */
-	private FieldMetadata getColumnNamesFieldForRooTableModelClass(String declaredByMetadataId) {
-		JavaSymbolName fieldName = new JavaSymbolName("columnNames");
-		FieldMetadataBuilder fieldBuilder = new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, fieldName, stringArrayOneDimensional, null);
-		return fieldBuilder.build();
-	}
-
-	/**
-	 * Creates a RooPanel class for the RooTable Component. Implements JPanel.
+	 * @return new MethodMetadata
 	 */
-	private void createRooPanelClass(){
-		JavaType rooTable = new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".rooswingcomponents.RooPanel");
-		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(rooTable, Path.SRC_MAIN_JAVA);
-		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(rooTable, projectOperations.getPathResolver().getPath(resourceIdentifier));
-		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, rooTable, PhysicalTypeCategory.CLASS);
+	private MethodMetadata getPrefetchMethodForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName methodName = new JavaSymbolName("prefetch");
 		
-		typeDetailsBuilder.addField(getComponentField(declaredByMetadataId));
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
 		
-		generateClassFile(typeDetailsBuilder);
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("firstRow"));
+		parameterNames.add(new JavaSymbolName("lastRow"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("int firstPage = Math.max(0, firstRow / pageSize - 1);");
+		bodyBuilder.appendFormalLine("int lastPage = Math.min((getRowCount() - 1) / pageSize, lastRow / pageSize + 1);");
+		bodyBuilder.appendFormalLine("synchronized (pages) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("for (Iterator<Map.Entry<Integer, Future<?>>> i = requests.entrySet().iterator(); i.hasNext();) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("Map.Entry<Integer, Future<?>> request = i.next();");
+		bodyBuilder.appendFormalLine("if (request.getKey() < firstPage || request.getKey() > lastPage) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("request.getValue().cancel(false);");
+		bodyBuilder.appendFormalLine("i.remove();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("for (int page = firstPage; page <= lastPage; page++) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("requestPage(page);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
 	}
 	
 	/**
-	 * Generates panelComponent Field for RooPanel class.
+	 * Generates a requestPage method for the RooTableModel class, which queues a page on the
+	 * prefetch thread unless it is loaded or queued already. The prefetch thread waits for the
+	 * Spring Application Context before the page is queried.
 	 * 
 	 * @param String declaredByMetadataId
-	 * @return new FieldMetadata
+	 * @return new MethodMetadata
 	 */
-	private FieldMetadata getComponentField(String declaredByMetadataId){
-		JavaSymbolName fieldName = new JavaSymbolName("panelComponents");
+	private MethodMetadata getRequestPageMethodForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName methodName = new JavaSymbolName("requestPage");
 		
-		FieldMetadataBuilder fieldBuilder = new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, fieldName, list, null);
-		return fieldBuilder.build();
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Integer"), null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("page"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("synchronized (pages) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (pages.containsKey(page) || requests.containsKey(page)) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("final Integer requestedPage = page;");
+		bodyBuilder.appendFormalLine("requests.put(page, PREFETCH_EXECUTOR.submit(new Runnable() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public void run() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("try {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("ContextLoader.getContext();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} catch (InterruptedException e) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("Thread.currentThread().interrupt();");
+		bodyBuilder.appendFormalLine("synchronized (pages) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("requests.remove(requestedPage);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("loadPage(requestedPage);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}));");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
 	}
 	
 	/**
-	 * Triggers the creation of RooTable classes for all entities.
+	 * Generates a load method for the RooTableModel class. A SwingWorker waits for the Spring
+	 * Application Context, which the ContextLoader refreshes while the frame is shown already,
+	 * then loads the first page and publishes its rows as soon as they arrive, then counts the remaining rows, which are
+	 * shown with placeholders until their pages are loaded. The event dispatch thread never
+	 * waits for the database. While a search is shown, the rows are the matches of the search.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
 	 */
-	private void createRooTableClassesForAllEntites(){
-		Set<ClassOrInterfaceTypeDetails> cids = typeLocationService.findClassesOrInterfaceDetailsWithAnnotation(new JavaType("org.springframework.roo.addon.entity.RooEntity"));
-		for (ClassOrInterfaceTypeDetails cid : cids) {
-			if (Modifier.isAbstract(cid.getModifier())) {
-				continue;
-			}
-			JavaType entity = cid.getName();
-			
-			createRooTableClassForSingleEntity(entity);
-		}
+	private MethodMetadata getLoadMethodForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName methodName = new JavaSymbolName("load");
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("final int loadGeneration = generation;");
+		bodyBuilder.appendFormalLine("new SwingWorker<Integer, Integer>() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("protected Integer doInBackground() throws Exception {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("ContextLoader.getContext();");
+		bodyBuilder.appendFormalLine("publish(getPageRowCount(loadPage(0)));");
+		bodyBuilder.appendFormalLine("List<Object> result = searchResult;");
+		bodyBuilder.appendFormalLine("return result != null ? result.size() : (int) countRows();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("protected void process(List<Integer> chunks) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("setLoadedRowCount(loadGeneration, chunks.get(chunks.size() - 1));");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("protected void done() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("try {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("setLoadedRowCount(loadGeneration, get());");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} catch (Exception e) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("LOG.log(Level.SEVERE, \"Loading the rows of the table failed\", e);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}.execute();");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, null, null, bodyBuilder);
+		
+		return methodBuilder.build();
 	}
-
+	
 	/**
-	 * Creates a RooTable class for a single entity. Implements JXTable.
+	 * Generates a setLoadedRowCount method for the RooTableModel class, which grows the table
+	 * to the rows loaded so far. Called on the event dispatch thread only.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
 	 */
-	private void createRooTableClassForSingleEntity(JavaType entity){
-		JavaType rooTable = new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".rooswingcomponents.RooTable" + entity.getSimpleTypeName());
-		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(rooTable, Path.SRC_MAIN_JAVA);
-		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(rooTable, projectOperations.getPathResolver().getPath(resourceIdentifier));
-		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, rooTable, PhysicalTypeCategory.CLASS);
+	private MethodMetadata getSetLoadedRowCountMethodForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName methodName = new JavaSymbolName("setLoadedRowCount");
 		
-		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, list));
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
 		
-		typeDetailsBuilder.addField(getLoggerField(declaredByMetadataId));
-		typeDetailsBuilder.addConstructor(getRooTableConstructor(declaredByMetadataId, entity));
-		typeDetailsBuilder.addMethod(getGetAllEntriesAsListMethod(declaredByMetadataId, entity));
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("loadGeneration"));
+		parameterNames.add(new JavaSymbolName("count"));
 		
-		generateClassFile(typeDetailsBuilder);
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("if (loadGeneration == generation && count > rowCount) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("int firstRow = rowCount;");
+		bodyBuilder.appendFormalLine("rowCount = count;");
+		bodyBuilder.appendFormalLine("fireTableRowsInserted(firstRow, count - 1);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
 	}
 	
 	/**
-	 * Generates the constructor of RooTable class.
-	 * @return new ConstructorMetadata
+	 * Generates a loadPage method for the RooTableModel class, which queries a page, or takes it
+	 * from the search index while a search is shown, converts it
+	 * with createPage and caches and indexes it unless another thread has been faster or the model
+	 * has been refreshed meanwhile. The rows of the page are repainted on the event dispatch thread.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
 	 */
-	private ConstructorMetadata getRooTableConstructor(String declaredByMetadataId, JavaType entity) {
-		AnnotatedJavaType parameterType = new AnnotatedJavaType(entity, null);
+	private MethodMetadata getLoadPageMethodForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName methodName = new JavaSymbolName("loadPage");
 		
-		JavaType list = new JavaType("java.util.List", 0, DataType.TYPE, null, Arrays.asList(entity));
-		
-		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine(list.getNameIncludingTypeParameters() + " entityList = getEntityList(entity);");
-		bodyBuilder.appendFormalLine(objectArrayTwoDimensional.getNameIncludingTypeParameters() + " tableData = convertToObjectArray(entityList);");
-		bodyBuilder.appendFormalLine(stringArrayOneDimensional.getNameIncludingTypeParameters() + " columnNames = getColumnNames(entity);");
-		bodyBuilder.appendFormalLine("this.setModel(new RooTableModel(tableData, columnNames));");
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Integer"), null));
 		
-		ConstructorMetadataBuilder constructorBuilder = new ConstructorMetadataBuilder(declaredByMetadataId);
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("page"));
 		
-		constructorBuilder.addParameterType(parameterType);
-		constructorBuilder.addParameterName(new JavaSymbolName(uncapitalize(entity.getSimpleTypeName())));
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("int loadedGeneration = generation;");
+		bodyBuilder.appendFormalLine("List<Object> result = searchResult;");
+		bodyBuilder.appendFormalLine("Object data = createPage(result != null ? searchIndex.getEntities(result, page * pageSize, pageSize) : findEntries(page * pageSize, pageSize));");
+		bodyBuilder.appendFormalLine("synchronized (pages) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (loadedGeneration != generation) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return data;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("requests.remove(page);");
+		bodyBuilder.appendFormalLine("if (pages.containsKey(page)) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return pages.get(page);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("pages.put(page, data);");
+		bodyBuilder.appendFormalLine("indexPage(page, data);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("final int firstRow = page * pageSize;");
+		bodyBuilder.appendFormalLine("final int lastRow = firstRow + getPageRowCount(data) - 1;");
+		bodyBuilder.appendFormalLine("SwingUtilities.invokeLater(new Runnable() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public void run() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (lastRow >= firstRow && lastRow < rowCount) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("fireTableRowsUpdated(firstRow, lastRow);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("});");
+		bodyBuilder.appendFormalLine("return data;");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, methodName, new JavaType("java.lang.Object"), parameterTypes, parameterNames, bodyBuilder);
 		
-		constructorBuilder.setModifier(Modifier.PUBLIC);
-		constructorBuilder.setBodyBuilder(bodyBuilder);
-		return constructorBuilder.build();
+		return methodBuilder.build();
 	}
 	
 	/**
-	 * Generates the getEntityList method for RooTable class.
+	 * Generates an entityChanged method for the RooTableModel class, which applies a finished
+	 * CRUD operation to the rows of the table. An updated entity is written into its row if the
+	 * row is loaded. A created entity is appended if the unsorted pages are ordered by the id,
+	 * otherwise or if the table is sorted or filtered the table is refreshed, as the position of
+	 * the new row is unknown. A deleted entity removes its row. The pages from the changed row on are dropped then and
+	 * loaded again when they are shown, since their rows have moved. A deleted entity whose row
+	 * is not loaded refreshes the table, as its position is unknown. The entity is put into or
+	 * removed from the search index, and a shown search is run again. A READ does not change
+	 * the entity and is ignored. Called on the event dispatch thread only.
 	 * 
-	 * @param declaredByMetadataId
-	 * @return methodMetadata
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
 	 */
-	private MethodMetadata getGetAllEntriesAsListMethod(String declaredByMetadataId, JavaType entity) {
-		String findAllMethodName = getFindAllMethodNameForEntity(entity);
+	private MethodMetadata getEntityChangedMethodForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName methodName = new JavaSymbolName("entityChanged");
 		
-		JavaType list = new JavaType("java.util.List", 0, DataType.TYPE, null, Arrays.asList(entity));
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.String"), null));
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
 		
-		JavaSymbolName methodName = new JavaSymbolName("getAllEntriesAsList");
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("operation"));
+		parameterNames.add(new JavaSymbolName("entity"));
 		
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine("return " + entity.getSimpleTypeName() + "." + findAllMethodName + "();");
+		bodyBuilder.appendFormalLine("if (\"READ\".equals(operation) || !isEntity(entity)) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("RooSearchIndex index = searchIndex;");
+		bodyBuilder.appendFormalLine("if (index != null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (\"DELETE\".equals(operation)) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("index.remove(getEntityId(entity));");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} else {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("index.put(getEntityId(entity), entity, getSearchValues(entity));");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("if (searchResult != null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("// The entity may match the search now or no longer");
+		bodyBuilder.appendFormalLine("searchResult = index.search(searchText);");
+		bodyBuilder.appendFormalLine("refresh();");
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("if (\"CREATE\".equals(operation) && (isQueried() || !isOrderedById())) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("// The position of the row depends on the sort order, the filters or the finder");
+		bodyBuilder.appendFormalLine("refresh();");
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("if (\"CREATE\".equals(operation)) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("synchronized (pages) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("removePages(rowCount / pageSize);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("rowCount++;");
+		bodyBuilder.appendFormalLine("fireTableRowsInserted(rowCount - 1, rowCount - 1);");
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("Integer row;");
+		bodyBuilder.appendFormalLine("synchronized (pages) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("row = rows.get(getEntityId(entity));");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("if (row == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("// An updated row is shown as soon as its page is loaded");
+		bodyBuilder.appendFormalLine("if (\"DELETE\".equals(operation)) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("refresh();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("if (\"UPDATE\".equals(operation)) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("synchronized (pages) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("setPageRow(pages.get(row / pageSize), row % pageSize, entity);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("fireTableRowsUpdated(row, row);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} else if (\"DELETE\".equals(operation)) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("synchronized (pages) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("removePages(row / pageSize);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("rowCount--;");
+		bodyBuilder.appendFormalLine("fireTableRowsDeleted(row, row);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
 		
-		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, list , bodyBuilder);
-		methodBuilder.setReturnType(list);
 		return methodBuilder.build();
 	}
-
+	
 	/**
-	 * Creates a RooButton class. Implements JButton.
+	 * Generates a setSearch method for the RooTableModel class, which shows only the rows whose
+	 * string columns contain words starting with the words of the text. The first search builds
+	 * the RooSearchIndex of the table in the background and is applied when the index is ready.
+	 * Tables with more than RooSearchIndex.MAX_ROWS rows are not indexed and cannot be searched.
+	 * An empty text shows all rows again. Called on the event dispatch thread only.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
 	 */
-	private void createRooButtonClass(){
-		JavaType rooButton = new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".rooswingcomponents.RooButton");
-		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(rooButton, Path.SRC_MAIN_JAVA);
-		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(rooButton, projectOperations.getPathResolver().getPath(resourceIdentifier));
-		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, rooButton, PhysicalTypeCategory.CLASS);
+	private MethodMetadata getSetSearchMethodForRooTableModelClass(String declaredByMetadataId) {
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.String"), null));
 		
-		JavaType extendsType = new JavaType("javax.swing.JButton");
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("text"));
 		
-		typeDetailsBuilder.addExtendsTypes(extendsType);
-		typeDetailsBuilder.addConstructor(getConstructorForRooButtonClass(declaredByMetadataId));
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("searchText = text == null ? \"\" : text.trim();");
+		bodyBuilder.appendFormalLine("if (searchText.length() == 0) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (searchResult != null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("searchResult = null;");
+		bodyBuilder.appendFormalLine("refresh();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("if (!searchable) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("if (!searchIndexed) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("buildSearchIndex();");
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("searchResult = searchIndex.search(searchText);");
+		bodyBuilder.appendFormalLine("refresh();");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, new JavaSymbolName("setSearch"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
 		
-		generateClassFile(typeDetailsBuilder);
+		return methodBuilder.build();
 	}
 	
 	/**
-	 * Generates a constructor for RooButton class.
+	 * Generates a buildSearchIndex method for the RooTableModel class. A SwingWorker waits for
+	 * the Spring Application Context, reads all entities page by page with findIndexEntries and
+	 * puts them into the index, then applies the text typed meanwhile. The index is assigned before it is filled, so that entities changed
+	 * while it is built are put into it as well.
 	 * 
 	 * @param String declaredByMetadataId
-	 * @return new ConstructorMetadata
+	 * @return new MethodMetadata
 	 */
-	private ConstructorMetadata getConstructorForRooButtonClass(String declaredByMetadataId) {
-		AnnotatedJavaType listener = new AnnotatedJavaType(new JavaType("java.awt.event.ActionListener"), null);
-		
+	private MethodMetadata getBuildSearchIndexMethodForRooTableModelClass(String declaredByMetadataId) {
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine("this.addActionListener(listener);");
+		bodyBuilder.appendFormalLine("if (searchIndex != null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("final RooSearchIndex index = new RooSearchIndex();");
+		bodyBuilder.appendFormalLine("searchIndex = index;");
+		bodyBuilder.appendFormalLine("new SwingWorker<Boolean, Object>() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("protected Boolean doInBackground() throws Exception {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("ContextLoader.getContext();");
+		bodyBuilder.appendFormalLine("int firstResult = 0;");
+		bodyBuilder.appendFormalLine("List<?> entries;");
+		bodyBuilder.appendFormalLine("do {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (firstResult >= RooSearchIndex.MAX_ROWS) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return false;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("entries = findIndexEntries(firstResult, pageSize);");
+		bodyBuilder.appendFormalLine("for (Object entity : entries) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("index.put(getEntityId(entity), entity, getSearchValues(entity));");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("firstResult += entries.size();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} while (entries.size() == pageSize);");
+		bodyBuilder.appendFormalLine("return true;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("protected void done() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("try {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("searchIndexed = get();");
+		bodyBuilder.appendFormalLine("if (!searchIndexed) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("LOG.warning(\"The table has more than \" + RooSearchIndex.MAX_ROWS + \" rows and is not searched in memory\");");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} catch (Exception e) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("LOG.log(Level.SEVERE, \"Building the search index of the table failed\", e);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("if (searchIndexed) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("setSearch(searchText);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} else {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("searchable = false;");
+		bodyBuilder.appendFormalLine("searchIndex = null;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}.execute();");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("buildSearchIndex"), JavaType.VOID_PRIMITIVE, null, null, bodyBuilder);
 		
-		ConstructorMetadataBuilder constructorBuilder = new ConstructorMetadataBuilder(declaredByMetadataId);
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates a setSort method for the RooTableModel class, which lets the database order the
+	 * rows by a column and loads the table again. A column index of -1 restores the order of the
+	 * ids. Columns the database cannot sort by are ignored.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getSetSortMethodForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName methodName = new JavaSymbolName("setSort");
 		
-		constructorBuilder.addParameterType(listener);
-		constructorBuilder.addParameterName(new JavaSymbolName("listener"));
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.BOOLEAN_PRIMITIVE, null));
 		
-		constructorBuilder.setModifier(Modifier.PUBLIC);
-		constructorBuilder.setBodyBuilder(bodyBuilder);
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("columnIndex"));
+		parameterNames.add(new JavaSymbolName("ascending"));
 		
-		return constructorBuilder.build();
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("if (columnIndex >= 0 && !isQueryable(columnIndex)) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("sortColumn = columnIndex;");
+		bodyBuilder.appendFormalLine("sortAscending = ascending;");
+		bodyBuilder.appendFormalLine("refresh();");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
 	}
 	
 	/**
-	 * Creates a RooButton class. Implements JTextField.
+	 * Generates a toggleSort method for the RooTableModel class, which sorts by a column in
+	 * ascending order, or reverses the order if the table is sorted by the column already.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
 	 */
-	private void createRooTextFieldClass(){
-		JavaType rooTextField = new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".rooswingcomponents.RooTextField");
-		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(rooTextField, Path.SRC_MAIN_JAVA);
-		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(rooTextField, projectOperations.getPathResolver().getPath(resourceIdentifier));
-		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, rooTextField, PhysicalTypeCategory.CLASS);
+	private MethodMetadata getToggleSortMethodForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName methodName = new JavaSymbolName("toggleSort");
 		
-		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, beanAdapter));
-		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, bindings));
-		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, valueModel));
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
 		
-		JavaType extendsType = new JavaType("javax.swing.JTextField");
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("columnIndex"));
 		
-		typeDetailsBuilder.addExtendsTypes(extendsType);
-		typeDetailsBuilder.addConstructor(getConstructorForRooTextFieldClass(declaredByMetadataId));
-
-		generateClassFile(typeDetailsBuilder);
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("setSort(columnIndex, columnIndex != sortColumn || !sortAscending);");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
 	}
-
+	
 	/**
-	 * Generates a constructor for RooTextfield class.
+	 * Generates a setFilter method for the RooTableModel class, which lets the database filter
+	 * the rows by a column and loads the table again. Strings match the beginning of a cell,
+	 * other values have to be of the type of the column and match it exactly. Null or an empty
+	 * string removes the filter of the column. Columns the database cannot filter by are ignored.
 	 * 
 	 * @param String declaredByMetadataId
-	 * @return new ConstructorMetadata
+	 * @return new MethodMetadata
 	 */
-	private ConstructorMetadata getConstructorForRooTextFieldClass(String declaredByMetadataId) {
+	private MethodMetadata getSetFilterMethodForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName methodName = new JavaSymbolName("setFilter");
+		
 		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
 		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
-		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.String"), null));
 		
 		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
-		parameterNames.add(new JavaSymbolName("entity"));
-		parameterNames.add(new JavaSymbolName("propertyName"));
+		parameterNames.add(new JavaSymbolName("columnIndex"));
+		parameterNames.add(new JavaSymbolName("value"));
 		
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine(beanAdapter + "<Object> myBeanAdapter = new BeanAdapter<Object>((Object) entity, true);");
-		bodyBuilder.appendFormalLine(valueModel + " valueModel = myBeanAdapter.getValueModel(propertyName);");
-		bodyBuilder.appendFormalLine(bindings + ".bind(this, valueModel);");
+		bodyBuilder.appendFormalLine("if (!isQueryable(columnIndex)) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("// Copied on write, so that pages being loaded keep the filters they started with");
+		bodyBuilder.appendFormalLine("Map<Integer, Object> changed = new LinkedHashMap<Integer, Object>(filters);");
+		bodyBuilder.appendFormalLine("if (value == null || \"\".equals(value)) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("changed.remove(columnIndex);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} else {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("changed.put(columnIndex, value);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("filters = changed;");
+		bodyBuilder.appendFormalLine("refresh();");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
 		
-		ConstructorMetadataBuilder constructorBuilder = new ConstructorMetadataBuilder(declaredByMetadataId);
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates a method without parameters for the RooTableModel class that returns a single
+	 * expression.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param String name
+	 * @param String body the return statement
+	 * @param JavaType returnType
+	 * @param int modifier
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getGetterMethodForRooTableModelClass(String declaredByMetadataId, String name, String body, JavaType returnType, int modifier) {
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine(body);
 		
-		constructorBuilder.setParameterTypes(parameterTypes);
-		constructorBuilder.setParameterNames(parameterNames);
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, modifier, new JavaSymbolName(name), returnType, new ArrayList<AnnotatedJavaType>(), new ArrayList<JavaSymbolName>(), bodyBuilder);
 		
-		constructorBuilder.setModifier(Modifier.PUBLIC);
-		constructorBuilder.setBodyBuilder(bodyBuilder);
-		return constructorBuilder.build();
+		return methodBuilder.build();
 	}
-
 	
-	private String getFindAllMethodNameForEntity(JavaType entity){
-		MemberDetails memberDetails = getMemberDetails(entity);
+	/**
+	 * Generates an isQueryable method, which tells whether the database can sort and filter by a
+	 * column. The RooTableModel class cannot query at all, the table model of an entity can
+	 * query by the columns of basic values if its entity has an entity manager.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param boolean[] queryable the queryable columns of an entity, null for the RooTableModel class
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getIsQueryableMethodForRooTableModelClass(String declaredByMetadataId, boolean[] queryable) {
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
 		
-		String findAllMethodName = null;
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("columnIndex"));
 		
-		Assert.notEmpty(MemberFindingUtils.getMethods(memberDetails));
-		for(MethodMetadata methodMetadata : MemberFindingUtils.getMethods(memberDetails)){
-			JavaSymbolName methodName = new JavaSymbolName(methodMetadata.getMethodName().getSymbolName());
-			String name = methodName.getSymbolName();
-			
-			if(name.startsWith("findAll")){
-				findAllMethodName = name;
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		if (queryable == null) {
+			bodyBuilder.appendFormalLine("return false;");
+		} else {
+			StringBuilder columns = new StringBuilder();
+			for (int i = 0; i < queryable.length; i++) {
+				if (queryable[i]) {
+					columns.append(columns.length() == 0 ? "" : " || ").append("columnIndex == ").append(i);
+				}
 			}
+			bodyBuilder.appendFormalLine("return " + (columns.length() == 0 ? "false" : columns) + ";");
 		}
-		return findAllMethodName;
-	}
-	
-	private MethodMetadata getRooTableConvertToObjectArrayMethod(String declaredByMetadataId, JavaType entity){
-		JavaSymbolName methodName = new JavaSymbolName("convertToObjectArray");
 		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, new JavaSymbolName("isQueryable"), JavaType.BOOLEAN_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
 		
-		
-		return null;
+		return methodBuilder.build();
 	}
 	
-	private MethodMetadata getRooTableGetColumnNamesMethod(String declaredByMetadataId, JavaType entity){
-		JavaSymbolName methodName = new JavaSymbolName("getColumnNames");
+	/**
+	 * Generates an indexPage or unindexPage method for the RooTableModel class, which adds the
+	 * rows of a page to the id index or removes them from it. A row is only removed while it is
+	 * still indexed for the page, as its entity may have moved to another page meanwhile. Called
+	 * with the lock on the pages held.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param boolean index true for indexPage, false for unindexPage
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getIndexPageMethodForRooTableModelClass(String declaredByMetadataId, boolean index) {
+		JavaSymbolName methodName = new JavaSymbolName(index ? "indexPage" : "unindexPage");
 		
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
 		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("page"));
+		parameterNames.add(new JavaSymbolName("data"));
 		
-		return null;
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("int firstRow = page * pageSize;");
+		bodyBuilder.appendFormalLine("for (int offset = 0; offset < getPageRowCount(data); offset++) {");
+		bodyBuilder.indent();
+		if (index) {
+			bodyBuilder.appendFormalLine("rows.put(getPageId(data, offset), firstRow + offset);");
+		} else {
+			bodyBuilder.appendFormalLine("Object id = getPageId(data, offset);");
+			bodyBuilder.appendFormalLine("Integer row = rows.get(id);");
+			bodyBuilder.appendFormalLine("if (row != null && row == firstRow + offset) {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine("rows.remove(id);");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+		}
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates a removePages method for the RooTableModel class, which drops a page and all
+	 * pages after it together with their requests and index entries. Called with the lock on the
+	 * pages held.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getRemovePagesMethodForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName methodName = new JavaSymbolName("removePages");
+		
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("firstPage"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("for (Iterator<Map.Entry<Integer, Object>> i = pages.entrySet().iterator(); i.hasNext();) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("Map.Entry<Integer, Object> page = i.next();");
+		bodyBuilder.appendFormalLine("if (page.getKey() >= firstPage) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("unindexPage(page.getKey(), page.getValue());");
+		bodyBuilder.appendFormalLine("i.remove();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("for (Iterator<Map.Entry<Integer, Future<?>>> i = requests.entrySet().iterator(); i.hasNext();) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("Map.Entry<Integer, Future<?>> request = i.next();");
+		bodyBuilder.appendFormalLine("if (request.getKey() >= firstPage) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("request.getValue().cancel(false);");
+		bodyBuilder.appendFormalLine("i.remove();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, methodName, JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates a countRows method for the RooTableModel class, overridden with the count
+	 * method of the entity.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getCountRowsMethodForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName methodName = new JavaSymbolName("countRows");
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return 0;");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED, methodName, JavaType.LONG_PRIMITIVE, null, null, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates a findEntries or findIndexEntries method for the RooTableModel class, overridden
+	 * with the paging finder of the entity. findEntries loads the pages of the table, sorted and
+	 * filtered as set, findIndexEntries the entities of the search index, which are never
+	 * filtered.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param String name findEntries or findIndexEntries
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getFindEntriesMethodForRooTableModelClass(String declaredByMetadataId, String name) {
+		JavaSymbolName methodName = new JavaSymbolName(name);
+		
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("firstResult"));
+		parameterNames.add(new JavaSymbolName("maxResults"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return Collections.emptyList();");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED, methodName, getPageType(), parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates one of the methods of the RooTableModel class that define how a page is stored.
+	 * By default a page is the list of its entities and no entity is shown, so that changes of
+	 * entities are ignored. The table model of an entity overrides them to store the page column
+	 * by column and to follow the changes of its entity.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param String name createPage, getPageRowCount, getPageValue, getPageEntity, getPageId,
+	 *        setPageRow, isEntity, getEntityId or getSearchValues
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getPageHookMethodForRooTableModelClass(String declaredByMetadataId, String name) {
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		JavaType returnType = new JavaType("java.lang.Object");
+		
+		if (name.equals("createPage")) {
+			parameterTypes.add(new AnnotatedJavaType(getPageType(), null));
+			parameterNames.add(new JavaSymbolName("entries"));
+			bodyBuilder.appendFormalLine("return entries;");
+		} else if (name.equals("isEntity") || name.equals("getEntityId") || name.equals("getSearchValues")) {
+			parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
+			parameterNames.add(new JavaSymbolName("entity"));
+			if (name.equals("isEntity")) {
+				returnType = JavaType.BOOLEAN_PRIMITIVE;
+				bodyBuilder.appendFormalLine("return false;");
+			} else if (name.equals("getSearchValues")) {
+				returnType = new JavaType("java.lang.String", 1, DataType.TYPE, null, null);
+				bodyBuilder.appendFormalLine("return new String[0];");
+			} else {
+				bodyBuilder.appendFormalLine("return entity;");
+			}
+		} else {
+			parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
+			parameterNames.add(new JavaSymbolName("page"));
+			if (name.equals("getPageRowCount")) {
+				returnType = JavaType.INT_PRIMITIVE;
+				bodyBuilder.appendFormalLine("return ((List<?>) page).size();");
+			} else {
+				parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+				parameterNames.add(new JavaSymbolName("offset"));
+				if (name.equals("getPageValue")) {
+					parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+					parameterNames.add(new JavaSymbolName("columnIndex"));
+					bodyBuilder.appendFormalLine("return null;");
+				} else if (name.equals("setPageRow")) {
+					returnType = JavaType.VOID_PRIMITIVE;
+					parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
+					parameterNames.add(new JavaSymbolName("entity"));
+					bodyBuilder.appendFormalLine("((List<Object>) page).set(offset, entity);");
+				} else {
+					bodyBuilder.appendFormalLine("return ((List<?>) page).get(offset);");
+				}
+			}
+		}
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED, new JavaSymbolName(name), returnType, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates an encode method for the RooTableModel class, which dictionary-encodes a string
+	 * column of a page. Equal strings of a page share one dictionary entry, null is encoded as -1.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getEncodeMethodForRooTableModelClass(String declaredByMetadataId) {
+		JavaType string = new JavaType("java.lang.String");
+		
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(string, null));
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.util.Map", 0, DataType.TYPE, null, Arrays.asList(string, new JavaType("java.lang.Integer"))), null));
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.util.List", 0, DataType.TYPE, null, Arrays.asList(string)), null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("value"));
+		parameterNames.add(new JavaSymbolName("codes"));
+		parameterNames.add(new JavaSymbolName("dictionary"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("if (value == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return -1;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("Integer code = codes.get(value);");
+		bodyBuilder.appendFormalLine("if (code == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("code = dictionary.size();");
+		bodyBuilder.appendFormalLine("codes.put(value, code);");
+		bodyBuilder.appendFormalLine("dictionary.add(value);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("return code;");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED | Modifier.STATIC, new JavaSymbolName("encode"), JavaType.INT_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates an encode method for the RooTableModel class, which dictionary-encodes a single
+	 * string into a loaded page. The dictionary of the page is grown by the string if it does not
+	 * contain it yet.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getEncodeIntoPageMethodForRooTableModelClass(String declaredByMetadataId) {
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.String"), null));
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object", 1, DataType.TYPE, null, null), null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("value"));
+		parameterNames.add(new JavaSymbolName("columns"));
+		parameterNames.add(new JavaSymbolName("dictionarySlot"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("if (value == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return -1;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("String[] dictionary = (String[]) columns[dictionarySlot];");
+		bodyBuilder.appendFormalLine("for (int code = 0; code < dictionary.length; code++) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (value.equals(dictionary[code])) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return code;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("String[] grown = new String[dictionary.length + 1];");
+		bodyBuilder.appendFormalLine("System.arraycopy(dictionary, 0, grown, 0, dictionary.length);");
+		bodyBuilder.appendFormalLine("grown[dictionary.length] = value;");
+		bodyBuilder.appendFormalLine("columns[dictionarySlot] = grown;");
+		bodyBuilder.appendFormalLine("return dictionary.length;");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED | Modifier.STATIC, new JavaSymbolName("encode"), JavaType.INT_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates a decode method for the RooTableModel class, the reverse of encode.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getDecodeMethodForRooTableModelClass(String declaredByMetadataId) {
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		parameterTypes.add(new AnnotatedJavaType(stringArrayOneDimensional, null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("code"));
+		parameterNames.add(new JavaSymbolName("dictionary"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return code < 0 ? null : dictionary[code];");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED | Modifier.STATIC, new JavaSymbolName("decode"), new JavaType("java.lang.String"), parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+
+	/**
+	 * Generates a constructor for the RooTableModel class.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new ConstructorMetadata
+	 */
+	private ConstructorMetadata getConstructorForRooTableModelClass(String declaredByMetadataId) {
+		ConstructorMetadataBuilder constructorBuilder = new ConstructorMetadataBuilder(declaredByMetadataId);
+		
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(stringArrayOneDimensional, null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		
+		JavaSymbolName columnNames = new JavaSymbolName("columnNames");
+		JavaSymbolName pageSize = new JavaSymbolName("pageSize");
+		JavaSymbolName maxPages = new JavaSymbolName("maxPages");
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(columnNames);
+		parameterNames.add(pageSize);
+		parameterNames.add(maxPages);
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("this." + columnNames + " = " + columnNames + ";");
+		bodyBuilder.appendFormalLine("this." + pageSize + " = " + pageSize + ";");
+		bodyBuilder.appendFormalLine("this." + maxPages + " = " + maxPages + ";");
+		
+		constructorBuilder.setParameterTypes(parameterTypes);
+		constructorBuilder.setParameterNames(parameterNames);
+		constructorBuilder.setModifier(Modifier.PUBLIC);
+		constructorBuilder.setBodyBuilder(bodyBuilder);
+		
+		return constructorBuilder.build();
+	}
+
+	/**
+	 * Generates a pages field for the RooTableModel class. The map is kept in access order and
+	 * evicts the least recently used page as soon as it holds more than maxPages pages, together
+	 * with its rows in the id index.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new FieldMetadata
+	 */
+	private FieldMetadata getPagesFieldForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName fieldName = new JavaSymbolName("pages");
+		JavaType pagesType = new JavaType("java.util.Map", 0, DataType.TYPE, null, Arrays.asList(new JavaType("java.lang.Integer"), new JavaType("java.lang.Object")));
+		String pagesTypeParameters = "<Integer, Object>";
+		String fieldInitializer = "new LinkedHashMap" + pagesTypeParameters + "(16, 0.75f, true) { "
+			+ "protected boolean removeEldestEntry(Map.Entry" + pagesTypeParameters + " eldest) { if (size() <= maxPages) { return false; } unindexPage(eldest.getKey(), eldest.getValue()); return true; } }";
+		FieldMetadataBuilder fieldBuilder = new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, fieldName, pagesType, fieldInitializer);
+		return fieldBuilder.build();
+	}
+	
+	/**
+	 * Generates the rows field of the RooTableModel class, which maps the ids of the entities of
+	 * the loaded pages to their rows. It is guarded by the lock on the pages.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new FieldMetadata
+	 */
+	private FieldMetadata getRowsFieldForRooTableModelClass(String declaredByMetadataId) {
+		JavaType rowsType = new JavaType("java.util.Map", 0, DataType.TYPE, null, Arrays.asList(new JavaType("java.lang.Object"), new JavaType("java.lang.Integer")));
+		FieldMetadataBuilder fieldBuilder = new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.FINAL, new JavaSymbolName("rows"), rowsType, "new HashMap<Object, Integer>()");
+		return fieldBuilder.build();
+	}
+	
+	/**
+	 * Generates the executor field of the RooTableModel class. All tables share one daemon
+	 * thread, which loads the queued pages in the order they have been requested.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new FieldMetadata
+	 */
+	private FieldMetadata getPrefetchExecutorFieldForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName fieldName = new JavaSymbolName("PREFETCH_EXECUTOR");
+		String fieldInitializer = "Executors.newSingleThreadExecutor(new ThreadFactory() { "
+			+ "public Thread newThread(Runnable runnable) { Thread thread = new Thread(runnable, \"RooTableModel prefetch\"); thread.setDaemon(true); return thread; } })";
+		FieldMetadataBuilder fieldBuilder = new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL, fieldName, new JavaType("java.util.concurrent.ExecutorService"), fieldInitializer);
+		return fieldBuilder.build();
+	}
+	
+	/**
+	 * Generates a requests field for the RooTableModel class, holding the pages queued on the prefetch thread.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new FieldMetadata
+	 */
+	private FieldMetadata getRequestsFieldForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName fieldName = new JavaSymbolName("requests");
+		JavaType future = new JavaType("java.util.concurrent.Future", 0, DataType.TYPE, null, Arrays.asList(new JavaType("java.lang.Object", 0, DataType.TYPE, JavaType.WILDCARD_NEG, null)));
+		JavaType requestsType = new JavaType("java.util.Map", 0, DataType.TYPE, null, Arrays.asList(new JavaType("java.lang.Integer"), future));
+		FieldMetadataBuilder fieldBuilder = new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, fieldName, requestsType, "new HashMap<Integer, Future<?>>()");
+		return fieldBuilder.build();
+	}
+	
+	/**
+	 * Generates a public constant of the RooTableModel class.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param String name
+	 * @param int value
+	 * @return new FieldMetadata
+	 */
+	private FieldMetadata getConstantFieldForRooTableModelClass(String declaredByMetadataId, String name, int value) {
+		FieldMetadataBuilder fieldBuilder = new FieldMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC | Modifier.FINAL, new JavaSymbolName(name), JavaType.INT_PRIMITIVE, String.valueOf(value));
+		return fieldBuilder.build();
+	}
+	
+	/**
+	 * Generates a coumnNames[] field for the RooTableModel class.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new FieldMetadata
+	 */
+	private FieldMetadata getColumnNamesFieldForRooTableModelClass(String declaredByMetadataId) {
+		JavaSymbolName fieldName = new JavaSymbolName("columnNames");
+		FieldMetadataBuilder fieldBuilder = new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, fieldName, stringArrayOneDimensional, null);
+		return fieldBuilder.build();
+	}
+	
+	/**
+	 * @return the type of the filters of the RooTableModel class, Map<Integer, Object>
+	 */
+	private JavaType getFiltersType() {
+		return new JavaType("java.util.Map", 0, DataType.TYPE, null, Arrays.asList(new JavaType("java.lang.Integer"), new JavaType("java.lang.Object")));
+	}
+	
+	/**
+	 * @return the type of a page of entities, List<?>
+	 */
+	private JavaType getPageType() {
+		return new JavaType("java.util.List", 0, DataType.TYPE, null, Arrays.asList(new JavaType("java.lang.Object", 0, DataType.TYPE, JavaType.WILDCARD_NEG, null)));
+	}
+
+	/**
+	 * Creates a RooPanel class for the RooTable Component. Implements JPanel.
+	 */
+	private void createRooPanelClass(){
+		JavaType rooTable = new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".rooswingcomponents.RooPanel");
+		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(rooTable, Path.SRC_MAIN_JAVA);
+		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(rooTable, projectOperations.getPathResolver().getPath(resourceIdentifier));
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, rooTable, PhysicalTypeCategory.CLASS);
+		
+		typeDetailsBuilder.addField(getComponentField(declaredByMetadataId));
+		
+		generateClassFile(typeDetailsBuilder);
+	}
+	
+	/**
+	 * Generates panelComponent Field for RooPanel class.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new FieldMetadata
+	 */
+	private FieldMetadata getComponentField(String declaredByMetadataId){
+		JavaSymbolName fieldName = new JavaSymbolName("panelComponents");
+		
+		FieldMetadataBuilder fieldBuilder = new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, fieldName, list, null);
+		return fieldBuilder.build();
+	}
+	
+	/**
+	 * Triggers the creation of RooTable classes for all changed entities.
+	 * 
+	 * @param Set<JavaType> changedEntities
+	 */
+	private void createRooTableClassesForAllEntites(Set<JavaType> changedEntities){
+		for (ClassOrInterfaceTypeDetails cid : rooEntityIndex.getEntities()) {
+			JavaType entity = cid.getName();
+			if (!changedEntities.contains(entity)) {
+				continue;
+			}
+			
+			long start = System.nanoTime();
+			createRooTableModelClassForSingleEntity(entity);
+			createRooTableClassForSingleEntity(entity);
+			profiler.recordPhase("roo table generation", start);
+			profiler.recordEntity(entity, start);
+		}
+	}
+	
+	/**
+	 * Deletes the RooTable and table model classes of removed entities.
+	 * 
+	 * @param Set<JavaType> removedEntities
+	 */
+	private void removeRooTableClasses(Set<JavaType> removedEntities){
+		for (JavaType entity : removedEntities) {
+			for (JavaType type : Arrays.asList(getRooTableType(entity), getRooTableModelType(entity))) {
+				String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(type, Path.SRC_MAIN_JAVA);
+				if (fileManager.exists(resourceIdentifier)) {
+					fileManager.delete(resourceIdentifier);
+				}
+			}
+		}
+	}
+	
+	private JavaType getRooTableType(JavaType entity){
+		return new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".rooswingcomponents.RooTable" + entity.getSimpleTypeName());
+	}
+
+	/**
+	 * Creates a RooTable class for a single entity. Implements JXTable.
+	 */
+	private void createRooTableClassForSingleEntity(JavaType entity){
+		JavaType rooTable = getRooTableType(entity);
+		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(rooTable, Path.SRC_MAIN_JAVA);
+		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(rooTable, projectOperations.getPathResolver().getPath(resourceIdentifier));
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, rooTable, PhysicalTypeCategory.CLASS);
+		
+		typeDetailsBuilder.addExtendsTypes(new JavaType("org.jdesktop.swingx.JXTable"));
+		typeDetailsBuilder.addField(getLoggerField(declaredByMetadataId));
+		typeDetailsBuilder.addField(getPrefetcherField(declaredByMetadataId));
+		typeDetailsBuilder.addConstructor(getRooTableConstructor(declaredByMetadataId, entity));
+		typeDetailsBuilder.addMethod(getViewportNotifyMethod(declaredByMetadataId, "addNotify"));
+		typeDetailsBuilder.addMethod(getViewportNotifyMethod(declaredByMetadataId, "removeNotify"));
+		typeDetailsBuilder.addMethod(getCrudResultMethodForRooTable(declaredByMetadataId, entity));
+		typeDetailsBuilder.addMethod(getSearchMethodForRooTable(declaredByMetadataId, entity));
+		
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.awt.event.MouseAdapter")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.awt.event.MouseEvent")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("javax.swing.JViewport")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("org.bushe.swing.event.annotation.AnnotationProcessor")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, getCrudResultEventType()));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".main.ContextLoader")));
+		
+		generateClassFile(typeDetailsBuilder);
+	}
+	
+	/**
+	 * Generates the constructor of RooTable class, which sets the table model of the entity,
+	 * starts loading its rows in the background and subscribes the table to the CRUD results.
+	 * The sorting of JXTable would read every row, so a click on a column header lets the
+	 * database sort the rows instead. The event and listener beans of the entity are created in
+	 * the background by the ContextLoader when the first table of the entity is created.
+	 * @return new ConstructorMetadata
+	 */
+	private ConstructorMetadata getRooTableConstructor(String declaredByMetadataId, JavaType entity) {
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		String tableModel = getRooTableModelType(entity).getSimpleTypeName();
+		bodyBuilder.appendFormalLine("ContextLoader.initEntity(\"" + entity.getSimpleTypeName() + "\");");
+		bodyBuilder.appendFormalLine("final " + tableModel + " model = new " + tableModel + "();");
+		bodyBuilder.appendFormalLine("this.setModel(model);");
+		bodyBuilder.appendFormalLine("this.setSortable(false);");
+		bodyBuilder.appendFormalLine("getTableHeader().addMouseListener(new MouseAdapter() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public void mouseClicked(MouseEvent e) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("int column = getTableHeader().columnAtPoint(e.getPoint());");
+		bodyBuilder.appendFormalLine("if (column >= 0) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("model.toggleSort(convertColumnIndexToModel(column));");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("});");
+		bodyBuilder.appendFormalLine("model.load();");
+		bodyBuilder.appendFormalLine("AnnotationProcessor.process(this);");
+		
+		ConstructorMetadataBuilder constructorBuilder = new ConstructorMetadataBuilder(declaredByMetadataId);
+		
+		constructorBuilder.setModifier(Modifier.PUBLIC);
+		constructorBuilder.setBodyBuilder(bodyBuilder);
+		return constructorBuilder.build();
+	}
+	
+	/**
+	 * Generates the method a RooTable receives the results of the CRUD operations with. Every
+	 * successful create, update and delete of its entity is applied to the affected row of its
+	 * table model only.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param JavaType entity
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getCrudResultMethodForRooTable(String declaredByMetadataId, JavaType entity) {
+		JavaType crudResultEvent = getCrudResultEventType();
+		
+		List<AnnotationAttributeValue<?>> eventBusAttributes = new ArrayList<AnnotationAttributeValue<?>>();
+		eventBusAttributes.add(new ClassAttributeValue(new JavaSymbolName("eventClass"), crudResultEvent));
+		
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(crudResultEvent, null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("event"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("if (event.getError() == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("((" + getRooTableModelType(entity).getSimpleTypeName() + ") getModel()).entityChanged(event.getOperation(), event.getEntity());");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, new JavaSymbolName("onCrudResult"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		methodBuilder.addAnnotation(new AnnotationMetadataBuilder(new JavaType("org.bushe.swing.event.annotation.EventSubscriber"), eventBusAttributes).build());
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates the search method of a RooTable, which filters its rows as the user types, e.g.
+	 * from a DocumentListener of a search field.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param JavaType entity
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getSearchMethodForRooTable(String declaredByMetadataId, JavaType entity) {
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.String"), null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("text"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("((" + getRooTableModelType(entity).getSimpleTypeName() + ") getModel()).setSearch(text);");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, new JavaSymbolName("search"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	private JavaType getCrudResultEventType(){
+		return new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".events.CrudResultEvent");
+	}
+	
+	private JavaType getRooTableModelType(){
+		return new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".rooswingcomponents.RooTableModel");
+	}
+	
+	private JavaType getRooTableModelType(JavaType entity){
+		return new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".rooswingcomponents." + entity.getSimpleTypeName() + "TableModel");
+	}
+	
+	/**
+	 * Creates the table model class of a single entity. Extends RooTableModel, counts and pages
+	 * the entities with their count and findEntries methods and stores every loaded page column
+	 * by column: numbers and booleans in primitive arrays, strings dictionary-encoded in int
+	 * arrays, the ids of the entities and the loaded entities themselves, which are returned
+	 * when a row is selected without querying the database again.
+	 * If the entity has an entity manager, sorted or filtered pages are queried with JPQL, so
+	 * that ORDER BY, WHERE and the paging run in the database. The string columns are the
+	 * values the search index of the table is built from. Entities without paging finders are
+	 * loaded with findAll once per generation of the model and paged in memory.
+	 */
+	private void createRooTableModelClassForSingleEntity(JavaType entity){
+		JavaType tableModel = getRooTableModelType(entity);
+		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(tableModel, Path.SRC_MAIN_JAVA);
+		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(tableModel, projectOperations.getPathResolver().getPath(resourceIdentifier));
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, tableModel, PhysicalTypeCategory.CLASS);
+		
+		EntityDetails entityDetails = entityDetailsCache.getEntityDetails(entity);
+		List<ColumnStorage> columns = getColumnStorages(entityDetails);
+		
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, list));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, entity));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.ArrayList")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.HashMap")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.Map")));
+		
+		typeDetailsBuilder.addExtendsTypes(getRooTableModelType());
+		typeDetailsBuilder.addConstructor(getConstructorForEntityTableModelClass(declaredByMetadataId, columns));
+		typeDetailsBuilder.addMethod(getCountRowsMethodForEntityTableModelClass(declaredByMetadataId, entity, entityDetails));
+		typeDetailsBuilder.addMethod(getFindEntriesMethodForEntityTableModelClass(declaredByMetadataId, entity, entityDetails, "findEntries"));
+		typeDetailsBuilder.addMethod(getFindEntriesMethodForEntityTableModelClass(declaredByMetadataId, entity, entityDetails, "findIndexEntries"));
+		if (entityDetails.getCountMethodName() == null || entityDetails.getFindEntriesMethodName() == null) {
+			JavaType entityList = new JavaType("java.util.List", 0, DataType.TYPE, null, Arrays.asList(entity));
+			typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("allEntries"), entityList, null).build());
+			typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("allEntriesGeneration"), JavaType.INT_PRIMITIVE, "-1").build());
+			typeDetailsBuilder.addMethod(getFindAllEntriesMethodForEntityTableModelClass(declaredByMetadataId, entity, entityList));
+			typeDetailsBuilder.addMethod(getEntityChangedMethodForEntityTableModelClass(declaredByMetadataId));
+		}
+		if (hasEntityManager(entityDetails) && getIdType(entityDetails) != null) {
+			typeDetailsBuilder.addMethod(getGetterMethodForRooTableModelClass(declaredByMetadataId, "isOrderedById", "return true;", JavaType.BOOLEAN_PRIMITIVE, Modifier.PROTECTED));
+		}
+		if (hasEntityManager(entityDetails)) {
+			boolean[] queryable = new boolean[columns.size()];
+			for (int i = 0; i < columns.size(); i++) {
+				queryable[i] = entityDetails.isQueryable(columns.get(i).propertyName);
+			}
+			typeDetailsBuilder.addMethod(getIsQueryableMethodForRooTableModelClass(declaredByMetadataId, queryable));
+			typeDetailsBuilder.addMethod(getCreateQueryMethodForEntityTableModelClass(declaredByMetadataId, entity, entityDetails));
+			typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("javax.persistence.Query")));
+		}
+		typeDetailsBuilder.addMethod(getCreatePageMethodForEntityTableModelClass(declaredByMetadataId, entity, entityDetails, columns));
+		typeDetailsBuilder.addMethod(getGetPageRowCountMethodForEntityTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getGetPageValueMethodForEntityTableModelClass(declaredByMetadataId, columns));
+		typeDetailsBuilder.addMethod(getGetPageEntityMethodForEntityTableModelClass(declaredByMetadataId, entityDetails, columns));
+		typeDetailsBuilder.addMethod(getGetPageIdMethodForEntityTableModelClass(declaredByMetadataId));
+		typeDetailsBuilder.addMethod(getSetPageRowMethodForEntityTableModelClass(declaredByMetadataId, entity, entityDetails, columns));
+		typeDetailsBuilder.addMethod(getIsEntityMethodForEntityTableModelClass(declaredByMetadataId, entity));
+		if (getIdType(entityDetails) != null) {
+			typeDetailsBuilder.addMethod(getGetEntityIdMethodForEntityTableModelClass(declaredByMetadataId, entity));
+		}
+		MethodMetadata getSearchValues = getGetSearchValuesMethodForEntityTableModelClass(declaredByMetadataId, entity, columns);
+		if (getSearchValues != null) {
+			typeDetailsBuilder.addMethod(getSearchValues);
+		}
+		
+		generateClassFile(typeDetailsBuilder);
+	}
+	
+	/**
+	 * Describes how one property of an entity is stored in a page of its table model. Slot is the
+	 * index of the column array within the page, nullSlot the index of the boolean array marking
+	 * nulls of a wrapper type (-1 if the property is primitive or stored as object).
+	 */
+	private static class ColumnStorage {
+		private String propertyName;
+		private String getterName;
+		private String arrayType;
+		private String wrapperType;
+		private String cast;
+		private int slot;
+		private int nullSlot = -1;
+	}
+	
+	/**
+	 * Maps the properties of an entity to their column arrays. The first slot of a page holds
+	 * the ids of its entities, the dictionary of the string columns follows the last column.
+	 * 
+	 * @param EntityDetails entityDetails
+	 * @return List<ColumnStorage> one entry per table column
+	 */
+	private List<ColumnStorage> getColumnStorages(EntityDetails entityDetails) {
+		List<ColumnStorage> columns = new ArrayList<ColumnStorage>();
+		int slot = 1;
+		for (Map.Entry<String, JavaType> property : entityDetails.getPropertyTypes().entrySet()) {
+			String type = property.getValue().getFullyQualifiedTypeName();
+			ColumnStorage column = new ColumnStorage();
+			column.propertyName = property.getKey();
+			column.getterName = entityDetails.getGetterName(property.getKey());
+			column.cast = "";
+			if (property.getValue().isArray()) {
+				column.arrayType = "Object";
+			} else if (type.equals("java.lang.Long")) {
+				column.arrayType = "long";
+			} else if (type.equals("java.lang.Integer") || type.equals("java.lang.Short") || type.equals("java.lang.Byte")) {
+				column.arrayType = "int";
+				column.cast = type.equals("java.lang.Integer") ? "" : "(" + property.getValue().getSimpleTypeName().toLowerCase() + ") ";
+			} else if (type.equals("java.lang.Double") || type.equals("java.lang.Float")) {
+				column.arrayType = "double";
+				column.cast = type.equals("java.lang.Double") ? "" : "(float) ";
+			} else if (type.equals("java.lang.Boolean")) {
+				column.arrayType = "boolean";
+			} else if (type.equals("java.lang.String")) {
+				column.arrayType = "String";
+			} else {
+				column.arrayType = "Object";
+			}
+			if (!column.arrayType.equals("Object") && !column.arrayType.equals("String")) {
+				column.wrapperType = property.getValue().getSimpleTypeName();
+			}
+			column.slot = slot++;
+			if (column.wrapperType != null && !property.getValue().isPrimitive()) {
+				column.nullSlot = slot++;
+			}
+			columns.add(column);
+		}
+		return columns;
+	}
+	
+	/**
+	 * Returns the type of the id of an entity or null if the entity has no getId method.
+	 * 
+	 * @param EntityDetails entityDetails
+	 * @return JavaType
+	 */
+	private JavaType getIdType(EntityDetails entityDetails) {
+		for (MethodMetadata method : MemberFindingUtils.getMethods(entityDetails.getMemberDetails())) {
+			if (method.getMethodName().getSymbolName().equals("getId") && method.getParameterTypes().isEmpty()) {
+				return method.getReturnType();
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns true if the entity has the static entityManager method of Roo entities.
+	 * 
+	 * @param EntityDetails entityDetails
+	 * @return boolean
+	 */
+	private boolean hasEntityManager(EntityDetails entityDetails) {
+		for (MethodMetadata method : MemberFindingUtils.getMethods(entityDetails.getMemberDetails())) {
+			if (method.getMethodName().getSymbolName().equals("entityManager") && method.getParameterTypes().isEmpty() && Modifier.isStatic(method.getModifier())) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Generates the createQuery method of the table model class of an entity, which builds the
+	 * JPQL query of the sorted or filtered rows. The filters become parameters of the WHERE
+	 * clause, strings are matched by prefix so that an index on the column can be used. Ordered
+	 * rows are always ordered by the id, alone or as tiebreaker of the sort column, so that the
+	 * pages neither overlap nor miss rows.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param JavaType entity
+	 * @param EntityDetails entityDetails
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getCreateQueryMethodForEntityTableModelClass(String declaredByMetadataId, JavaType entity, EntityDetails entityDetails) {
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.String"), null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.BOOLEAN_PRIMITIVE, null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("select"));
+		parameterNames.add(new JavaSymbolName("ordered"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("Map<Integer, Object> filters = getFilters();");
+		bodyBuilder.appendFormalLine("StringBuilder jpql = new StringBuilder(select);");
+		bodyBuilder.appendFormalLine("int parameter = 0;");
+		bodyBuilder.appendFormalLine("for (Map.Entry<Integer, Object> filter : filters.entrySet()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("jpql.append(parameter == 0 ? \" WHERE o.\" : \" AND o.\").append(getColumnName(filter.getKey()));");
+		bodyBuilder.appendFormalLine("jpql.append(filter.getValue() instanceof String ? \" LIKE :p\" + parameter + \" ESCAPE '!'\" : \" = :p\" + parameter);");
+		bodyBuilder.appendFormalLine("parameter++;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		if (getIdType(entityDetails) != null) {
+			bodyBuilder.appendFormalLine("if (ordered) {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine("jpql.append(\" ORDER BY \");");
+			bodyBuilder.appendFormalLine("if (getSortColumn() >= 0) {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine("jpql.append(\"o.\").append(getColumnName(getSortColumn())).append(isSortAscending() ? \" ASC, \" : \" DESC, \");");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+			bodyBuilder.appendFormalLine("jpql.append(\"o.id\");");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+		} else {
+			bodyBuilder.appendFormalLine("if (ordered && getSortColumn() >= 0) {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine("jpql.append(\" ORDER BY o.\").append(getColumnName(getSortColumn())).append(isSortAscending() ? \" ASC\" : \" DESC\");");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+		}
+		bodyBuilder.appendFormalLine("Query query = " + entity.getSimpleTypeName() + ".entityManager().createQuery(jpql.toString());");
+		bodyBuilder.appendFormalLine("parameter = 0;");
+		bodyBuilder.appendFormalLine("for (Object value : filters.values()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (value instanceof String) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("value = ((String) value).replace(\"!\", \"!!\").replace(\"%\", \"!%\").replace(\"_\", \"!_\") + \"%\";");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("query.setParameter(\"p\" + parameter++, value);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("return query;");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("createQuery"), new JavaType("javax.persistence.Query"), parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates the constructor of the table model class of an entity.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param List<ColumnStorage> columns
+	 * @return new ConstructorMetadata
+	 */
+	private ConstructorMetadata getConstructorForEntityTableModelClass(String declaredByMetadataId, List<ColumnStorage> columns) {
+		StringBuilder columnNames = new StringBuilder();
+		for (ColumnStorage column : columns) {
+			columnNames.append(columnNames.length() == 0 ? "" : ", ").append('"').append(column.propertyName).append('"');
+		}
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("super(new String[] {" + columnNames + "}, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);");
+		
+		ConstructorMetadataBuilder constructorBuilder = new ConstructorMetadataBuilder(declaredByMetadataId);
+		
+		constructorBuilder.setModifier(Modifier.PUBLIC);
+		constructorBuilder.setBodyBuilder(bodyBuilder);
+		return constructorBuilder.build();
+	}
+	
+	/**
+	 * Generates the countRows method of the table model class of an entity. Sorted or filtered
+	 * rows are counted with a query.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param JavaType entity
+	 * @param EntityDetails entityDetails
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getCountRowsMethodForEntityTableModelClass(String declaredByMetadataId, JavaType entity, EntityDetails entityDetails) {
+		String entityName = entity.getSimpleTypeName();
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		if (hasEntityManager(entityDetails)) {
+			bodyBuilder.appendFormalLine("if (isQueried()) {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine("return (Long) createQuery(\"SELECT COUNT(o) FROM " + entityName + " o\", false).getSingleResult();");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+		}
+		if (entityDetails.getCountMethodName() != null && entityDetails.getFindEntriesMethodName() != null) {
+			bodyBuilder.appendFormalLine("return " + entityName + "." + entityDetails.getCountMethodName() + "();");
+		} else {
+			// Without paging finders the entities can only be loaded at once
+			bodyBuilder.appendFormalLine("return findAllEntries().size();");
+		}
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED, new JavaSymbolName("countRows"), JavaType.LONG_PRIMITIVE, new ArrayList<AnnotatedJavaType>(), new ArrayList<JavaSymbolName>(), bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates the findEntries or findIndexEntries method of the table model class of an entity.
+	 * Sorted or filtered pages of findEntries are loaded with a query. If the entity has an id,
+	 * the unsorted pages are queried as well, ordered by the id, since the paging finder of Roo
+	 * does not define an order and created entities are appended as last rows.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param JavaType entity
+	 * @param EntityDetails entityDetails
+	 * @param String name findEntries or findIndexEntries
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getFindEntriesMethodForEntityTableModelClass(String declaredByMetadataId, JavaType entity, EntityDetails entityDetails, String name) {
+		String entityName = entity.getSimpleTypeName();
+		
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("firstResult"));
+		parameterNames.add(new JavaSymbolName("maxResults"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		if (name.equals("findEntries") && hasEntityManager(entityDetails) && getIdType(entityDetails) != null) {
+			bodyBuilder.appendFormalLine("return createQuery(\"SELECT o FROM " + entityName + " o\", true).setFirstResult(firstResult).setMaxResults(maxResults).getResultList();");
+			
+			MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED, new JavaSymbolName(name), getPageType(), parameterTypes, parameterNames, bodyBuilder);
+			
+			return methodBuilder.build();
+		}
+		if (name.equals("findEntries") && hasEntityManager(entityDetails)) {
+			bodyBuilder.appendFormalLine("if (isQueried()) {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine("return createQuery(\"SELECT o FROM " + entityName + " o\", true).setFirstResult(firstResult).setMaxResults(maxResults).getResultList();");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+		}
+		if (entityDetails.getCountMethodName() != null && entityDetails.getFindEntriesMethodName() != null) {
+			bodyBuilder.appendFormalLine("return " + entityName + "." + entityDetails.getFindEntriesMethodName() + "(firstResult, maxResults);");
+		} else {
+			bodyBuilder.appendFormalLine("List<" + entityName + "> entries = findAllEntries();");
+			bodyBuilder.appendFormalLine("return entries.subList(Math.min(firstResult, entries.size()), Math.min(firstResult + maxResults, entries.size()));");
+		}
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED, new JavaSymbolName(name), getPageType(), parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates the findAllEntries method of the table model class of an entity without paging
+	 * finders. The entities are loaded once per generation of the model, so that counting the
+	 * rows and loading the pages of the same generation share a single findAll call.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param JavaType entity
+	 * @param JavaType entityList
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getFindAllEntriesMethodForEntityTableModelClass(String declaredByMetadataId, JavaType entity, JavaType entityList) {
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("int currentGeneration = getGeneration();");
+		bodyBuilder.appendFormalLine("if (allEntries == null || allEntriesGeneration != currentGeneration) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("allEntries = " + entity.getSimpleTypeName() + "." + getFindAllMethodNameForEntity(entity) + "();");
+		bodyBuilder.appendFormalLine("allEntriesGeneration = currentGeneration;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("return allEntries;");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.SYNCHRONIZED, new JavaSymbolName("findAllEntries"), entityList, new ArrayList<AnnotatedJavaType>(), new ArrayList<JavaSymbolName>(), bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates the entityChanged method of the table model class of an entity without paging
+	 * finders, which drops the loaded entities after a modification, so that the rows inserted
+	 * or reloaded by RooTableModel are loaded from the current entities.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getEntityChangedMethodForEntityTableModelClass(String declaredByMetadataId) {
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.String"), null));
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("operation"));
+		parameterNames.add(new JavaSymbolName("entity"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("if (!\"READ\".equals(operation) && isEntity(entity)) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("synchronized (this) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("allEntries = null;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("super.entityChanged(operation, entity);");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, new JavaSymbolName("entityChanged"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates the createPage method of the table model class of an entity, which copies the
+	 * properties of the loaded entities into one array per column. Entities with an id are kept
+	 * in an additional array after the dictionary.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param JavaType entity
+	 * @param EntityDetails entityDetails
+	 * @param List<ColumnStorage> columns
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getCreatePageMethodForEntityTableModelClass(String declaredByMetadataId, JavaType entity, EntityDetails entityDetails, List<ColumnStorage> columns) {
+		String entityName = entity.getSimpleTypeName();
+		String entityVariable = uncapitalize(entityName);
+		boolean dictionary = false;
+		
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(getPageType(), null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("entries"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("int size = entries.size();");
+		bodyBuilder.appendFormalLine("Object[] ids = new Object[size];");
+		for (ColumnStorage column : columns) {
+			String arrayType = column.arrayType.equals("String") ? "int" : column.arrayType;
+			bodyBuilder.appendFormalLine(arrayType + "[] column" + column.slot + " = new " + arrayType + "[size];");
+			if (column.nullSlot >= 0) {
+				bodyBuilder.appendFormalLine("boolean[] column" + column.nullSlot + " = new boolean[size];");
+			}
+			dictionary |= column.arrayType.equals("String");
+		}
+		if (dictionary) {
+			bodyBuilder.appendFormalLine("Map<String, Integer> codes = new HashMap<String, Integer>();");
+			bodyBuilder.appendFormalLine("List<String> dictionary = new ArrayList<String>();");
+		}
+		bodyBuilder.appendFormalLine("for (int i = 0; i < size; i++) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine(entityName + " " + entityVariable + " = (" + entityName + ") entries.get(i);");
+		// Without an id the entities themselves have to be kept
+		bodyBuilder.appendFormalLine("ids[i] = " + entityVariable + (getIdType(entityDetails) != null ? ".getId()" : "") + ";");
+		for (ColumnStorage column : columns) {
+			String getter = entityVariable + "." + column.getterName + "()";
+			if (column.arrayType.equals("String")) {
+				bodyBuilder.appendFormalLine("column" + column.slot + "[i] = encode(" + getter + ", codes, dictionary);");
+			} else if (column.nullSlot >= 0) {
+				bodyBuilder.appendFormalLine(column.wrapperType + " value" + column.slot + " = " + getter + ";");
+				bodyBuilder.appendFormalLine("column" + column.nullSlot + "[i] = value" + column.slot + " == null;");
+				bodyBuilder.appendFormalLine("column" + column.slot + "[i] = value" + column.slot + " != null " + (column.arrayType.equals("boolean") ? "&& value" + column.slot : "? value" + column.slot + " : 0") + ";");
+			} else {
+				bodyBuilder.appendFormalLine("column" + column.slot + "[i] = " + getter + ";");
+			}
+		}
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		
+		StringBuilder page = new StringBuilder("ids");
+		for (ColumnStorage column : columns) {
+			page.append(", column").append(column.slot);
+			if (column.nullSlot >= 0) {
+				page.append(", column").append(column.nullSlot);
+			}
+		}
+		if (dictionary) {
+			page.append(", dictionary.toArray(new String[dictionary.size()])");
+		}
+		if (getIdType(entityDetails) != null) {
+			page.append(dictionary ? "" : ", null").append(", entries.toArray()");
+		}
+		bodyBuilder.appendFormalLine("return new Object[] {" + page + "};");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED, new JavaSymbolName("createPage"), new JavaType("java.lang.Object"), parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates the getPageRowCount method of the table model class of an entity.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getGetPageRowCountMethodForEntityTableModelClass(String declaredByMetadataId) {
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("page"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return ((Object[]) ((Object[]) page)[0]).length;");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED, new JavaSymbolName("getPageRowCount"), JavaType.INT_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates the getPageValue method of the table model class of an entity, which reads a cell
+	 * from its column array.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param List<ColumnStorage> columns
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getGetPageValueMethodForEntityTableModelClass(String declaredByMetadataId, List<ColumnStorage> columns) {
+		int dictionarySlot = getDictionarySlot(columns);
+		
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("page"));
+		parameterNames.add(new JavaSymbolName("offset"));
+		parameterNames.add(new JavaSymbolName("columnIndex"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("Object[] columns = (Object[]) page;");
+		bodyBuilder.appendFormalLine("switch (columnIndex) {");
+		for (int i = 0; i < columns.size(); i++) {
+			ColumnStorage column = columns.get(i);
+			String cell = "((" + (column.arrayType.equals("String") ? "int" : column.arrayType) + "[]) columns[" + column.slot + "])[offset]";
+			String value;
+			if (column.arrayType.equals("String")) {
+				value = "decode(" + cell + ", (String[]) columns[" + dictionarySlot + "])";
+			} else if (column.arrayType.equals("Object")) {
+				value = cell;
+			} else {
+				value = StringUtils.capitalize(column.wrapperType) + ".valueOf(" + column.cast + cell + ")";
+				if (column.nullSlot >= 0) {
+					value = "((boolean[]) columns[" + column.nullSlot + "])[offset] ? null : " + value;
+				}
+			}
+			bodyBuilder.appendFormalLine("case " + i + ": return " + value + ";");
+		}
+		bodyBuilder.appendFormalLine("default: return null;");
+		bodyBuilder.appendFormalLine("}");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED, new JavaSymbolName("getPageValue"), new JavaType("java.lang.Object"), parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Returns the slot of the dictionary of the string columns, which follows the last column.
+	 * The slot is left empty if there are no string columns.
+	 * 
+	 * @param List<ColumnStorage> columns
+	 * @return int
+	 */
+	private int getDictionarySlot(List<ColumnStorage> columns) {
+		int dictionarySlot = 1;
+		for (ColumnStorage column : columns) {
+			dictionarySlot = Math.max(dictionarySlot, Math.max(column.slot, column.nullSlot) + 1);
+		}
+		return dictionarySlot;
+	}
+	
+	/**
+	 * Generates the setPageRow method of the table model class of an entity, which overwrites
+	 * the cells of one row of a loaded page with the properties of an entity.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param JavaType entity
+	 * @param EntityDetails entityDetails
+	 * @param List<ColumnStorage> columns
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getSetPageRowMethodForEntityTableModelClass(String declaredByMetadataId, JavaType entity, EntityDetails entityDetails, List<ColumnStorage> columns) {
+		String entityName = entity.getSimpleTypeName();
+		String entityVariable = uncapitalize(entityName);
+		int dictionarySlot = getDictionarySlot(columns);
+		
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("page"));
+		parameterNames.add(new JavaSymbolName("offset"));
+		parameterNames.add(new JavaSymbolName("entity"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("Object[] columns = (Object[]) page;");
+		bodyBuilder.appendFormalLine(entityName + " " + entityVariable + " = (" + entityName + ") entity;");
+		bodyBuilder.appendFormalLine("((Object[]) columns[0])[offset] = " + entityVariable + (getIdType(entityDetails) != null ? ".getId()" : "") + ";");
+		if (getIdType(entityDetails) != null) {
+			bodyBuilder.appendFormalLine("((Object[]) columns[" + (dictionarySlot + 1) + "])[offset] = " + entityVariable + ";");
+		}
+		for (ColumnStorage column : columns) {
+			String getter = entityVariable + "." + column.getterName + "()";
+			String cell = "((" + (column.arrayType.equals("String") ? "int" : column.arrayType) + "[]) columns[" + column.slot + "])[offset]";
+			if (column.arrayType.equals("String")) {
+				bodyBuilder.appendFormalLine(cell + " = encode(" + getter + ", columns, " + dictionarySlot + ");");
+			} else if (column.nullSlot >= 0) {
+				bodyBuilder.appendFormalLine(column.wrapperType + " value" + column.slot + " = " + getter + ";");
+				bodyBuilder.appendFormalLine("((boolean[]) columns[" + column.nullSlot + "])[offset] = value" + column.slot + " == null;");
+				bodyBuilder.appendFormalLine(cell + " = value" + column.slot + " != null " + (column.arrayType.equals("boolean") ? "&& value" + column.slot : "? value" + column.slot + " : 0") + ";");
+			} else {
+				bodyBuilder.appendFormalLine(cell + " = " + getter + ";");
+			}
+		}
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED, new JavaSymbolName("setPageRow"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates the getSearchValues method of the table model class of an entity, which returns
+	 * the string columns of an entity for its search index.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param JavaType entity
+	 * @param List<ColumnStorage> columns
+	 * @return new MethodMetadata, or null if the entity has no string columns
+	 */
+	private MethodMetadata getGetSearchValuesMethodForEntityTableModelClass(String declaredByMetadataId, JavaType entity, List<ColumnStorage> columns) {
+		String entityName = entity.getSimpleTypeName();
+		String entityVariable = uncapitalize(entityName);
+		
+		StringBuilder values = new StringBuilder();
+		for (ColumnStorage column : columns) {
+			if (column.arrayType.equals("String")) {
+				values.append(values.length() == 0 ? "" : ", ").append(entityVariable).append('.').append(column.getterName).append("()");
+			}
+		}
+		if (values.length() == 0) {
+			return null;
+		}
+		
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("entity"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine(entityName + " " + entityVariable + " = (" + entityName + ") entity;");
+		bodyBuilder.appendFormalLine("return new String[] { " + values + " };");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED, new JavaSymbolName("getSearchValues"), new JavaType("java.lang.String", 1, DataType.TYPE, null, null), parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates the getPageId method of the table model class of an entity, which returns the
+	 * id of a row, or its entity if the entity has no id.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getGetPageIdMethodForEntityTableModelClass(String declaredByMetadataId) {
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("page"));
+		parameterNames.add(new JavaSymbolName("offset"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return ((Object[]) ((Object[]) page)[0])[offset];");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED, new JavaSymbolName("getPageId"), new JavaType("java.lang.Object"), parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates the isEntity method of the table model class of an entity.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param JavaType entity
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getIsEntityMethodForEntityTableModelClass(String declaredByMetadataId, JavaType entity) {
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("entity"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return entity instanceof " + entity.getSimpleTypeName() + ";");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED, new JavaSymbolName("isEntity"), JavaType.BOOLEAN_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates the getEntityId method of the table model class of an entity with an id.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param JavaType entity
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getGetEntityIdMethodForEntityTableModelClass(String declaredByMetadataId, JavaType entity) {
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("entity"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return ((" + entity.getSimpleTypeName() + ") entity).getId();");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED, new JavaSymbolName("getEntityId"), new JavaType("java.lang.Object"), parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+	
+	/**
+	 * Generates the getPageEntity method of the table model class of an entity, which returns
+	 * the entity of a row as it has been loaded with its page.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param EntityDetails entityDetails
+	 * @param List<ColumnStorage> columns
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getGetPageEntityMethodForEntityTableModelClass(String declaredByMetadataId, EntityDetails entityDetails, List<ColumnStorage> columns) {
+		
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("page"));
+		parameterNames.add(new JavaSymbolName("offset"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		// Without an id the entities themselves are kept as ids
+		int slot = getIdType(entityDetails) != null ? getDictionarySlot(columns) + 1 : 0;
+		bodyBuilder.appendFormalLine("return ((Object[]) ((Object[]) page)[" + slot + "])[offset];");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PROTECTED, new JavaSymbolName("getPageEntity"), new JavaType("java.lang.Object"), parameterTypes, parameterNames, bodyBuilder);
+		
+		return methodBuilder.build();
+	}
+
+	/**
+	 * Creates a RooButton class. Implements JButton.
+	 */
+	private void createRooButtonClass(){
+		JavaType rooButton = new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".rooswingcomponents.RooButton");
+		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(rooButton, Path.SRC_MAIN_JAVA);
+		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(rooButton, projectOperations.getPathResolver().getPath(resourceIdentifier));
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, rooButton, PhysicalTypeCategory.CLASS);
+		
+		JavaType extendsType = new JavaType("javax.swing.JButton");
+		
+		typeDetailsBuilder.addExtendsTypes(extendsType);
+		typeDetailsBuilder.addConstructor(getConstructorForRooButtonClass(declaredByMetadataId));
+		
+		generateClassFile(typeDetailsBuilder);
+	}
+	
+	/**
+	 * Generates a constructor for RooButton class.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new ConstructorMetadata
+	 */
+	private ConstructorMetadata getConstructorForRooButtonClass(String declaredByMetadataId) {
+		AnnotatedJavaType listener = new AnnotatedJavaType(new JavaType("java.awt.event.ActionListener"), null);
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("this.addActionListener(listener);");
+		
+		ConstructorMetadataBuilder constructorBuilder = new ConstructorMetadataBuilder(declaredByMetadataId);
+		
+		constructorBuilder.addParameterType(listener);
+		constructorBuilder.addParameterName(new JavaSymbolName("listener"));
+		
+		constructorBuilder.setModifier(Modifier.PUBLIC);
+		constructorBuilder.setBodyBuilder(bodyBuilder);
+		
+		return constructorBuilder.build();
+	}
+	
+	/**
+	 * Creates a RooTextField class. Implements JTextField. Fields of decorated entities are
+	 * bound to the typed value models of their properties, the BeanAdapter is kept for other
+	 * beans only.
+	 */
+	private void createRooTextFieldClass(){
+		JavaType rooTextField = new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".rooswingcomponents.RooTextField");
+		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(rooTextField, Path.SRC_MAIN_JAVA);
+		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(rooTextField, projectOperations.getPathResolver().getPath(resourceIdentifier));
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, rooTextField, PhysicalTypeCategory.CLASS);
+		
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, beanAdapter));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, bindings));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, valueModel));
+		
+		JavaType extendsType = new JavaType("javax.swing.JTextField");
+		
+		typeDetailsBuilder.addExtendsTypes(extendsType);
+		typeDetailsBuilder.addConstructor(getConstructorForRooTextFieldClass(declaredByMetadataId));
+		typeDetailsBuilder.addConstructor(getValueModelConstructorForRooTextFieldClass(declaredByMetadataId));
+
+		generateClassFile(typeDetailsBuilder);
+	}
+
+	/**
+	 * Generates a constructor for RooTextfield class, which binds a property of any bean through
+	 * introspection.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new ConstructorMetadata
+	 */
+	private ConstructorMetadata getConstructorForRooTextFieldClass(String declaredByMetadataId) {
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.Object"), null));
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.String"), null));
+		
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("entity"));
+		parameterNames.add(new JavaSymbolName("propertyName"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("this(new BeanAdapter<Object>(entity, true).getValueModel(propertyName));");
+		
+		ConstructorMetadataBuilder constructorBuilder = new ConstructorMetadataBuilder(declaredByMetadataId);
+		
+		constructorBuilder.setParameterTypes(parameterTypes);
+		constructorBuilder.setParameterNames(parameterNames);
+		
+		constructorBuilder.setModifier(Modifier.PUBLIC);
+		constructorBuilder.setBodyBuilder(bodyBuilder);
+		return constructorBuilder.build();
+	}
+	
+	/**
+	 * Generates a constructor for RooTextfield class, which binds a value model, e.g. the typed
+	 * get<Property>Model of a decorated entity.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new ConstructorMetadata
+	 */
+	private ConstructorMetadata getValueModelConstructorForRooTextFieldClass(String declaredByMetadataId) {
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("Bindings.bind(this, valueModel);");
+		
+		ConstructorMetadataBuilder constructorBuilder = new ConstructorMetadataBuilder(declaredByMetadataId);
+		
+		constructorBuilder.addParameterType(new AnnotatedJavaType(valueModel, null));
+		constructorBuilder.addParameterName(new JavaSymbolName("valueModel"));
+		
+		constructorBuilder.setModifier(Modifier.PUBLIC);
+		constructorBuilder.setBodyBuilder(bodyBuilder);
+		return constructorBuilder.build();
+	}
+
+	
+	/**
+	 * Generates the prefetcher field of a RooTable class.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @return new FieldMetadata
+	 */
+	private FieldMetadata getPrefetcherField(String declaredByMetadataId) {
+		JavaType rooTablePrefetcher = getRooTablePrefetcherType();
+		FieldMetadataBuilder fieldBuilder = new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("prefetcher"), rooTablePrefetcher, "new " + rooTablePrefetcher.getSimpleTypeName() + "(this)");
+		return fieldBuilder.build();
+	}
+	
+	/**
+	 * Generates an addNotify or removeNotify method for a RooTable class, which registers the
+	 * prefetcher with the viewport of the scroll pane the table is shown in.
+	 * 
+	 * @param String declaredByMetadataId
+	 * @param String name addNotify or removeNotify
+	 * @return new MethodMetadata
+	 */
+	private MethodMetadata getViewportNotifyMethod(String declaredByMetadataId, String name) {
+		boolean add = name.equals("addNotify");
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		if (add) {
+			bodyBuilder.appendFormalLine("super.addNotify();");
+		}
+		bodyBuilder.appendFormalLine("if (getParent() instanceof JViewport) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("((JViewport) getParent())." + (add ? "add" : "remove") + "ChangeListener(prefetcher);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		if (!add) {
+			bodyBuilder.appendFormalLine("super.removeNotify();");
+		}
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, new JavaSymbolName(name), JavaType.VOID_PRIMITIVE, null, null, bodyBuilder);
+		methodBuilder.addAnnotation(getOverrideAnnotation(declaredByMetadataId));
+		
+		return methodBuilder.build();
+	}
+	
+	private JavaType getRooTablePrefetcherType() {
+		return new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".rooswingcomponents.RooTablePrefetcher");
+	}
+	
+	/**
+	 * Creates a RooTablePrefetcher class. Implements ChangeListener. It is notified whenever the
+	 * viewport of a RooTable scrolls and lets the RooTableModel prefetch the pages around the
+	 * visible rows.
+	 */
+	private void createRooTablePrefetcherClass(){
+		JavaType rooTablePrefetcher = getRooTablePrefetcherType();
+		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(rooTablePrefetcher, Path.SRC_MAIN_JAVA);
+		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(rooTablePrefetcher, projectOperations.getPathResolver().getPath(resourceIdentifier));
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, rooTablePrefetcher, PhysicalTypeCategory.CLASS);
+		
+		JavaType table = new JavaType("javax.swing.JTable");
+		
+		typeDetailsBuilder.addImplementsType(new JavaType("javax.swing.event.ChangeListener"));
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE, new JavaSymbolName("table"), table, null).build());
+		
+		InvocableMemberBodyBuilder constructorBodyBuilder = new InvocableMemberBodyBuilder();
+		constructorBodyBuilder.appendFormalLine("this.table = table;");
+		ConstructorMetadataBuilder constructorBuilder = new ConstructorMetadataBuilder(declaredByMetadataId);
+		constructorBuilder.addParameterType(new AnnotatedJavaType(table, null));
+		constructorBuilder.addParameterName(new JavaSymbolName("table"));
+		constructorBuilder.setModifier(Modifier.PUBLIC);
+		constructorBuilder.setBodyBuilder(constructorBodyBuilder);
+		typeDetailsBuilder.addConstructor(constructorBuilder.build());
+		
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("javax.swing.event.ChangeEvent"), null));
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("e"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("if (!(table.getParent() instanceof JViewport) || !(table.getModel() instanceof RooTableModel) || table.getRowCount() == 0) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("Rectangle visibleRect = ((JViewport) table.getParent()).getViewRect();");
+		bodyBuilder.appendFormalLine("int firstRow = table.rowAtPoint(visibleRect.getLocation());");
+		bodyBuilder.appendFormalLine("int lastRow = table.rowAtPoint(new Point(visibleRect.x, visibleRect.y + visibleRect.height - 1));");
+		bodyBuilder.appendFormalLine("firstRow = table.convertRowIndexToModel(firstRow < 0 ? 0 : firstRow);");
+		bodyBuilder.appendFormalLine("lastRow = table.convertRowIndexToModel(lastRow < 0 ? table.getRowCount() - 1 : lastRow);");
+		bodyBuilder.appendFormalLine("((RooTableModel) table.getModel()).prefetch(Math.min(firstRow, lastRow), Math.max(firstRow, lastRow));");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC, new JavaSymbolName("stateChanged"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder);
+		typeDetailsBuilder.addMethod(methodBuilder.build());
+		
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.awt.Point")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.awt.Rectangle")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("javax.swing.JViewport")));
+		
+		generateClassFile(typeDetailsBuilder);
+	}
+	
+	private JavaType getRooSearchIndexType() {
+		return new JavaType(projectOperations.getProjectMetadata().getTopLevelPackage() + ".rooswingcomponents.RooSearchIndex");
+	}
+	
+	/**
+	 * Creates a RooSearchIndex class, the in-memory index a RooTableModel searches as the user
+	 * types. It keeps the entities of a table and maps every word of their string columns to
+	 * their ids in a sorted map, so that the entities whose words start with the typed prefixes
+	 * are found with a range lookup instead of a scan of all rows. Entities are put and removed
+	 * one by one, so that the index follows the CRUD results without being built again.
+	 */
+	private void createRooSearchIndexClass(){
+		JavaType rooSearchIndex = getRooSearchIndexType();
+		String resourceIdentifier = typeLocationService.getPhysicalLocationCanonicalPath(rooSearchIndex, Path.SRC_MAIN_JAVA);
+		String declaredByMetadataId = PhysicalTypeIdentifier.createIdentifier(rooSearchIndex, projectOperations.getPathResolver().getPath(resourceIdentifier));
+		ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder = new ClassOrInterfaceTypeDetailsBuilder(declaredByMetadataId, Modifier.PUBLIC, rooSearchIndex, PhysicalTypeCategory.CLASS);
+		
+		JavaType object = new JavaType("java.lang.Object");
+		JavaType string = new JavaType("java.lang.String");
+		JavaType ids = new JavaType("java.util.List", 0, DataType.TYPE, null, Arrays.asList(object));
+		JavaType idSet = new JavaType("java.util.Set", 0, DataType.TYPE, null, Arrays.asList(object));
+		
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.STATIC | Modifier.FINAL, new JavaSymbolName("MAX_ROWS"), JavaType.INT_PRIMITIVE, "Integer.getInteger(\"richclient.search.maxRows\", 100000)").build());
+		// The ids of an entity are of a single Comparable type, so the cast is checked by the instanceof in search
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL, new JavaSymbolName("ID_ORDER"), new JavaType("java.util.Comparator", 0, DataType.TYPE, null, Arrays.asList(object)), "new Comparator<Object>() { "
+			+ "@SuppressWarnings(\"unchecked\") public int compare(Object id1, Object id2) { return ((Comparable<Object>) id1).compareTo(id2); } }").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.FINAL, new JavaSymbolName("entities"), new JavaType("java.util.Map", 0, DataType.TYPE, null, Arrays.asList(object, object)), "new HashMap<Object, Object>()").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.FINAL, new JavaSymbolName("words"), new JavaType("java.util.Map", 0, DataType.TYPE, null, Arrays.asList(object, new JavaType("java.util.List", 0, DataType.TYPE, null, Arrays.asList(string)))), "new HashMap<Object, List<String>>()").build());
+		typeDetailsBuilder.addField(new FieldMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.FINAL, new JavaSymbolName("index"), new JavaType("java.util.TreeMap", 0, DataType.TYPE, null, Arrays.asList(string, idSet)), "new TreeMap<String, Set<Object>>()").build());
+		
+		// put
+		List<AnnotatedJavaType> parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(object, null));
+		parameterTypes.add(new AnnotatedJavaType(object, null));
+		parameterTypes.add(new AnnotatedJavaType(new JavaType("java.lang.String", 1, DataType.TYPE, null, null), null));
+		List<JavaSymbolName> parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("id"));
+		parameterNames.add(new JavaSymbolName("entity"));
+		parameterNames.add(new JavaSymbolName("values"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("remove(id);");
+		bodyBuilder.appendFormalLine("entities.put(id, entity);");
+		bodyBuilder.appendFormalLine("List<String> entityWords = new ArrayList<String>();");
+		bodyBuilder.appendFormalLine("for (String value : values) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (value != null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("entityWords.addAll(split(value));");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("words.put(id, entityWords);");
+		bodyBuilder.appendFormalLine("for (String word : entityWords) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("Set<Object> wordIds = index.get(word);");
+		bodyBuilder.appendFormalLine("if (wordIds == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("wordIds = new HashSet<Object>();");
+		bodyBuilder.appendFormalLine("index.put(word, wordIds);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("wordIds.add(id);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.SYNCHRONIZED, new JavaSymbolName("put"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder).build());
+		
+		// remove
+		parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(object, null));
+		parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("id"));
+		
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("entities.remove(id);");
+		bodyBuilder.appendFormalLine("List<String> entityWords = words.remove(id);");
+		bodyBuilder.appendFormalLine("if (entityWords == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("for (String word : entityWords) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("Set<Object> wordIds = index.get(word);");
+		bodyBuilder.appendFormalLine("if (wordIds != null && wordIds.remove(id) && wordIds.isEmpty()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("index.remove(word);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.SYNCHRONIZED, new JavaSymbolName("remove"), JavaType.VOID_PRIMITIVE, parameterTypes, parameterNames, bodyBuilder).build());
+		
+		// search
+		parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(string, null));
+		parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("text"));
+		
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("// Every typed word has to be the prefix of a word of the entity");
+		bodyBuilder.appendFormalLine("Set<Object> matches = null;");
+		bodyBuilder.appendFormalLine("for (String prefix : split(text)) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("Set<Object> prefixMatches = new HashSet<Object>();");
+		bodyBuilder.appendFormalLine("for (Set<Object> wordIds : index.subMap(prefix, prefix + Character.MAX_VALUE).values()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (matches == null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("prefixMatches.addAll(wordIds);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} else {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("for (Object id : wordIds) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (matches.contains(id)) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("prefixMatches.add(id);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("matches = prefixMatches;");
+		bodyBuilder.appendFormalLine("if (matches.isEmpty()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("break;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("List<Object> result = matches == null ? new ArrayList<Object>(entities.keySet()) : new ArrayList<Object>(matches);");
+		bodyBuilder.appendFormalLine("if (!result.isEmpty() && result.get(0) instanceof Comparable) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("// Shows the matches in the order of the ids, like the unsorted table");
+		bodyBuilder.appendFormalLine("Collections.sort(result, ID_ORDER);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("return result;");
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.SYNCHRONIZED, new JavaSymbolName("search"), ids, parameterTypes, parameterNames, bodyBuilder).build());
+		
+		// getEntities
+		parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(ids, null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		parameterTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("ids"));
+		parameterNames.add(new JavaSymbolName("firstResult"));
+		parameterNames.add(new JavaSymbolName("maxResults"));
+		
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("List<Object> entries = new ArrayList<Object>();");
+		bodyBuilder.appendFormalLine("for (int i = firstResult; i < Math.min(ids.size(), firstResult + maxResults); i++) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("Object entity = entities.get(ids.get(i));");
+		bodyBuilder.appendFormalLine("if (entity != null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("entries.add(entity);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("return entries;");
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PUBLIC | Modifier.SYNCHRONIZED, new JavaSymbolName("getEntities"), ids, parameterTypes, parameterNames, bodyBuilder).build());
+		
+		// split
+		parameterTypes = new ArrayList<AnnotatedJavaType>();
+		parameterTypes.add(new AnnotatedJavaType(string, null));
+		parameterNames = new ArrayList<JavaSymbolName>();
+		parameterNames.add(new JavaSymbolName("text"));
+		
+		bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("List<String> textWords = new ArrayList<String>();");
+		bodyBuilder.appendFormalLine("int start = -1;");
+		bodyBuilder.appendFormalLine("for (int i = 0; i <= text.length(); i++) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("if (start < 0) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("start = i;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} else if (start >= 0) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("textWords.add(text.substring(start, i).toLowerCase());");
+		bodyBuilder.appendFormalLine("start = -1;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("return textWords;");
+		typeDetailsBuilder.addMethod(new MethodMetadataBuilder(declaredByMetadataId, Modifier.PRIVATE | Modifier.STATIC, new JavaSymbolName("split"), new JavaType("java.util.List", 0, DataType.TYPE, null, Arrays.asList(string)), parameterTypes, parameterNames, bodyBuilder).build());
+		
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.ArrayList")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.Collections")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.Comparator")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.HashMap")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.HashSet")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, list));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.Map")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.Set")));
+		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, new JavaType("java.util.TreeMap")));
+		
+		generateClassFile(typeDetailsBuilder);
+	}
+	
+	private String getFindAllMethodNameForEntity(JavaType entity){
+		return entityDetailsCache.getEntityDetails(entity).getFindAllMethodName();
 	}
 
 	
@@ -499,7 +2870,10 @@ public class RooSwingComponentOperationsImpl implements
 	 * @param typeDetailsBuilder
 	 */
 	private void generateClassFile(ClassOrInterfaceTypeDetailsBuilder typeDetailsBuilder){
+		long start = System.nanoTime();
 		typeManagementService.generateClassFile(typeDetailsBuilder.build());
+		profiler.recordFilesWritten(1);
+		profiler.recordPhase("file write", start);
 	}
 	
 	private ImportMetadata getImport(String declaredByMetadataId, JavaType javaType){
@@ -511,10 +2885,7 @@ public class RooSwingComponentOperationsImpl implements
 	}
 	
 	public MemberDetails getMemberDetails(JavaType javaType) {
-		PhysicalTypeMetadata physicalTypeMetadata = (PhysicalTypeMetadata) metadataService.get(PhysicalTypeIdentifier.createIdentifier(javaType, Path.SRC_MAIN_JAVA));
-		Assert.notNull(physicalTypeMetadata, "Unable to obtain physical type metdata for type " + javaType.getFullyQualifiedTypeName());
-		ClassOrInterfaceTypeDetails classOrInterfaceDetails = (ClassOrInterfaceTypeDetails) physicalTypeMetadata.getMemberHoldingTypeDetails();
-		return memberDetailsScanner.getMemberDetails(RooSwingComponentOperationsImpl.class.getName(), classOrInterfaceDetails);
+		return entityDetailsCache.getEntityDetails(javaType).getMemberDetails();
 	}
 	
 	private String uncapitalize(String term) {
@@ -1,5 +1,7 @@
 package de.viadee.roo.addon.richclient;
 
+import java.util.Set;
+
 import org.springframework.roo.model.JavaType;
 
 /**
@@ -11,9 +13,13 @@ import org.springframework.roo.model.JavaType;
 public interface SwingOperations {
 	
 	/**
-	 * Triggers the creation of views for all entities.
+	 * Triggers the creation of views for all entities. Entity specific components are only
+	 * created for the changed entities and removed for the removed entities.
+	 * 
+	 * @param Set<JavaType> changedEntities
+	 * @param Set<JavaType> removedEntities
 	 */
-	public void createViewsForAllEntities();
+	public void createViewsForAllEntities(Set<JavaType> changedEntities, Set<JavaType> removedEntities);
 	
 	/**
 	 * Triggers the creation of views for a single entity.
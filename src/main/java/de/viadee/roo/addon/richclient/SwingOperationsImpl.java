@@ -46,22 +46,24 @@ public class SwingOperationsImpl implements SwingOperations{
 	@Reference private TypeLocationService typeLocationService;
 	@Reference private TypeManagementService typeManagementService;
 	@Reference private RooSwingComponentOperations componentOperations;
+	@Reference private RooEntityIndex rooEntityIndex;
+	@Reference private GenerationProfiler profiler;
 	
 	/**
 	 * {@inheritDoc}
 	 */
-	public void createViewsForAllEntities(){
+	public void createViewsForAllEntities(Set<JavaType> changedEntities, Set<JavaType> removedEntities){
 		
-		componentOperations.createRooComponents();
+		long start = System.nanoTime();
+		componentOperations.createRooComponents(changedEntities, removedEntities);
+		profiler.recordPhase("roo components", start);
 		
-		Set<ClassOrInterfaceTypeDetails> cids = typeLocationService.findClassesOrInterfaceDetailsWithAnnotation(new JavaType("org.springframework.roo.addon.entity.RooEntity"));
-		for (ClassOrInterfaceTypeDetails cid : cids) {
-			if (Modifier.isAbstract(cid.getModifier())) {
+		for (ClassOrInterfaceTypeDetails cid : rooEntityIndex.getEntities()) {
+			JavaType entity = cid.getName();
+			if (!changedEntities.contains(entity)) {
 				continue;
 			}
 			
-			JavaType entity = cid.getName();
-			
 			createViewsForSingleEntity(entity);
 		}
 //		createWindowManager(cids);
@@ -179,7 +181,10 @@ public class SwingOperationsImpl implements SwingOperations{
 		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, eventBus));
 		typeDetailsBuilder.getRegisteredImports().add(getImport(declaredByMetadataId, menuEvent));
 		
+		long start = System.nanoTime();
 		typeManagementService.generateClassFile(typeDetailsBuilder.build());
+		profiler.recordFilesWritten(1);
+		profiler.recordPhase("file write", start);
 	}
 	
 	private MethodMetadata getMenuActionPerformedMethod(JavaType menuEvent, String declaredByMetadataId){
@@ -0,0 +1,22 @@
+package de.viadee.roo.addon.richclient;
+
+/**
+ * How the generated components are registered with the Spring Application Context of the
+ * generated client.
+ * 
+ * @author Christian Kaiser
+ * @since 1.1.1
+ */
+public enum WiringMode {
+	
+	/**
+	 * Every generated component is registered as a bean in applicationContext.xml
+	 */
+	XML,
+	
+	/**
+	 * The generated components are annotated with @Component and found by a component-scan of
+	 * each generated package, the entities are defined by a generated @Configuration class
+	 */
+	ANNOTATION
+}